@@ -2,8 +2,10 @@ package com.javaguy.wallet_settlement;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class WalletSettlementApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,40 @@
+package com.javaguy.wallet_settlement.config;
+
+import com.javaguy.wallet_settlement.service.IdGenerator;
+import com.javaguy.wallet_settlement.service.RandomUuidIdGenerator;
+import com.javaguy.wallet_settlement.service.SnowflakeIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    @Bean
+    public IdGenerator idGenerator(@Value("${wallet.id.generator:snowflake}") String generator,
+                                   @Value("${wallet.id.node-id:-1}") int nodeId) {
+        if ("uuid".equalsIgnoreCase(generator)) {
+            return new RandomUuidIdGenerator();
+        }
+        int resolvedNodeId = nodeId >= 0 ? nodeId : nodeIdFromHostName();
+        logger.info("Using time-ordered id generator with node id {}", resolvedNodeId);
+        return new SnowflakeIdGenerator(resolvedNodeId);
+    }
+
+    // Fallback for single-host setups; clustered deployments should set wallet.id.node-id explicitly
+    private int nodeIdFromHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName().hashCode() & SnowflakeIdGenerator.MAX_NODE_ID;
+        } catch (UnknownHostException e) {
+            logger.warn("Could not resolve host name for id generator node id, using 0", e);
+            return 0;
+        }
+    }
+}
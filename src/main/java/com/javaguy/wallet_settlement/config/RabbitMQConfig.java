@@ -6,9 +6,14 @@ import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFacto
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 @EnableRabbit
 public class RabbitMQConfig {
@@ -18,18 +23,49 @@ public class RabbitMQConfig {
     public static final String TRANSACTION_ROUTING_KEY = "transaction.completed";
     public static final String TRANSACTION_DLQ = "transaction.dlq";
     public static final String TRANSACTION_DLX = "transaction.dlx";
+    public static final String BATCH_LISTENER_CONTAINER_FACTORY = "batchListenerContainerFactory";
+
+    @Value("${wallet.events.partitions:4}")
+    private int partitions;
+
+    @Value("${wallet.events.codec:json}")
+    private String eventCodec;
+
+    public static String partitionQueue(int partition) {
+        return TRANSACTION_QUEUE + "." + partition;
+    }
+
+    public static String partitionRoutingKey(int partition) {
+        return TRANSACTION_ROUTING_KEY + "." + partition;
+    }
+
+    public static int partitionFor(Long walletId, int partitions) {
+        return Math.floorMod(Long.hashCode(walletId), partitions);
+    }
 
     @Bean
     public TopicExchange transactionExchange() {
         return new TopicExchange(TRANSACTION_EXCHANGE, true, false);
     }
 
+    /**
+     * One durable queue per partition, each bound to the exchange with its own routing key.
+     * Events are routed by a hash of the wallet id, so every event of a wallet lands on the same queue.
+     */
     @Bean
-    public Queue transactionQueue() {
-        return QueueBuilder.durable(TRANSACTION_QUEUE)
-                .withArgument("x-dead-letter-exchange", TRANSACTION_DLX)
-                .withArgument("x-message-ttl", 300000) // -> 5 minutes
-                .build();
+    public Declarables transactionPartitionQueues(TopicExchange transactionExchange) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            Queue queue = QueueBuilder.durable(partitionQueue(partition))
+                    .withArgument("x-dead-letter-exchange", TRANSACTION_DLX)
+                    .withArgument("x-message-ttl", 300000) // -> 5 minutes
+                    .build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue)
+                    .to(transactionExchange)
+                    .with(partitionRoutingKey(partition)));
+        }
+        return new Declarables(declarables);
     }
 
     @Bean
@@ -42,13 +78,6 @@ public class RabbitMQConfig {
         return new DirectExchange(TRANSACTION_DLX);
     }
 
-    @Bean
-    public Binding transactionBinding() {
-        return BindingBuilder.bind(transactionQueue())
-                .to(transactionExchange())
-                .with(TRANSACTION_ROUTING_KEY);
-    }
-
     @Bean
     public Binding transactionDLQBinding() {
         return BindingBuilder.bind(transactionDLQ())
@@ -57,8 +86,8 @@ public class RabbitMQConfig {
     }
 
     @Bean
-    public Jackson2JsonMessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public MessageConverter messageConverter() {
+        return new TransactionEventMessageConverter(new Jackson2JsonMessageConverter(), "binary".equalsIgnoreCase(eventCodec));
     }
 
     @Bean
@@ -76,4 +105,28 @@ public class RabbitMQConfig {
         factory.setMessageConverter(messageConverter());
         return factory;
     }
-}
\ No newline at end of file
+
+    /**
+     * Consumer-side batching: the container collects up to {@code batch-size} deliveries (or whatever
+     * arrived within {@code receive-timeout-ms}), hands them to the listener as one list and acks them
+     * with a single multiple-ack once the listener returns. Consumer concurrency is not configured here:
+     * every partition queue gets exactly one consumer (see {@link TransactionPartitionListenerConfig}).
+     */
+    @Bean(name = BATCH_LISTENER_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory batchListenerContainerFactory(
+            ConnectionFactory connectionFactory,
+            @Value("${wallet.consumer.prefetch:250}") int prefetch,
+            @Value("${wallet.consumer.batch-size:100}") int batchSize,
+            @Value("${wallet.consumer.receive-timeout-ms:100}") long receiveTimeoutMillis) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter());
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMillis);
+        return factory;
+    }
+}
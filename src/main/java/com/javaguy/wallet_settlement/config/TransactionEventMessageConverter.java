@@ -0,0 +1,177 @@
+package com.javaguy.wallet_settlement.config;
+
+import com.javaguy.wallet_settlement.model.dto.TransactionEvent;
+import com.javaguy.wallet_settlement.model.enums.TransactionStatus;
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Converter for transaction events that speaks both JSON and a compact binary layout.
+ * Consumers pick the decoder from the message content type, so JSON and binary producers
+ * can run side by side; producers only emit binary when {@code wallet.events.codec=binary}.
+ *
+ * <p>Binary layout, version 1 (big-endian):
+ * <pre>
+ * byte    version
+ * byte    type code      (TransactionType ordinal)
+ * byte    status code    (TransactionStatus ordinal)
+ * byte    amount scale
+ * long    amount unscaled value
+ * long    wallet id
+ * long    timestamp, microseconds since the epoch (UTC), Long.MIN_VALUE for null
+ * short   transaction id length, then UTF-8 bytes
+ * short   description length (-1 for null), then UTF-8 bytes
+ * </pre>
+ * Enum constants may only ever be appended, never reordered. Events that do not fit the layout
+ * (unknown enum names, amounts beyond a long) are sent as JSON.
+ */
+public class TransactionEventMessageConverter implements MessageConverter {
+
+    public static final String BINARY_CONTENT_TYPE = "application/x-wallet-transaction-event";
+
+    static final byte VERSION = 1;
+    private static final int FIXED_LENGTH = 1 + 1 + 1 + 1 + 8 + 8 + 8 + 2 + 2;
+    private static final long NULL_TIMESTAMP = Long.MIN_VALUE;
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+
+    private final MessageConverter jsonConverter;
+    private final boolean binaryEnabled;
+
+    public TransactionEventMessageConverter(MessageConverter jsonConverter, boolean binaryEnabled) {
+        this.jsonConverter = jsonConverter;
+        this.binaryEnabled = binaryEnabled;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        if (binaryEnabled && object instanceof TransactionEvent event) {
+            byte[] body = encode(event);
+            if (body != null) {
+                messageProperties.setContentType(BINARY_CONTENT_TYPE);
+                messageProperties.setContentLength(body.length);
+                return new Message(body, messageProperties);
+            }
+        }
+        return jsonConverter.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        if (BINARY_CONTENT_TYPE.equals(message.getMessageProperties().getContentType())) {
+            return decode(message.getBody());
+        }
+        return jsonConverter.fromMessage(message);
+    }
+
+    /**
+     * @return the encoded event, or {@code null} if it cannot be represented in the binary layout
+     */
+    static byte[] encode(TransactionEvent event) {
+        TransactionType type = enumOrNull(TransactionType.class, event.getType());
+        TransactionStatus status = enumOrNull(TransactionStatus.class, event.getStatus());
+        BigDecimal amount = event.getAmount();
+        if (type == null || status == null || amount == null || event.getWalletId() == null
+                || event.getTransactionId() == null || amount.scale() < 0 || amount.scale() > Byte.MAX_VALUE
+                || amount.unscaledValue().bitLength() > 63) {
+            return null;
+        }
+
+        byte[] transactionId = event.getTransactionId().getBytes(StandardCharsets.UTF_8);
+        byte[] description = event.getDescription() == null ? null : event.getDescription().getBytes(StandardCharsets.UTF_8);
+        if (transactionId.length > Short.MAX_VALUE || (description != null && description.length > Short.MAX_VALUE)) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_LENGTH + transactionId.length + (description == null ? 0 : description.length));
+        buffer.put(VERSION);
+        buffer.put((byte) type.ordinal());
+        buffer.put((byte) status.ordinal());
+        buffer.put((byte) amount.scale());
+        buffer.putLong(amount.unscaledValue().longValue());
+        buffer.putLong(event.getWalletId());
+        buffer.putLong(event.getTimestamp() == null ? NULL_TIMESTAMP : toEpochMicros(event.getTimestamp()));
+        buffer.putShort((short) transactionId.length);
+        buffer.put(transactionId);
+        if (description == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) description.length);
+            buffer.put(description);
+        }
+        return buffer.array();
+    }
+
+    static TransactionEvent decode(byte[] body) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new MessageConversionException("Unsupported transaction event version: " + version);
+            }
+            TransactionType type = TYPES[buffer.get()];
+            TransactionStatus status = STATUSES[buffer.get()];
+            int scale = buffer.get();
+            BigDecimal amount = BigDecimal.valueOf(buffer.getLong(), scale);
+            long walletId = buffer.getLong();
+            long micros = buffer.getLong();
+            String transactionId = readString(buffer);
+            String description = readString(buffer);
+
+            return new TransactionEvent(
+                    transactionId,
+                    walletId,
+                    type.name(),
+                    amount,
+                    description,
+                    status.name(),
+                    micros == NULL_TIMESTAMP ? null : fromEpochMicros(micros)
+            );
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new MessageConversionException("Malformed transaction event", e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long toEpochMicros(LocalDateTime timestamp) {
+        Instant instant = timestamp.toInstant(ZoneOffset.UTC);
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static <E extends Enum<E>> E enumOrNull(Class<E> enumType, String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(enumType, name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.javaguy.wallet_settlement.config;
+
+import com.javaguy.wallet_settlement.service.TransactionConsumer;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.MethodRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Registers one single-threaded listener container per transaction partition queue.
+ * Partitions are consumed in parallel while each partition, and therefore each wallet,
+ * is processed strictly in publish order.
+ */
+@Configuration
+public class TransactionPartitionListenerConfig implements RabbitListenerConfigurer {
+
+    private final TransactionConsumer transactionConsumer;
+    private final SimpleRabbitListenerContainerFactory containerFactory;
+
+    @Value("${wallet.events.partitions:4}")
+    private int partitions;
+
+    public TransactionPartitionListenerConfig(
+            TransactionConsumer transactionConsumer,
+            @Qualifier(RabbitMQConfig.BATCH_LISTENER_CONTAINER_FACTORY) SimpleRabbitListenerContainerFactory containerFactory) {
+        this.transactionConsumer = transactionConsumer;
+        this.containerFactory = containerFactory;
+    }
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        Method handler = ReflectionUtils.findMethod(TransactionConsumer.class, "handleTransactionEvents", List.class);
+        DefaultMessageHandlerMethodFactory messageHandlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+        messageHandlerMethodFactory.afterPropertiesSet();
+
+        for (int partition = 0; partition < partitions; partition++) {
+            MethodRabbitListenerEndpoint endpoint = new MethodRabbitListenerEndpoint();
+            endpoint.setId("transaction-partition-" + partition);
+            endpoint.setQueueNames(RabbitMQConfig.partitionQueue(partition));
+            endpoint.setBean(transactionConsumer);
+            endpoint.setMethod(handler);
+            endpoint.setMessageHandlerMethodFactory(messageHandlerMethodFactory);
+            endpoint.setBatchListener(true);
+            // A second consumer on the same queue would break per-wallet ordering
+            endpoint.setConcurrency("1");
+            endpoint.setExclusive(true);
+            registrar.registerEndpoint(endpoint, containerFactory);
+        }
+    }
+}
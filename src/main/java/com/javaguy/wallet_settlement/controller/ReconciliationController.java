@@ -1,6 +1,12 @@
 package com.javaguy.wallet_settlement.controller;
 
+import com.javaguy.wallet_settlement.model.dto.ReconciliationDigestComparison;
 import com.javaguy.wallet_settlement.model.dto.ReconciliationReport;
+import com.javaguy.wallet_settlement.model.enums.ExportFormat;
+import com.javaguy.wallet_settlement.model.enums.ReconciliationStatus;
+import com.javaguy.wallet_settlement.service.BucketDigest;
+import com.javaguy.wallet_settlement.service.IncrementalReconciler;
+import com.javaguy.wallet_settlement.service.ReconciliationExporter;
 import com.javaguy.wallet_settlement.service.ReconciliationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,14 +15,21 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +47,8 @@ public class ReconciliationController {
     private static final Logger log = LoggerFactory.getLogger(ReconciliationController.class);
 
     private final ReconciliationService reconciliationService;
+    private final ReconciliationExporter reconciliationExporter;
+    private final IncrementalReconciler incrementalReconciler;
 
     /**
      * Processes a reconciliation file for a given date.
@@ -48,6 +63,7 @@ public class ReconciliationController {
                responses = {
                    @ApiResponse(responseCode = "200", description = "Reconciliation processed successfully"),
                    @ApiResponse(responseCode = "400", description = "Invalid file type or missing content type"),
+                   @ApiResponse(responseCode = "409", description = "The day was already reconciled by digest comparison"),
                    @ApiResponse(responseCode = "500", description = "Internal server error during processing")
                })
     public ResponseEntity<String> processReconciliation(
@@ -75,62 +91,196 @@ public class ReconciliationController {
             throw new RuntimeException("Failed to process external reconciliation report", e);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            log.warn("Rejected reconciliation report for date {}: {}", date, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         }
         return ResponseEntity.ok("Reconciliation processed successfully for date: " + date);
     }
 
     /**
      * Retrieves a reconciliation report for a specified date.
-     * The report summarizes the reconciliation status of transactions for that day.
+     * The summary is aggregated in the database; the records are returned one keyset page at a time.
      * @param date The date for which to retrieve the reconciliation report, in ISO_DATE format.
+     * @param statuses Statuses to list; defaults to every non-matched status.
+     * @param after The previous page's {@code nextCursor}; omit for the first page.
+     * @param limit Page size.
      * @return A ResponseEntity containing the ReconciliationReport object.
      */
     @GetMapping("/report")
     @Operation(summary = "Get reconciliation report",
-               description = "Retrieves a summary of matched and mismatched transactions for a given date.",
+               description = "Retrieves a summary of matched and mismatched transactions for a given date, with a page of discrepancies.",
                responses = {
                    @ApiResponse(responseCode = "200", description = "Reconciliation report retrieved successfully"),
-                   @ApiResponse(responseCode = "400", description = "Invalid date format"),
+                   @ApiResponse(responseCode = "400", description = "Invalid date format or status"),
                    @ApiResponse(responseCode = "404", description = "No reconciliation data found for the specified date")
                })
     public ResponseEntity<ReconciliationReport> getReconciliationReport(
             @Parameter(description = "The date for which to retrieve the report (YYYY-MM-DD)", required = true)
-            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @Parameter(description = "Statuses to list, e.g. MISSING_INTERNAL,AMOUNT_MISMATCH")
+            @RequestParam(value = "status", required = false) Set<ReconciliationStatus> statuses,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page")
+            @RequestParam(value = "after", required = false) Long after,
+            @Parameter(description = "Maximum number of discrepancies to return")
+            @RequestParam(value = "limit", required = false) Integer limit) {
 
-        ReconciliationReport report = reconciliationService.getReconciliationReport(date);
+        ReconciliationReport report = reconciliationService.getReconciliationReport(date, statuses, after, limit);
         return ResponseEntity.ok(report);
     }
 
     /**
-     * Exports the reconciliation data for a given date as a CSV file.
+     * Exports the reconciliation data for a given date as CSV or JSON Lines, optionally gzipped.
+     * The response is streamed from a database cursor as it is written, so large days are never held in memory.
      * @param date The date for which to export reconciliation data, in ISO_DATE format.
-     * @return A ResponseEntity containing the CSV data as a byte array, with appropriate headers for file download.
+     * @param format The output format, {@code csv} (default) or {@code jsonl}.
+     * @param gzip Whether to gzip the file.
+     * @return A ResponseEntity streaming the export, with appropriate headers for file download.
      */
     @GetMapping("/export")
-    @Operation(summary = "Export reconciliation report to CSV",
-               description = "Downloads the reconciliation report for a specified date as a CSV file.",
+    @Operation(summary = "Export reconciliation report",
+               description = "Downloads the reconciliation records for a specified date as a CSV or JSON Lines file, optionally gzipped.",
                responses = {
-                   @ApiResponse(responseCode = "200", description = "CSV report generated and downloaded successfully"),
-                   @ApiResponse(responseCode = "500", description = "Internal server error during CSV generation")
+                   @ApiResponse(responseCode = "200", description = "Export generated and downloaded successfully"),
+                   @ApiResponse(responseCode = "400", description = "Unsupported export format"),
+                   @ApiResponse(responseCode = "500", description = "Internal server error during export generation")
                })
-    public ResponseEntity<byte[]> exportReconciliation(
+    public ResponseEntity<StreamingResponseBody> exportReconciliation(
             @Parameter(description = "The date for which to export the report (YYYY-MM-DD)", required = true)
-            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @Parameter(description = "Export format: csv or jsonl")
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @Parameter(description = "Gzip the exported file")
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ExportFormat exportFormat;
         try {
-            reconciliationService.exportReconciliationToCsv(date, outputStream);
-        } catch (IOException e) {
-            log.error("Failed to generate CSV for reconciliation report for date {}", date, e);
-            throw new RuntimeException("Failed to generate CSV for reconciliation report", e);
+            exportFormat = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
 
+        StreamingResponseBody body = outputStream -> {
+            try {
+                reconciliationExporter.export(date, exportFormat, gzip, outputStream);
+            } catch (IOException e) {
+                log.error("Failed to stream reconciliation export for date {}", date, e);
+                throw e;
+            }
+        };
+
+        String fileName = "reconciliation_" + date + (exportFormat == ExportFormat.JSONL ? ".jsonl" : ".csv") + (gzip ? ".gz" : "");
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-        headers.setContentDispositionFormData("attachment", "reconciliation_" + date + ".csv");
+        headers.setContentDispositionFormData("attachment", fileName);
 
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(outputStream.toByteArray());
+                .body(body);
+    }
+
+    /**
+     * Returns the bucket digests of the ledger for a given date, the file partners compare against theirs.
+     * @param date The date to digest, in ISO_DATE format.
+     * @param bucketBits Number of customer-hash bits per bucket; defaults to {@code wallet.reconciliation.digest.bucket-bits}.
+     * @return A ResponseEntity with the digest file as CSV.
+     */
+    @GetMapping("/digest")
+    @Operation(summary = "Get ledger bucket digests",
+               description = "Downloads order-independent digests of the day's ledger, one per customer bucket, for exchange with a partner.",
+               responses = {
+                   @ApiResponse(responseCode = "200", description = "Digest file generated successfully"),
+                   @ApiResponse(responseCode = "400", description = "Invalid bucket bits")
+               })
+    public ResponseEntity<String> getLedgerDigest(
+            @Parameter(description = "The date to digest (YYYY-MM-DD)", required = true)
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @Parameter(description = "Customer-hash bits per bucket")
+            @RequestParam(value = "bucketBits", required = false) Integer bucketBits) {
+
+        StringWriter writer = new StringWriter();
+        try {
+            BucketDigest digest = bucketBits == null
+                    ? reconciliationService.computeLedgerDigest(date)
+                    : reconciliationService.computeLedgerDigest(date, bucketBits);
+            digest.write(writer);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write ledger digest", e);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        headers.setContentDispositionFormData("attachment", "digest_" + date + ".csv");
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(writer.toString());
+    }
+
+    /**
+     * Compares a partner's digest file for a given date with the ledger's.
+     * A clean day is reconciled on the spot; otherwise only the rows of the differing buckets need to be exchanged.
+     * Repeating a clean comparison is harmless; a day already reconciled row by row is rejected.
+     * @param date The date of the digest, in ISO_DATE format.
+     * @param file The partner's digest file, as produced by {@code GET /digest}.
+     * @return A ResponseEntity with the buckets that differ.
+     */
+    @PostMapping(value = "/digest/compare", consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
+    @Operation(summary = "Compare a partner digest",
+               description = "Compares a partner's bucket digests with the ledger's. Clean days are recorded as matched; otherwise the differing buckets are listed.",
+               responses = {
+                   @ApiResponse(responseCode = "200", description = "Digests compared successfully"),
+                   @ApiResponse(responseCode = "400", description = "Invalid digest file or date"),
+                   @ApiResponse(responseCode = "409", description = "The day already has row-level reconciliation output")
+               })
+    public ResponseEntity<ReconciliationDigestComparison> compareDigest(
+            @Parameter(description = "The date of the digest (YYYY-MM-DD)", required = true)
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @Parameter(description = "The partner's digest file", required = true)
+            @RequestPart("file") MultipartFile file) {
+
+        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(reconciliationService.compareDigest(date, BucketDigest.read(reader)));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected digest file for date {}: {}", date, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            log.warn("Rejected digest comparison for date {}: {}", date, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read digest file", e);
+        }
+    }
+
+    /**
+     * Accepts a chunk of the partner's feed for continuous reconciliation.
+     * Rows are matched against the pending ledger events at once; only rows still unmatched at their day's cutoff
+     * become discrepancies.
+     * @param file A chunk of the partner report (CSV or JSON), in the same layout as {@code /process}.
+     * @return A ResponseEntity with the number of rows accepted.
+     */
+    @PostMapping(value = "/feed", consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
+    @Operation(summary = "Feed partner rows for continuous reconciliation",
+               description = "Matches a chunk of partner transactions incrementally against pending ledger events.",
+               responses = {
+                   @ApiResponse(responseCode = "200", description = "Chunk accepted"),
+                   @ApiResponse(responseCode = "400", description = "Invalid file or incremental reconciliation disabled")
+               })
+    public ResponseEntity<String> feedPartnerRows(
+            @Parameter(description = "A chunk of the partner report (CSV or JSON). Must be multipart/form-data.", required = true)
+            @RequestPart("file") MultipartFile file) {
+
+        if (!incrementalReconciler.isEnabled()) {
+            return ResponseEntity.badRequest().body("Incremental reconciliation is disabled");
+        }
+        try {
+            long rows = incrementalReconciler.acceptPartnerFeed(file);
+            return ResponseEntity.ok("Accepted " + rows + " partner rows");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read partner feed", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -5,6 +5,7 @@ import com.javaguy.wallet_settlement.model.dto.TopUpRequest;
 import com.javaguy.wallet_settlement.model.dto.TransactionResponse;
 import com.javaguy.wallet_settlement.model.dto.WalletResponse;
 import com.javaguy.wallet_settlement.model.dto.CreateWalletRequest;
+import com.javaguy.wallet_settlement.service.WalletCommandPipeline;
 import com.javaguy.wallet_settlement.service.WalletService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -28,6 +29,9 @@ public class WalletController {
     @Autowired
     private WalletService walletService;
 
+    @Autowired
+    private WalletCommandPipeline walletCommandPipeline;
+
     @PostMapping
     @Operation(summary = "Create a new wallet",
                description = "Creates a new wallet for a given customer ID.",
@@ -61,7 +65,9 @@ public class WalletController {
             @PathVariable String customerId,
             @Parameter(description = "Request body for topping up the wallet, including amount, description, and request ID")
             @Valid @RequestBody TopUpRequest request) {
-        TransactionResponse response = walletService.topUp(customerId, request);
+        TransactionResponse response = walletCommandPipeline.isEnabled()
+                ? walletCommandPipeline.topUp(customerId, request)
+                : walletService.topUp(customerId, request);
         return ResponseEntity.ok(response);
     }
 
@@ -84,7 +90,9 @@ public class WalletController {
             @PathVariable String customerId,
             @Parameter(description = "Request body for consuming from the wallet, including amount, description, and request ID")
             @Valid @RequestBody ConsumeRequest request) {
-        TransactionResponse response = walletService.consume(customerId, request);
+        TransactionResponse response = walletCommandPipeline.isEnabled()
+                ? walletCommandPipeline.consume(customerId, request)
+                : walletService.consume(customerId, request);
         return ResponseEntity.ok(response);
     }
 
@@ -1,6 +1,7 @@
 package com.javaguy.wallet_settlement.exception;
 
 public class InsufficientFundsException extends RuntimeException {
-    public InsufficientFundsException(String format) {
+    public InsufficientFundsException(String message) {
+        super(message);
     }
 }
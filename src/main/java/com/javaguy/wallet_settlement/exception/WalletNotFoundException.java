@@ -1,6 +1,7 @@
 package com.javaguy.wallet_settlement.exception;
 
 public class WalletNotFoundException extends RuntimeException {
-    public WalletNotFoundException(String s) {
+    public WalletNotFoundException(String message) {
+        super(message);
     }
 }
@@ -0,0 +1,14 @@
+package com.javaguy.wallet_settlement.model.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of a wallet row as it stands right after an atomic balance update.
+ */
+public interface BalanceMutation {
+    Long getId();
+
+    BigDecimal getBalance();
+
+    Long getVersion();
+}
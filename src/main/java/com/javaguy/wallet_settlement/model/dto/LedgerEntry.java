@@ -0,0 +1,26 @@
+package com.javaguy.wallet_settlement.model.dto;
+
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a ledger row with its wallet's customer id, used by reconciliation.
+ * Built by a JPQL constructor expression, so it is never a managed entity.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LedgerEntry {
+    private String transactionId;
+    private String customerId;
+    private BigDecimal amount;
+    private TransactionType type;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,11 @@
+package com.javaguy.wallet_settlement.model.dto;
+
+/**
+ * Projection returned by the insert-on-conflict ledger write: the id of the row that owns the
+ * requestId and whether this statement was the one that inserted it.
+ */
+public interface LedgerInsertResult {
+    Long getId();
+
+    Boolean getInserted();
+}
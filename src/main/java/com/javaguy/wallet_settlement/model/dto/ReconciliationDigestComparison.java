@@ -0,0 +1,23 @@
+package com.javaguy.wallet_settlement.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReconciliationDigestComparison {
+    private LocalDate date;
+    private int bucketBits;
+    private long ledgerRows;
+    private long partnerRows;
+    // Buckets whose rows still need row-level reconciliation; empty when the day is clean
+    private List<Integer> differingBuckets;
+    private boolean clean;
+}
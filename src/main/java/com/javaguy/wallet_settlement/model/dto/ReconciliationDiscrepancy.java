@@ -0,0 +1,31 @@
+package com.javaguy.wallet_settlement.model.dto;
+
+import com.javaguy.wallet_settlement.model.enums.ReconciliationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A reconciliation record as returned by the report.
+ * {@code id} is the keyset cursor: pass the last one seen as {@code after} to fetch the next page.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReconciliationDiscrepancy {
+    private Long id;
+    private String reconciliationId;
+    private LocalDate reconciliationDate;
+    private String internalTransactionId;
+    private String externalTransactionId;
+    private BigDecimal internalAmount;
+    private BigDecimal externalAmount;
+    private BigDecimal discrepancyAmount;
+    private String discrepancyReason;
+    private ReconciliationStatus status;
+}
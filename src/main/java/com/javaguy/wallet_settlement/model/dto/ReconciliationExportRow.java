@@ -0,0 +1,28 @@
+package com.javaguy.wallet_settlement.model.dto;
+
+import com.javaguy.wallet_settlement.model.enums.ReconciliationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One exported reconciliation record.
+ * Built by a JPQL constructor expression, so streaming an export never fills the persistence context.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReconciliationExportRow {
+    private String reconciliationId;
+    private String internalTransactionId;
+    private String externalTransactionId;
+    private BigDecimal internalAmount;
+    private BigDecimal externalAmount;
+    private ReconciliationStatus status;
+    private BigDecimal discrepancyAmount;
+    private String discrepancyReason;
+}
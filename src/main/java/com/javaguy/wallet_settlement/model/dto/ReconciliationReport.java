@@ -8,7 +8,6 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 import java.util.List;
-import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
 
 @Data
 @Builder
@@ -17,5 +16,7 @@ import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
 public class ReconciliationReport {
     private LocalDate date;
     private ReconciliationSummary summary;
-    private List<ReconciliationRecord> discrepancies;
+    private List<ReconciliationDiscrepancy> discrepancies;
+    // Id to pass as the next page's cursor, or null on the last page
+    private Long nextCursor;
 }
@@ -0,0 +1,23 @@
+package com.javaguy.wallet_settlement.model.dto;
+
+import com.javaguy.wallet_settlement.model.enums.ReconciliationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of the per-status GROUP BY over a day's reconciliation records.
+ * {@code amount} sums the internal amount, or the external one where there is no internal side;
+ * {@code internalAmount} sums the internal amounts only. Either sum is null when there was nothing to add.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReconciliationStatusTotals {
+    private ReconciliationStatus status;
+    private Long count;
+    private BigDecimal amount;
+    private BigDecimal internalAmount;
+}
@@ -0,0 +1,32 @@
+package com.javaguy.wallet_settlement.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A day tracked by continuous reconciliation. Its row is locked by every change to the day's pending rows,
+ * so instances take turns; once {@code finalizedAt} is set, new rows of the day are reported at once.
+ */
+@Entity
+@Table(name = "reconciliation_incremental_days")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncrementalReconciliationDay {
+    @Id
+    @Column(name = "reconciliation_date")
+    private LocalDate reconciliationDate;
+
+    @Column(name = "opened_at", nullable = false)
+    private LocalDateTime openedAt;
+
+    @Column(name = "finalized_at")
+    private LocalDateTime finalizedAt;
+}
@@ -0,0 +1,67 @@
+package com.javaguy.wallet_settlement.model.entity;
+
+import com.javaguy.wallet_settlement.model.dto.TransactionEvent;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "transaction_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    // Drawn from transaction_outbox_seq by the INSERT itself, not from a pre-allocated block; see OutboxRelay
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "transaction_id", nullable = false)
+    private String transactionId;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(name = "type", nullable = false)
+    private String type;
+
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "description")
+    private String description;
+
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    @Column(name = "event_timestamp")
+    private LocalDateTime eventTimestamp;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public OutboxEvent(TransactionEvent event) {
+        this.transactionId = event.getTransactionId();
+        this.walletId = event.getWalletId();
+        this.type = event.getType();
+        this.amount = event.getAmount();
+        this.description = event.getDescription();
+        this.status = event.getStatus();
+        this.eventTimestamp = event.getTimestamp();
+    }
+
+    public TransactionEvent toEvent() {
+        return new TransactionEvent(transactionId, walletId, type, amount, description, status, eventTimestamp);
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
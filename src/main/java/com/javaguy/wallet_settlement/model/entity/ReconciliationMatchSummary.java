@@ -0,0 +1,40 @@
+package com.javaguy.wallet_settlement.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Running count and internal-amount total of the matched pairs of a day, kept in place of
+ * one MATCHED reconciliation record per pair.
+ */
+@Entity
+@Table(name = "reconciliation_match_summary")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationMatchSummary {
+    @Id
+    @Column(name = "reconciliation_date")
+    private LocalDate reconciliationDate;
+
+    @Column(name = "matched_count", nullable = false)
+    private Long matchedCount;
+
+    @Column(name = "matched_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal matchedAmount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Set when the totals were recorded by a clean digest comparison rather than by row-level runs
+    @Column(name = "digest_reconciled_at")
+    private LocalDateTime digestReconciledAt;
+}
@@ -0,0 +1,61 @@
+package com.javaguy.wallet_settlement.model.entity;
+
+import com.javaguy.wallet_settlement.model.enums.ReconciliationSide;
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A ledger event or partner row seen by continuous reconciliation. Unsettled rows are still waiting for their
+ * counterpart; settled rows were matched or reported and only serve to recognise redeliveries.
+ */
+@Entity
+@Table(name = "reconciliation_pending_rows")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationPendingRow {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reconciliation_pending_rows_seq")
+    @SequenceGenerator(name = "reconciliation_pending_rows_seq", sequenceName = "reconciliation_pending_rows_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "reconciliation_date", nullable = false)
+    private LocalDate reconciliationDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "side", nullable = false)
+    private ReconciliationSide side;
+
+    @Column(name = "transaction_id")
+    private String transactionId;
+
+    @Column(name = "customer_id", nullable = false)
+    private String customerId;
+
+    // Text keeps the scale, which is part of the match key
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "amount", nullable = false, length = 64)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private TransactionType type;
+
+    // Ledger timestamp of internal rows
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "settled", nullable = false)
+    private boolean settled;
+}
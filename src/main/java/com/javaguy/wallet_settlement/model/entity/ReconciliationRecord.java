@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class ReconciliationRecord {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reconciliation_records_seq")
+    @SequenceGenerator(name = "reconciliation_records_seq", sequenceName = "reconciliation_records_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "reconciliation_date", nullable = false)
@@ -20,10 +20,11 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_ledger_seq")
+    @SequenceGenerator(name = "transaction_ledger_seq", sequenceName = "transaction_ledger_seq", allocationSize = 50)
     private Long id;
 
-    @Column(name = "transaction_id")
+    @Column(name = "transaction_id", unique = true)
     private String transactionId;
 
     @Column(name = "request_id", unique = true)
@@ -34,7 +35,7 @@ public class Transaction {
     private Wallet wallet;
 
     @Enumerated(EnumType.STRING)
-    @Column(name = "transaction_type", nullable = false)
+    @Column(name = "type", nullable = false)
     private TransactionType type;
 
     @Column(name = "amount", nullable = false, precision = 19, scale = 2)
@@ -0,0 +1,5 @@
+package com.javaguy.wallet_settlement.model.enums;
+
+public enum ExportFormat {
+    CSV, JSONL
+}
@@ -0,0 +1,6 @@
+package com.javaguy.wallet_settlement.model.enums;
+
+public enum ReconciliationSide {
+    INTERNAL,
+    EXTERNAL
+}
@@ -0,0 +1,31 @@
+package com.javaguy.wallet_settlement.repository;
+
+import com.javaguy.wallet_settlement.model.entity.IncrementalReconciliationDay;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface IncrementalReconciliationDayRepository extends JpaRepository<IncrementalReconciliationDay, LocalDate> {
+
+    // Fails with a duplicate key if another instance opened the day first; never touches an existing row
+    @Modifying
+    @Query(value = "INSERT INTO reconciliation_incremental_days (reconciliation_date, opened_at) VALUES (:date, CURRENT_TIMESTAMP)",
+            nativeQuery = true)
+    int insertDay(@Param("date") LocalDate reconciliationDate);
+
+    // Held until the transaction ends; serializes matching and finalization of the day across instances
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM IncrementalReconciliationDay d WHERE d.reconciliationDate = :date")
+    Optional<IncrementalReconciliationDay> lockDay(@Param("date") LocalDate reconciliationDate);
+
+    @Query("SELECT d.reconciliationDate FROM IncrementalReconciliationDay d " +
+            "WHERE d.finalizedAt IS NULL AND d.reconciliationDate <= :through ORDER BY d.reconciliationDate")
+    List<LocalDate> findOpenDaysThrough(@Param("through") LocalDate through);
+}
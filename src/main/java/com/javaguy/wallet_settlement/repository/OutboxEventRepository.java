@@ -0,0 +1,19 @@
+package com.javaguy.wallet_settlement.repository;
+
+import com.javaguy.wallet_settlement.model.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Transaction-scoped, so it is released when the batch commits or rolls back
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryRelayLock(@Param("key") long key);
+
+    // Oldest pending events; id order is commit order per wallet. Only called by the holder of the relay lock
+    @Query(value = "SELECT * FROM transaction_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+}
@@ -0,0 +1,43 @@
+package com.javaguy.wallet_settlement.repository;
+
+import com.javaguy.wallet_settlement.model.entity.ReconciliationMatchSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface ReconciliationMatchSummaryRepository extends JpaRepository<ReconciliationMatchSummary, LocalDate> {
+
+    /**
+     * True when the day was reconciled by a clean digest comparison; row-level runs must not add to its totals.
+     */
+    boolean existsByReconciliationDateAndDigestReconciledAtIsNotNull(LocalDate reconciliationDate);
+
+    /**
+     * Adds to the day's totals; like reconciliation records, repeated runs for a day accumulate.
+     * Update-then-insert keeps it portable across PostgreSQL and H2. Must be called inside a transaction.
+     */
+    default void addMatches(LocalDate reconciliationDate, long count, BigDecimal amount) {
+        if (incrementMatches(reconciliationDate, count, amount) == 0) {
+            insertMatches(reconciliationDate, count, amount);
+        }
+    }
+
+    @Modifying
+    @Query("UPDATE ReconciliationMatchSummary s SET s.matchedCount = s.matchedCount + :count, " +
+            "s.matchedAmount = s.matchedAmount + :amount, s.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE s.reconciliationDate = :date")
+    int incrementMatches(@Param("date") LocalDate reconciliationDate,
+                         @Param("count") long count,
+                         @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = "INSERT INTO reconciliation_match_summary (reconciliation_date, matched_count, matched_amount, updated_at) " +
+            "VALUES (:date, :count, :amount, CURRENT_TIMESTAMP)", nativeQuery = true)
+    int insertMatches(@Param("date") LocalDate reconciliationDate,
+                      @Param("count") long count,
+                      @Param("amount") BigDecimal amount);
+}
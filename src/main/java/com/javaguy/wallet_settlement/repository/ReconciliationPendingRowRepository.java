@@ -0,0 +1,42 @@
+package com.javaguy.wallet_settlement.repository;
+
+import com.javaguy.wallet_settlement.model.entity.ReconciliationPendingRow;
+import com.javaguy.wallet_settlement.model.enums.ReconciliationSide;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface ReconciliationPendingRowRepository extends JpaRepository<ReconciliationPendingRow, Long> {
+
+    // Candidates for the given customers, oldest first so duplicates pair off in arrival order
+    @Query("SELECT r FROM ReconciliationPendingRow r WHERE r.reconciliationDate = :date AND r.side = :side " +
+            "AND r.settled = false AND r.customerId IN :customerIds ORDER BY r.id")
+    List<ReconciliationPendingRow> findUnsettled(
+            @Param("date") LocalDate reconciliationDate,
+            @Param("side") ReconciliationSide side,
+            @Param("customerIds") Collection<String> customerIds
+    );
+
+    @Query("SELECT r.transactionId FROM ReconciliationPendingRow r WHERE r.reconciliationDate = :date AND r.side = :side " +
+            "AND r.transactionId IN :transactionIds")
+    List<String> findKnownTransactionIds(
+            @Param("date") LocalDate reconciliationDate,
+            @Param("side") ReconciliationSide side,
+            @Param("transactionIds") Collection<String> transactionIds
+    );
+
+    @Query("SELECT r FROM ReconciliationPendingRow r WHERE r.reconciliationDate = :date AND r.settled = false ORDER BY r.id")
+    List<ReconciliationPendingRow> findUnsettledByDate(@Param("date") LocalDate reconciliationDate);
+
+    long countByReconciliationDateAndSideAndSettledFalse(LocalDate reconciliationDate, ReconciliationSide side);
+
+    @Modifying
+    @Query("DELETE FROM ReconciliationPendingRow r WHERE r.reconciliationDate < :before AND r.reconciliationDate IN " +
+            "(SELECT d.reconciliationDate FROM IncrementalReconciliationDay d WHERE d.finalizedAt IS NOT NULL)")
+    int deleteFinalizedBefore(@Param("before") LocalDate before);
+}
@@ -1,21 +1,34 @@
 package com.javaguy.wallet_settlement.repository;
 
 
+import com.javaguy.wallet_settlement.model.dto.ReconciliationDiscrepancy;
+import com.javaguy.wallet_settlement.model.dto.ReconciliationExportRow;
+import com.javaguy.wallet_settlement.model.dto.ReconciliationStatusTotals;
 import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
 import com.javaguy.wallet_settlement.model.enums.ReconciliationStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReconciliationRecordRepository extends JpaRepository<ReconciliationRecord, Long> {
 
+    String EXPORT_FETCH_SIZE = "1000";
+
     List<ReconciliationRecord> findByReconciliationDate(LocalDate reconciliationDate);
 
+    boolean existsByReconciliationDate(LocalDate reconciliationDate);
+
     @Query("SELECT r FROM ReconciliationRecord r WHERE r.reconciliationDate = :date AND r.status = :status")
     List<ReconciliationRecord> findByReconciliationDateAndStatus(
             @Param("date") LocalDate reconciliationDate,
@@ -28,5 +41,58 @@ public interface ReconciliationRecordRepository extends JpaRepository<Reconcilia
             @Param("status") ReconciliationStatus status
     );
 
+    @Query("SELECT new com.javaguy.wallet_settlement.model.dto.ReconciliationStatusTotals(r.status, COUNT(r), " +
+            "SUM(COALESCE(r.internalAmount, r.externalAmount)), SUM(r.internalAmount)) " +
+            "FROM ReconciliationRecord r WHERE r.reconciliationDate = :date GROUP BY r.status")
+    List<ReconciliationStatusTotals> sumByStatus(@Param("date") LocalDate reconciliationDate);
+
+    /**
+     * One keyset page of a day's non-matched records with the given statuses, in id order, starting after
+     * {@code afterId}. The literal MATCHED exclusion lets PostgreSQL serve it from the partial
+     * (reconciliation_date, id) index whatever statuses are bound.
+     */
+    @Query("SELECT new com.javaguy.wallet_settlement.model.dto.ReconciliationDiscrepancy(r.id, r.reconciliationId, " +
+            "r.reconciliationDate, r.internalTransactionId, r.externalTransactionId, r.internalAmount, r.externalAmount, " +
+            "r.discrepancyAmount, r.discrepancyReason, r.status) " +
+            "FROM ReconciliationRecord r WHERE r.reconciliationDate = :date " +
+            "AND r.status <> com.javaguy.wallet_settlement.model.enums.ReconciliationStatus.MATCHED " +
+            "AND r.status IN :statuses AND r.id > :afterId " +
+            "ORDER BY r.id")
+    List<ReconciliationDiscrepancy> findDiscrepancyPage(
+            @Param("date") LocalDate reconciliationDate,
+            @Param("statuses") Collection<ReconciliationStatus> statuses,
+            @Param("afterId") long afterId,
+            Limit limit
+    );
+
+    /**
+     * Same page as {@link #findDiscrepancyPage} for status sets that include MATCHED.
+     */
+    @Query("SELECT new com.javaguy.wallet_settlement.model.dto.ReconciliationDiscrepancy(r.id, r.reconciliationId, " +
+            "r.reconciliationDate, r.internalTransactionId, r.externalTransactionId, r.internalAmount, r.externalAmount, " +
+            "r.discrepancyAmount, r.discrepancyReason, r.status) " +
+            "FROM ReconciliationRecord r WHERE r.reconciliationDate = :date AND r.status IN :statuses AND r.id > :afterId " +
+            "ORDER BY r.id")
+    List<ReconciliationDiscrepancy> findRecordPage(
+            @Param("date") LocalDate reconciliationDate,
+            @Param("statuses") Collection<ReconciliationStatus> statuses,
+            @Param("afterId") long afterId,
+            Limit limit
+    );
+
+    /**
+     * Forward-only cursor over a day's records; PostgreSQL only honours the fetch size inside a
+     * transaction, so callers must hold one open and close the stream.
+     */
+    @Query("SELECT new com.javaguy.wallet_settlement.model.dto.ReconciliationExportRow(r.reconciliationId, " +
+            "r.internalTransactionId, r.externalTransactionId, r.internalAmount, r.externalAmount, r.status, " +
+            "r.discrepancyAmount, r.discrepancyReason) " +
+            "FROM ReconciliationRecord r WHERE r.reconciliationDate = :date")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ReconciliationExportRow> streamExportRowsByDate(@Param("date") LocalDate reconciliationDate);
+
     void deleteByReconciliationDate(LocalDate reconciliationDate);
 }
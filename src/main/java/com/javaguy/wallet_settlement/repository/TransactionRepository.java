@@ -1,14 +1,23 @@
 package com.javaguy.wallet_settlement.repository;
 
+import com.javaguy.wallet_settlement.model.dto.LedgerEntry;
+import com.javaguy.wallet_settlement.model.dto.LedgerInsertResult;
 import com.javaguy.wallet_settlement.model.entity.Transaction;
 import com.javaguy.wallet_settlement.model.entity.Wallet;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
@@ -16,18 +25,74 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     List<Transaction> findByWalletOrderByCreatedAtDesc(Wallet wallet);
 
-    @Query("SELECT t FROM Transaction t WHERE DATE(t.createdAt) = :date")
-    List<Transaction> findByCreatedAtDate(@Param("date") LocalDate date);
+    // Day filters are half-open created_at ranges so they can use the created_at index and prune partitions
+    @Query("SELECT t FROM Transaction t WHERE t.createdAt >= :from AND t.createdAt < :to")
+    List<Transaction> findByCreatedAtRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    default List<Transaction> findByCreatedAtDate(LocalDate date) {
+        return findByCreatedAtRange(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
 
     @Query("SELECT t FROM Transaction t WHERE t.transactionId IN :transactionIds")
     List<Transaction> findByTransactionIdIn(@Param("transactionIds") List<String> transactionIds);
 
-    @Query("SELECT t FROM Transaction t WHERE DATE(t.createdAt) = :date AND t.status = 'COMPLETED'")
-    List<Transaction> findCompletedTransactionsByDate(@Param("date") LocalDate date);
+    @Query("SELECT t FROM Transaction t WHERE t.createdAt >= :from AND t.createdAt < :to AND t.status = 'COMPLETED'")
+    List<Transaction> findCompletedTransactionsByRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    default List<Transaction> findCompletedTransactionsByDate(LocalDate date) {
+        return findCompletedTransactionsByRange(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    // Reconciliation read path: one query with the customer id joined in, no entity hydration
+    @Query("SELECT new com.javaguy.wallet_settlement.model.dto.LedgerEntry(t.transactionId, w.customerId, t.amount, t.type, t.createdAt) " +
+            "FROM Transaction t JOIN t.wallet w WHERE t.createdAt >= :from AND t.createdAt < :to AND t.status = 'COMPLETED' ORDER BY t.id")
+    List<LedgerEntry> findCompletedLedgerEntriesByRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    default List<LedgerEntry> findCompletedLedgerEntriesByDate(LocalDate date) {
+        return findCompletedLedgerEntriesByRange(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    // Same rows as findCompletedLedgerEntriesByRange through a forward-only cursor; needs an open transaction
+    @Query("SELECT new com.javaguy.wallet_settlement.model.dto.LedgerEntry(t.transactionId, w.customerId, t.amount, t.type, t.createdAt) " +
+            "FROM Transaction t JOIN t.wallet w WHERE t.createdAt >= :from AND t.createdAt < :to AND t.status = 'COMPLETED' ORDER BY t.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<LedgerEntry> streamCompletedLedgerEntriesByRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    default Stream<LedgerEntry> streamCompletedLedgerEntriesByDate(LocalDate date) {
+        return streamCompletedLedgerEntriesByRange(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
 
     boolean existsByTransactionId(String transactionId);
 
     Optional<Transaction> findByRequestId(String requestId);
 
     boolean existsByRequestId(String requestId);
-}
\ No newline at end of file
+
+    // Claims the requestId in transaction_request and inserts the ledger row only if the claim succeeded,
+    // reporting which ledger row owns the requestId. Empty only when a concurrent claim of the same
+    // requestId committed after this statement's snapshot.
+    @Transactional
+    @Query(value = "WITH claimed AS (" +
+            "INSERT INTO transaction_request (request_id, ledger_id, created_at) " +
+            "VALUES (:requestId, nextval('transaction_ledger_seq'), :createdAt) " +
+            "ON CONFLICT (request_id) DO NOTHING RETURNING ledger_id, created_at), " +
+            "inserted AS (" +
+            "INSERT INTO transaction_ledger (id, transaction_id, request_id, wallet_id, type, amount, description, status, created_at) " +
+            "SELECT ledger_id, :transactionId, :requestId, :walletId, :type, :amount, :description, :status, created_at FROM claimed " +
+            "RETURNING id) " +
+            "SELECT id, TRUE AS inserted FROM inserted " +
+            "UNION ALL " +
+            "SELECT ledger_id AS id, FALSE AS inserted FROM transaction_request WHERE request_id = :requestId " +
+            "LIMIT 1", nativeQuery = true)
+    Optional<LedgerInsertResult> insertIfAbsent(@Param("transactionId") String transactionId,
+                                                @Param("requestId") String requestId,
+                                                @Param("walletId") Long walletId,
+                                                @Param("type") String type,
+                                                @Param("amount") BigDecimal amount,
+                                                @Param("description") String description,
+                                                @Param("status") String status,
+                                                @Param("createdAt") LocalDateTime createdAt);
+}
@@ -1,12 +1,15 @@
 package com.javaguy.wallet_settlement.repository;
 
+import com.javaguy.wallet_settlement.model.dto.BalanceMutation;
 import com.javaguy.wallet_settlement.model.entity.Wallet;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
 public interface WalletRepository extends JpaRepository <Wallet, Long>{
@@ -17,4 +20,16 @@ public interface WalletRepository extends JpaRepository <Wallet, Long>{
     Optional<Wallet> findByCustomerIdWithLock(@Param("customerId") String customerId);
 
     boolean existsByCustomerId(String customerId);
+
+    // Single-statement credit; empty when the wallet does not exist
+    @Transactional
+    @Query(value = "UPDATE wallet SET balance = balance + :amount, version = version + 1, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE customer_id = :customerId RETURNING id, balance, version", nativeQuery = true)
+    Optional<BalanceMutation> credit(@Param("customerId") String customerId, @Param("amount") BigDecimal amount);
+
+    // Single-statement debit guarded by the balance; empty when the wallet is missing or underfunded
+    @Transactional
+    @Query(value = "UPDATE wallet SET balance = balance - :amount, version = version + 1, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE customer_id = :customerId AND balance >= :amount RETURNING id, balance, version", nativeQuery = true)
+    Optional<BalanceMutation> debit(@Param("customerId") String customerId, @Param("amount") BigDecimal amount);
 }
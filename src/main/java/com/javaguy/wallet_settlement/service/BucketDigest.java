@@ -0,0 +1,188 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.BitSet;
+
+/**
+ * Order-independent digests of one side of a reconciliation day, one per bucket of customers.
+ * A row is hashed over its match key and added to the bucket picked by the top {@code bucketBits} bits of
+ * its customer hash. Each bucket keeps a row count and the sum of its row hashes modulo 2^64, so equal
+ * buckets hold the same multiset of keys with overwhelming probability, whatever the order rows arrived in.
+ * All rows of a customer land in one bucket, as they must for a bucket to be matched on its own.
+ * <p>
+ * Both hashes are part of the exchange format and must be reproducible by a partner in any language:
+ * <ul>
+ *   <li>customer hash: SHA-256 of the UTF-8 customer id;</li>
+ *   <li>row hash: SHA-256 of the UTF-8 string {@code customer|amount|TYPE|yyyy-MM-dd}, the amount in plain
+ *       notation with its scale ({@code 100.00}, never {@code 1E+2}), a missing field as an empty string;</li>
+ * </ul>
+ * each read as the unsigned 64-bit big-endian integer in the first 8 bytes of the digest.
+ * <p>
+ * Digests are exchanged with partners as a small CSV file: a {@code date} and a {@code bucket_bits} line,
+ * then {@code bucket,count,digest} for every non-empty bucket, the digest in lower-case hex.
+ */
+public final class BucketDigest {
+
+    public static final int MAX_BUCKET_BITS = 20;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+    private static final String BUCKET_HEADER = "bucket,count,digest";
+
+    private final LocalDate date;
+    private final int bucketBits;
+    private final long[] sums;
+    private final long[] counts;
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    public BucketDigest(LocalDate date, int bucketBits) {
+        if (bucketBits < 0 || bucketBits > MAX_BUCKET_BITS) {
+            throw new IllegalArgumentException("bucket_bits must be between 0 and " + MAX_BUCKET_BITS + ": " + bucketBits);
+        }
+        this.date = date;
+        this.bucketBits = bucketBits;
+        this.sums = new long[1 << bucketBits];
+        this.counts = new long[1 << bucketBits];
+    }
+
+    public void add(String customerId, BigDecimal amount, TransactionType type, LocalDate date) {
+        add(bucketOf(customerHash(customerId)), rowHash(customerId, amount, type, date), amount);
+    }
+
+    // For callers that keep each row's bucket and hash
+    void add(int bucket, long rowHash, BigDecimal amount) {
+        sums[bucket] += rowHash;
+        counts[bucket]++;
+        if (amount != null) {
+            this.amount = this.amount.add(amount);
+        }
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getBucketBits() {
+        return bucketBits;
+    }
+
+    public int bucketCount() {
+        return sums.length;
+    }
+
+    public long rowCount() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    // Sum of the amounts added; not part of the exchanged file
+    public BigDecimal amount() {
+        return amount;
+    }
+
+    /**
+     * Buckets whose count or digest differs from the other side's; only their rows need row-level matching.
+     */
+    public BitSet differingBuckets(BucketDigest other) {
+        if (other.bucketBits != bucketBits) {
+            throw new IllegalArgumentException("Digest bucket_bits " + other.bucketBits + " does not match " + bucketBits);
+        }
+        BitSet differing = new BitSet(sums.length);
+        for (int bucket = 0; bucket < sums.length; bucket++) {
+            if (sums[bucket] != other.sums[bucket] || counts[bucket] != other.counts[bucket]) {
+                differing.set(bucket);
+            }
+        }
+        return differing;
+    }
+
+    public void write(Writer writer) throws IOException {
+        writer.write("date," + date + "\n");
+        writer.write("bucket_bits," + bucketBits + "\n");
+        writer.write(BUCKET_HEADER + "\n");
+        for (int bucket = 0; bucket < sums.length; bucket++) {
+            if (counts[bucket] > 0) {
+                writer.write(bucket + "," + counts[bucket] + "," + Long.toHexString(sums[bucket]) + "\n");
+            }
+        }
+        writer.flush();
+    }
+
+    public static BucketDigest read(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        try {
+            LocalDate date = LocalDate.parse(headerValue(lines.readLine(), "date"));
+            BucketDigest digest = new BucketDigest(date, Integer.parseInt(headerValue(lines.readLine(), "bucket_bits")));
+            if (!BUCKET_HEADER.equals(lines.readLine())) {
+                throw new IllegalArgumentException("Digest file is missing the '" + BUCKET_HEADER + "' header");
+            }
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                if (fields.length != 3) {
+                    throw new IllegalArgumentException("Invalid digest line: " + line);
+                }
+                int bucket = Integer.parseInt(fields[0]);
+                if (bucket < 0 || bucket >= digest.sums.length) {
+                    throw new IllegalArgumentException("Digest bucket out of range: " + line);
+                }
+                digest.counts[bucket] = Long.parseLong(fields[1]);
+                digest.sums[bucket] = Long.parseUnsignedLong(fields[2], 16);
+            }
+            return digest;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid digest file: " + e.getMessage(), e);
+        }
+    }
+
+    int bucketOf(long customerHash) {
+        return bucketBits == 0 ? 0 : (int) (customerHash >>> (Long.SIZE - bucketBits));
+    }
+
+    static long customerHash(String customerId) {
+        return sha256Prefix(customerId == null ? "" : customerId);
+    }
+
+    // Scale-sensitive like the exact match key, so 100.0 and 100.00 hash differently
+    static long rowHash(String customerId, BigDecimal amount, TransactionType type, LocalDate date) {
+        return sha256Prefix((customerId == null ? "" : customerId)
+                + '|' + (amount == null ? "" : amount.toPlainString())
+                + '|' + (type == null ? "" : type.name())
+                + '|' + (date == null ? "" : date.toString()));
+    }
+
+    private static long sha256Prefix(String value) {
+        byte[] hash = SHA_256.get().digest(value.getBytes(StandardCharsets.UTF_8));
+        return ByteBuffer.wrap(hash, 0, Long.BYTES).getLong();
+    }
+
+    private static String headerValue(String line, String name) {
+        if (line == null || !line.startsWith(name + ",")) {
+            throw new IllegalArgumentException("Digest file is missing the '" + name + "' line");
+        }
+        return line.substring(name.length() + 1).trim();
+    }
+}
@@ -0,0 +1,47 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.javaguy.wallet_settlement.service.ReconciliationService.ExternalTransaction;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Reads a JSON external report (a top-level array of transactions) token by token,
+ * binding and emitting one element at a time so the array is never materialized.
+ * Uses the application's ObjectMapper, which already has the Java time module registered.
+ */
+@Component
+public class ExternalReportJsonReader {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader transactionReader;
+
+    public ExternalReportJsonReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.transactionReader = objectMapper.readerFor(ExternalTransaction.class);
+    }
+
+    public void read(InputStream inputStream, Consumer<ExternalTransaction> sink) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of transactions");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                sink.accept(transactionReader.readValue(parser));
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new IOException("Expected a transaction object but found " + token);
+            }
+        } catch (JsonProcessingException e) {
+            throw new IOException("Failed to parse JSON file", e);
+        }
+    }
+}
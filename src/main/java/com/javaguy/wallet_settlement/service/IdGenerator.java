@@ -0,0 +1,9 @@
+package com.javaguy.wallet_settlement.service;
+
+/**
+ * Source of business identifiers such as transaction and reconciliation ids.
+ * Implementations must be thread-safe; callers add their own prefix.
+ */
+public interface IdGenerator {
+    String nextId();
+}
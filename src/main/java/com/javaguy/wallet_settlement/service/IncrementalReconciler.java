@@ -0,0 +1,425 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.dto.LedgerEntry;
+import com.javaguy.wallet_settlement.model.dto.TransactionEvent;
+import com.javaguy.wallet_settlement.model.entity.IncrementalReconciliationDay;
+import com.javaguy.wallet_settlement.model.entity.ReconciliationPendingRow;
+import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
+import com.javaguy.wallet_settlement.model.entity.Wallet;
+import com.javaguy.wallet_settlement.model.enums.ReconciliationSide;
+import com.javaguy.wallet_settlement.model.enums.TransactionStatus;
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import com.javaguy.wallet_settlement.repository.IncrementalReconciliationDayRepository;
+import com.javaguy.wallet_settlement.repository.ReconciliationMatchSummaryRepository;
+import com.javaguy.wallet_settlement.repository.ReconciliationPendingRowRepository;
+import com.javaguy.wallet_settlement.repository.ReconciliationRecordRepository;
+import com.javaguy.wallet_settlement.repository.TransactionRepository;
+import com.javaguy.wallet_settlement.repository.WalletRepository;
+import com.javaguy.wallet_settlement.service.ReconciliationService.ExternalTransaction;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Continuous reconciliation mode. Completed ledger events from {@link TransactionConsumer} and partner feed chunks
+ * are matched as they arrive against the rows of their day still waiting for a counterpart, one-to-one on the
+ * composite match key in arrival order; each pair is written as soon as it forms. When a day's cutoff (the end of
+ * the day plus {@code window-minutes}) passes, the day's ledger is read once more so that entries whose event was
+ * lost or is still queued take part too, and the rows still unmatched become MISSING_* records.
+ * <p>
+ * Pending rows are stored in reconciliation_pending_rows in the same transaction as the records they produce, so a
+ * restart loses nothing and any number of instances can run side by side: every change to a day locks its row in
+ * reconciliation_incremental_days. Redelivered events and partner rows are recognised by transaction id and ignored.
+ * Rows that arrive after their day was finalized are reported as discrepancies at once, as are rows of a day that
+ * passed its cutoff untracked after an upload or batch run had already reconciled it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IncrementalReconciler {
+
+    // Keeps IN lists well below the bind parameter limits of PostgreSQL and H2
+    private static final int IN_LIST_SIZE = 1000;
+    // transactions.amount is numeric(19, 2); events carry the amount as it was requested
+    private static final int LEDGER_SCALE = 2;
+
+    private final WalletRepository walletRepository;
+    private final TransactionRepository transactionRepository;
+    private final ReconciliationRecordRepository reconciliationRecordRepository;
+    private final ReconciliationMatchSummaryRepository reconciliationMatchSummaryRepository;
+    private final IncrementalReconciliationDayRepository incrementalReconciliationDayRepository;
+    private final ReconciliationPendingRowRepository reconciliationPendingRowRepository;
+    private final ReconciliationService reconciliationService;
+    private final ReconciliationRecordWriter reconciliationRecordWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final MappedCsvReportReader mappedCsvReportReader;
+    private final ExternalReportJsonReader externalReportJsonReader;
+
+    @Value("${wallet.reconciliation.incremental.enabled:false}")
+    private boolean enabled;
+
+    @Value("${wallet.reconciliation.incremental.window-minutes:120}")
+    private long windowMinutes;
+
+    @Value("${wallet.reconciliation.incremental.retention-days:7}")
+    private int retentionDays;
+
+    // Customer ids never change, so a wallet is looked up once
+    private final Map<Long, String> customerIds = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Feeds a batch of ledger events; events that are not completed, or whose wallet is unknown, are skipped
+     * (their ledger entries are picked up when the day is finalized). Throws if the batch could not be stored,
+     * so that it is redelivered.
+     */
+    public void onTransactionEvents(List<TransactionEvent> events) {
+        if (!enabled) {
+            return;
+        }
+        resolveCustomerIds(events);
+        Map<LocalDate, List<ReconciliationPendingRow>> byDate = new TreeMap<>();
+        for (TransactionEvent event : events) {
+            String customerId = event.getWalletId() == null ? null : customerIds.get(event.getWalletId());
+            if (!TransactionStatus.COMPLETED.name().equals(event.getStatus()) || customerId == null
+                    || event.getAmount() == null || event.getTimestamp() == null) {
+                log.debug("Skipping transaction event {} for incremental reconciliation", event.getTransactionId());
+                continue;
+            }
+            LocalDate date = event.getTimestamp().toLocalDate();
+            // Stored at the ledger scale, so the row matches a partner's 100.00 and is found again by transaction id at finalization
+            BigDecimal amount = event.getAmount().setScale(LEDGER_SCALE, RoundingMode.HALF_UP);
+            byDate.computeIfAbsent(date, d -> new ArrayList<>()).add(internalRow(new LedgerEntry(
+                    event.getTransactionId(), customerId, amount, TransactionType.valueOf(event.getType()), event.getTimestamp())));
+        }
+        apply(ReconciliationSide.INTERNAL, byDate);
+    }
+
+    /**
+     * Feeds a chunk of the partner's report, in the same CSV or JSON layout as full report uploads.
+     * @return the number of rows read
+     */
+    public long acceptPartnerFeed(MultipartFile file) throws IOException {
+        if (!enabled) {
+            throw new IllegalStateException("Incremental reconciliation is disabled");
+        }
+        Map<LocalDate, List<ReconciliationPendingRow>> byDate = new TreeMap<>();
+        long[] rows = new long[1];
+        Consumer<ExternalTransaction> sink = external -> {
+            rows[0]++;
+            if (external.getTransactionDate() == null) {
+                throw new IllegalArgumentException("Partner feed row without a transaction_date: " + external.getTransactionId());
+            }
+            byDate.computeIfAbsent(external.getTransactionDate(), date -> new ArrayList<>()).add(externalRow(external));
+        };
+        if ("application/json".equals(file.getContentType())) {
+            try (InputStream inputStream = file.getInputStream()) {
+                externalReportJsonReader.read(inputStream, sink);
+            }
+        } else {
+            mappedCsvReportReader.read(file, sink);
+        }
+        apply(ReconciliationSide.EXTERNAL, byDate);
+        return rows[0];
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.reconciliation.incremental.finalize-interval-ms:60000}")
+    public void finalizeDueDays() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate through = lastDueDay(LocalDateTime.now());
+        for (LocalDate date : incrementalReconciliationDayRepository.findOpenDaysThrough(through)) {
+            try {
+                finalizeDay(date);
+            } catch (Exception e) {
+                log.error("Incremental reconciliation failed to finalize {}, will retry", date, e);
+            }
+        }
+        try {
+            Integer purged = transactionTemplate.execute(status ->
+                    reconciliationPendingRowRepository.deleteFinalizedBefore(through.minusDays(retentionDays)));
+            if (purged != null && purged > 0) {
+                log.debug("Purged {} settled incremental reconciliation rows", purged);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge settled incremental reconciliation rows: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Matches the day's ledger entries that never arrived as events, then reports every row still unmatched.
+     * Does nothing if the day is unknown or another instance finalized it first.
+     */
+    void finalizeDay(LocalDate date) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Optional<IncrementalReconciliationDay> locked = incrementalReconciliationDayRepository.lockDay(date);
+            if (locked.isEmpty() || locked.get().getFinalizedAt() != null) {
+                return;
+            }
+            IncrementalReconciliationDay day = locked.get();
+            List<ReconciliationRecord> records = new ArrayList<>();
+            try (Stream<LedgerEntry> ledger = transactionRepository.streamCompletedLedgerEntriesByDate(date)) {
+                List<ReconciliationPendingRow> chunk = new ArrayList<>(IN_LIST_SIZE);
+                ledger.forEach(entry -> {
+                    chunk.add(internalRow(entry));
+                    if (chunk.size() == IN_LIST_SIZE) {
+                        matchChunk(date, chunk, records);
+                    }
+                });
+                matchChunk(date, chunk, records);
+            }
+
+            List<ReconciliationPendingRow> leftovers = reconciliationPendingRowRepository.findUnsettledByDate(date);
+            // Externals first, as in the batch output
+            for (ReconciliationSide side : List.of(ReconciliationSide.EXTERNAL, ReconciliationSide.INTERNAL)) {
+                for (ReconciliationPendingRow row : leftovers) {
+                    if (row.getSide() == side) {
+                        row.setSettled(true);
+                        records.add(missingRecord(row));
+                    }
+                }
+            }
+            day.setFinalizedAt(LocalDateTime.now());
+            incrementalReconciliationDayRepository.save(day);
+            reconciliationRecordWriter.write(records);
+            log.info("Finalized incremental reconciliation for {}: {} rows left unmatched at cutoff", date, leftovers.size());
+        });
+    }
+
+    Map<String, Long> pendingCounts(LocalDate date) {
+        return Map.of(
+                "internal", reconciliationPendingRowRepository.countByReconciliationDateAndSideAndSettledFalse(date, ReconciliationSide.INTERNAL),
+                "external", reconciliationPendingRowRepository.countByReconciliationDateAndSideAndSettledFalse(date, ReconciliationSide.EXTERNAL));
+    }
+
+    // The last day whose cutoff has passed
+    private LocalDate lastDueDay(LocalDateTime now) {
+        return now.minusMinutes(windowMinutes).toLocalDate().minusDays(1);
+    }
+
+    // All rows of one call share a side. Day locks are taken in date order within a single transaction;
+    // if it fails nothing is kept and the caller's batch is redelivered or rejected as a whole.
+    private void apply(ReconciliationSide side, Map<LocalDate, List<ReconciliationPendingRow>> byDate) {
+        if (byDate.isEmpty()) {
+            return;
+        }
+        byDate.keySet().forEach(this::openDay);
+        transactionTemplate.executeWithoutResult(status -> {
+            List<ReconciliationRecord> records = new ArrayList<>();
+            byDate.forEach((date, rows) -> {
+                Optional<IncrementalReconciliationDay> day = incrementalReconciliationDayRepository.lockDay(date);
+                if (day.isPresent() && day.get().getFinalizedAt() == null) {
+                    match(date, side, rows, records);
+                } else {
+                    reportLate(date, side, rows, day.isPresent(), records);
+                }
+            });
+            if (!records.isEmpty()) {
+                reconciliationRecordWriter.write(records);
+            }
+        });
+    }
+
+    // Separate transaction, so that an instance losing the race to open a day only loses the insert
+    private void openDay(LocalDate date) {
+        if (incrementalReconciliationDayRepository.existsById(date)) {
+            return;
+        }
+        if (!date.isAfter(lastDueDay(LocalDateTime.now())) && (reconciliationRecordRepository.existsByReconciliationDate(date)
+                || reconciliationMatchSummaryRepository.existsByReconciliationDateAndDigestReconciledAtIsNotNull(date))) {
+            // Reconciled by an upload, batch run or digest comparison before this mode tracked it;
+            // opening it would report the day twice
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> incrementalReconciliationDayRepository.insertDay(date));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Incremental reconciliation day {} was opened by another instance", date);
+        }
+    }
+
+    private void matchChunk(LocalDate date, List<ReconciliationPendingRow> chunk, List<ReconciliationRecord> records) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        match(date, ReconciliationSide.INTERNAL, chunk, records);
+        chunk.clear();
+        // Settled and saved rows are flushed; the day's ledger is not kept in the persistence context
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void match(LocalDate date, ReconciliationSide side, List<ReconciliationPendingRow> rows, List<ReconciliationRecord> records) {
+        List<ReconciliationPendingRow> fresh = withoutKnown(date, side, rows);
+        ReconciliationSide opposite = side == ReconciliationSide.INTERNAL ? ReconciliationSide.EXTERNAL : ReconciliationSide.INTERNAL;
+
+        Map<MatchKey, ArrayDeque<ReconciliationPendingRow>> candidates = new HashMap<>();
+        List<String> customers = fresh.stream().map(ReconciliationPendingRow::getCustomerId).distinct().toList();
+        for (List<String> part : partition(customers)) {
+            // Ordered by id within each part, and all candidates of one customer come from the same part
+            for (ReconciliationPendingRow candidate : reconciliationPendingRowRepository.findUnsettled(date, opposite, part)) {
+                candidates.computeIfAbsent(MatchKey.of(candidate), key -> new ArrayDeque<>()).add(candidate);
+            }
+        }
+
+        for (ReconciliationPendingRow row : fresh) {
+            ReconciliationPendingRow counterpart = poll(candidates, MatchKey.of(row));
+            if (counterpart != null) {
+                counterpart.setSettled(true);
+                row.setSettled(true);
+                records.add(side == ReconciliationSide.INTERNAL
+                        ? pairRecord(row, counterpart)
+                        : pairRecord(counterpart, row));
+            }
+        }
+        reconciliationPendingRowRepository.saveAll(fresh);
+    }
+
+    // Too late to match: the day was finalized, or passed its cutoff untracked
+    private void reportLate(LocalDate date, ReconciliationSide side, List<ReconciliationPendingRow> rows, boolean tracked,
+                            List<ReconciliationRecord> records) {
+        List<ReconciliationPendingRow> fresh = tracked ? withoutKnown(date, side, rows) : rows;
+        for (ReconciliationPendingRow row : fresh) {
+            row.setSettled(true);
+            records.add(missingRecord(row));
+        }
+        if (tracked) {
+            // Kept so that redeliveries of these rows are recognised
+            reconciliationPendingRowRepository.saveAll(fresh);
+        }
+        if (!fresh.isEmpty()) {
+            log.warn("{} {} rows for {} arrived after the day was reconciled; reported as discrepancies", fresh.size(), side, date);
+        }
+    }
+
+    // Drops rows already stored for the day and duplicates within the batch; rows without a transaction id are all kept
+    private List<ReconciliationPendingRow> withoutKnown(LocalDate date, ReconciliationSide side, List<ReconciliationPendingRow> rows) {
+        List<String> transactionIds = rows.stream()
+                .map(ReconciliationPendingRow::getTransactionId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Set<String> seen = new HashSet<>();
+        for (List<String> part : partition(transactionIds)) {
+            seen.addAll(reconciliationPendingRowRepository.findKnownTransactionIds(date, side, part));
+        }
+        List<ReconciliationPendingRow> fresh = new ArrayList<>(rows.size());
+        for (ReconciliationPendingRow row : rows) {
+            if (row.getTransactionId() == null || seen.add(row.getTransactionId())) {
+                fresh.add(row);
+            }
+        }
+        return fresh;
+    }
+
+    private void resolveCustomerIds(List<TransactionEvent> events) {
+        Set<Long> unknown = new HashSet<>();
+        for (TransactionEvent event : events) {
+            if (event.getWalletId() != null && !customerIds.containsKey(event.getWalletId())) {
+                unknown.add(event.getWalletId());
+            }
+        }
+        if (!unknown.isEmpty()) {
+            for (Wallet wallet : walletRepository.findAllById(unknown)) {
+                customerIds.put(wallet.getId(), wallet.getCustomerId());
+            }
+        }
+    }
+
+    private ReconciliationRecord pairRecord(ReconciliationPendingRow internal, ReconciliationPendingRow external) {
+        return reconciliationService.createReconciliationRecord(
+                toLedgerEntry(internal), toExternalTransaction(external), internal.getReconciliationDate());
+    }
+
+    private ReconciliationRecord missingRecord(ReconciliationPendingRow row) {
+        return row.getSide() == ReconciliationSide.INTERNAL
+                ? reconciliationService.createMissingExternalRecord(toLedgerEntry(row), row.getReconciliationDate())
+                : reconciliationService.createMissingInternalRecord(toExternalTransaction(row), row.getReconciliationDate());
+    }
+
+    private static ReconciliationPendingRow internalRow(LedgerEntry internal) {
+        return ReconciliationPendingRow.builder()
+                .reconciliationDate(internal.getCreatedAt().toLocalDate())
+                .side(ReconciliationSide.INTERNAL)
+                .transactionId(internal.getTransactionId())
+                .customerId(internal.getCustomerId())
+                .amount(internal.getAmount())
+                .type(internal.getType())
+                .createdAt(internal.getCreatedAt())
+                .build();
+    }
+
+    private static ReconciliationPendingRow externalRow(ExternalTransaction external) {
+        return ReconciliationPendingRow.builder()
+                .reconciliationDate(external.getTransactionDate())
+                .side(ReconciliationSide.EXTERNAL)
+                .transactionId(external.getTransactionId())
+                .customerId(external.getCustomerId())
+                .amount(external.getAmount())
+                .type(external.getType())
+                .build();
+    }
+
+    private static LedgerEntry toLedgerEntry(ReconciliationPendingRow row) {
+        return new LedgerEntry(row.getTransactionId(), row.getCustomerId(), row.getAmount(), row.getType(), row.getCreatedAt());
+    }
+
+    private static ExternalTransaction toExternalTransaction(ReconciliationPendingRow row) {
+        return ExternalTransaction.builder()
+                .transactionId(row.getTransactionId())
+                .amount(row.getAmount())
+                .customerId(row.getCustomerId())
+                .type(row.getType())
+                .transactionDate(row.getReconciliationDate())
+                .build();
+    }
+
+    private static <T> List<List<T>> partition(List<T> values) {
+        List<List<T>> parts = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += IN_LIST_SIZE) {
+            parts.add(values.subList(from, Math.min(from + IN_LIST_SIZE, values.size())));
+        }
+        return parts;
+    }
+
+    private static <T> T poll(Map<MatchKey, ArrayDeque<T>> pending, MatchKey key) {
+        ArrayDeque<T> queue = pending.get(key);
+        if (queue == null) {
+            return null;
+        }
+        T row = queue.poll();
+        if (queue.isEmpty()) {
+            pending.remove(key);
+        }
+        return row;
+    }
+
+    // The date is fixed per call; amounts compare including their scale, as in the batch matchers
+    private record MatchKey(String customerId, BigDecimal amount, TransactionType type) {
+        private static MatchKey of(ReconciliationPendingRow row) {
+            return new MatchKey(row.getCustomerId(), row.getAmount(), row.getType());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.javaguy.wallet_settlement.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Keeps daily partitions of transaction_ledger created ahead of time.
+ * Runs once at startup and then daily; anything that still lands outside a daily
+ * partition goes to transaction_ledger_default and is moved out when its day's partition is created.
+ * Days whose partition could not be created are logged as errors and retried on the next run.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerPartitionMaintainer {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${wallet.ledger.partitions.days-ahead:7}")
+    private int daysAhead;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensurePartitions();
+    }
+
+    @Scheduled(cron = "${wallet.ledger.partitions.maintenance-cron:0 30 0 * * *}")
+    public void ensurePartitions() {
+        LocalDate today = LocalDate.now();
+        try {
+            Integer created = jdbcTemplate.queryForObject(
+                    "SELECT create_transaction_ledger_partitions(?, ?)", Integer.class,
+                    Date.valueOf(today), Date.valueOf(today.plusDays(daysAhead)));
+            if (created != null && created > 0) {
+                log.info("Created {} transaction_ledger partitions up to {}", created, today.plusDays(daysAhead));
+            }
+            List<LocalDate> missing = jdbcTemplate.queryForList(
+                    "SELECT d::date FROM generate_series(?::date, ?::date, interval '1 day') AS d " +
+                    "WHERE to_regclass('transaction_ledger_' || to_char(d, 'YYYYMMDD')) IS NULL",
+                    LocalDate.class, Date.valueOf(today), Date.valueOf(today.plusDays(daysAhead)));
+            if (!missing.isEmpty()) {
+                log.error("transaction_ledger partitions missing for {}; their rows stay in transaction_ledger_default", missing);
+            }
+        } catch (Exception e) {
+            log.error("Failed to create transaction_ledger partitions up to {}", today.plusDays(daysAhead), e);
+        }
+    }
+}
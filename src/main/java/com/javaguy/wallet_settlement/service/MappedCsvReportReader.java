@@ -0,0 +1,303 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import com.javaguy.wallet_settlement.service.ReconciliationService.ExternalTransaction;
+import com.opencsv.CSVParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Byte-level reader for the CSV external report format
+ * ({@code transactionId, amount, customerId, type, transactionDate}, one header row).
+ * The upload is spooled to a temp file and memory-mapped region by region; fields are decoded
+ * straight from the mapped bytes: amounts as unscaled longs, ISO dates from their digits and the
+ * type by a case-insensitive byte comparison against the enum names. Only the two id strings and
+ * the final values are allocated per row.
+ *
+ * <p>Rows are handled like the opencsv path: rows with fewer than five fields are ignored, rows with
+ * an unparseable amount, type or date are logged and skipped. Records are split on newlines outside
+ * quotes, so a quoted field may span lines; records containing a quote character are handed to
+ * opencsv's parser so quoted fields keep their exact semantics.
+ */
+@Component
+@Slf4j
+public class MappedCsvReportReader {
+
+    // Regions are remapped well below the 2 GB MappedByteBuffer limit
+    static final int DEFAULT_REGION_SIZE = 256 * 1024 * 1024;
+    private static final int FIELD_COUNT = 5;
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final byte[][] TYPE_NAMES = new byte[TYPES.length][];
+
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            TYPE_NAMES[i] = TYPES[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final int regionSize;
+
+    public MappedCsvReportReader() {
+        this(DEFAULT_REGION_SIZE);
+    }
+
+    MappedCsvReportReader(int regionSize) {
+        this.regionSize = regionSize;
+    }
+
+    public void read(MultipartFile file, Consumer<ExternalTransaction> sink) throws IOException {
+        Path spool = Files.createTempFile("external-report-", ".csv");
+        try {
+            file.transferTo(spool);
+            read(spool, sink);
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    public void read(Path path, Consumer<ExternalTransaction> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long regionStart = 0;
+            boolean header = true;
+            RowDecoder decoder = new RowDecoder(sink);
+
+            while (regionStart < size) {
+                int length = (int) Math.min(regionSize, size - regionStart);
+                boolean lastRegion = regionStart + length == size;
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, length);
+
+                int lineStart = 0;
+                // Records always start outside quotes, so a region starting at a record does too
+                boolean quoted = false;
+                for (int i = 0; i < length; i++) {
+                    byte b = region.get(i);
+                    if (b == '"') {
+                        // An escaped quote ("") toggles twice and leaves the state unchanged
+                        quoted = !quoted;
+                    } else if (b == '\n' && !quoted) {
+                        if (!header) {
+                            decoder.decode(region, lineStart, i);
+                        }
+                        header = false;
+                        lineStart = i + 1;
+                    }
+                }
+                if (lastRegion) {
+                    if (lineStart < length && !header) {
+                        decoder.decode(region, lineStart, length);
+                    }
+                    break;
+                }
+                if (lineStart == 0) {
+                    throw new IOException("CSV record longer than " + regionSize + " bytes at offset " + regionStart);
+                }
+                // The trailing partial record is re-read from the start of the next region
+                regionStart += lineStart;
+            }
+        }
+    }
+
+    /**
+     * Decodes one record per call; holds the field offsets and a scratch buffer reused across rows.
+     */
+    private static final class RowDecoder {
+        private final Consumer<ExternalTransaction> sink;
+        private final int[] fieldStart = new int[FIELD_COUNT];
+        private final int[] fieldEnd = new int[FIELD_COUNT];
+        private final CSVParser quotedLineParser = new CSVParser();
+        private byte[] scratch = new byte[256];
+
+        private RowDecoder(Consumer<ExternalTransaction> sink) {
+            this.sink = sink;
+        }
+
+        private void decode(MappedByteBuffer buffer, int start, int end) {
+            if (end > start && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+
+            int fields = 0;
+            int fieldFrom = start;
+            for (int i = start; i <= end && fields < FIELD_COUNT; i++) {
+                if (i == end || buffer.get(i) == ',') {
+                    fieldStart[fields] = fieldFrom;
+                    fieldEnd[fields] = i;
+                    fields++;
+                    fieldFrom = i + 1;
+                } else if (buffer.get(i) == '"') {
+                    decodeQuoted(buffer, start, end);
+                    return;
+                }
+            }
+            if (fields < FIELD_COUNT) {
+                return;
+            }
+            for (int f = 0; f < FIELD_COUNT; f++) {
+                trim(buffer, f);
+            }
+
+            BigDecimal amount = parseAmount(buffer, fieldStart[1], fieldEnd[1]);
+            TransactionType type = parseType(buffer, fieldStart[3], fieldEnd[3]);
+            LocalDate date = parseDate(buffer, fieldStart[4], fieldEnd[4]);
+            if (amount == null || type == null || date == null) {
+                log.warn("Skipping invalid row: {}", string(buffer, start, end));
+                return;
+            }
+
+            sink.accept(ExternalTransaction.builder()
+                    .transactionId(string(buffer, fieldStart[0], fieldEnd[0]))
+                    .amount(amount)
+                    .customerId(string(buffer, fieldStart[2], fieldEnd[2]))
+                    .type(type)
+                    .transactionDate(date)
+                    .build());
+        }
+
+        private void decodeQuoted(MappedByteBuffer buffer, int start, int end) {
+            String line = string(buffer, start, end);
+            try {
+                String[] values = quotedLineParser.parseLine(line);
+                if (values.length < FIELD_COUNT) {
+                    return;
+                }
+                sink.accept(ExternalTransaction.builder()
+                        .transactionId(values[0].trim())
+                        .amount(new BigDecimal(values[1].trim()))
+                        .customerId(values[2].trim())
+                        .type(TransactionType.valueOf(values[3].trim().toUpperCase()))
+                        .transactionDate(LocalDate.parse(values[4].trim()))
+                        .build());
+            } catch (IOException | IllegalArgumentException | DateTimeException e) {
+                log.warn("Skipping invalid row: {}", line);
+            }
+        }
+
+        private void trim(MappedByteBuffer buffer, int field) {
+            int from = fieldStart[field];
+            int to = fieldEnd[field];
+            while (from < to && buffer.get(from) <= ' ') {
+                from++;
+            }
+            while (to > from && buffer.get(to - 1) <= ' ') {
+                to--;
+            }
+            fieldStart[field] = from;
+            fieldEnd[field] = to;
+        }
+
+        private BigDecimal parseAmount(MappedByteBuffer buffer, int from, int to) {
+            int i = from;
+            boolean negative = false;
+            if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negative = buffer.get(i) == '-';
+                i++;
+            }
+            long unscaled = 0;
+            int digits = 0;
+            int scale = -1;
+            for (; i < to; i++) {
+                byte b = buffer.get(i);
+                if (b >= '0' && b <= '9') {
+                    unscaled = unscaled * 10 + (b - '0');
+                    digits++;
+                    if (scale >= 0) {
+                        scale++;
+                    }
+                } else if (b == '.' && scale < 0) {
+                    scale = 0;
+                } else {
+                    return parseAmountSlow(buffer, from, to);
+                }
+            }
+            if (digits == 0) {
+                return null;
+            }
+            if (digits > MAX_LONG_DIGITS) {
+                return parseAmountSlow(buffer, from, to);
+            }
+            return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+        }
+
+        // Exponents, very long amounts and anything else BigDecimal itself accepts
+        private BigDecimal parseAmountSlow(MappedByteBuffer buffer, int from, int to) {
+            try {
+                return new BigDecimal(string(buffer, from, to));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private TransactionType parseType(MappedByteBuffer buffer, int from, int to) {
+            int length = to - from;
+            for (int t = 0; t < TYPE_NAMES.length; t++) {
+                byte[] name = TYPE_NAMES[t];
+                if (name.length != length) {
+                    continue;
+                }
+                int i = 0;
+                while (i < length && (buffer.get(from + i) & 0xDF) == name[i]) {
+                    i++;
+                }
+                if (i == length) {
+                    return TYPES[t];
+                }
+            }
+            return null;
+        }
+
+        // yyyy-MM-dd decoded from its digits; anything else goes through LocalDate.parse
+        private LocalDate parseDate(MappedByteBuffer buffer, int from, int to) {
+            try {
+                if (to - from == 10 && buffer.get(from + 4) == '-' && buffer.get(from + 7) == '-') {
+                    int year = digits(buffer, from, 4);
+                    int month = digits(buffer, from + 5, 2);
+                    int day = digits(buffer, from + 8, 2);
+                    if (year >= 0 && month >= 0 && day >= 0) {
+                        return LocalDate.of(year, month, day);
+                    }
+                    return null;
+                }
+                return LocalDate.parse(string(buffer, from, to));
+            } catch (DateTimeException e) {
+                return null;
+            }
+        }
+
+        private int digits(MappedByteBuffer buffer, int from, int count) {
+            int value = 0;
+            for (int i = from; i < from + count; i++) {
+                byte b = buffer.get(i);
+                if (b < '0' || b > '9') {
+                    return -1;
+                }
+                value = value * 10 + (b - '0');
+            }
+            return value;
+        }
+
+        private String string(MappedByteBuffer buffer, int from, int to) {
+            int length = to - from;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(from, scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
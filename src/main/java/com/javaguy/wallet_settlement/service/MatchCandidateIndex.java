@@ -0,0 +1,266 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.dto.LedgerEntry;
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Candidate lookup for one-to-one tolerant matching.
+ * Internal transactions are sorted once by (customer and type, amount, day, arrival) into flat arrays,
+ * so the candidates of a customer and type form one contiguous range ordered by amount and, within an
+ * amount, by day. {@link #claim} picks the unclaimed candidate closest in amount, then in day, within
+ * the tolerances, and removes it. Claimed positions are skipped through next/previous-free pointers
+ * with path halving, so a lookup costs a few binary searches per distinct amount inside the tolerance
+ * window: building is O(n log n) and each lookup O(log n) for a bounded tolerance.
+ * Amounts are compared at {@value #AMOUNT_SCALE} decimal places. Not thread-safe.
+ */
+final class MatchCandidateIndex {
+
+    static final int NONE = -1;
+
+    private static final int AMOUNT_SCALE = 4;
+    private static final long UNREPRESENTABLE = Long.MIN_VALUE;
+    private static final int TYPE_CODES = TransactionType.values().length + 1;
+
+    private final long amountTolerance;
+    private final int dateToleranceDays;
+    private final Map<String, Integer> customerOrdinals = new HashMap<>();
+
+    // Internal indexes in sorted order, with the sort keys alongside
+    private final int[] sorted;
+    private final long[] sortedAmount;
+    private final int[] sortedDay;
+    // Range of sorted positions per customer-and-type group; groupStart is NONE for an empty group
+    private final int[] groupStart;
+    private final int[] groupEnd;
+
+    // nextFree[p]: first unclaimed position >= p (n when none); prevFree[p + 1] - 1: last unclaimed position <= p
+    private final int[] nextFree;
+    private final int[] prevFree;
+    private final BitSet claimed = new BitSet();
+
+    MatchCandidateIndex(List<LedgerEntry> internals, BigDecimal amountTolerance, int dateToleranceDays) {
+        this.amountTolerance = Math.max(0, units(amountTolerance));
+        this.dateToleranceDays = Math.max(0, dateToleranceDays);
+
+        int n = internals.size();
+        int[] group = new int[n];
+        long[] amount = new long[n];
+        int[] day = new int[n];
+        for (int i = 0; i < n; i++) {
+            LedgerEntry internal = internals.get(i);
+            int customer = customerOrdinals.computeIfAbsent(internal.getCustomerId(), id -> customerOrdinals.size());
+            amount[i] = units(internal.getAmount());
+            // Unrepresentable amounts can never be claimed; they sort into a group of their own
+            group[i] = amount[i] == UNREPRESENTABLE ? NONE : customer * TYPE_CODES + typeCode(internal.getType());
+            day[i] = (int) internal.getCreatedAt().toLocalDate().toEpochDay();
+        }
+
+        sorted = new int[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = i;
+        }
+        stableSort(sorted, (a, b) -> {
+            int order = Integer.compare(group[a], group[b]);
+            if (order == 0) {
+                order = Long.compare(amount[a], amount[b]);
+            }
+            return order != 0 ? order : Integer.compare(day[a], day[b]);
+        });
+
+        sortedAmount = new long[n];
+        sortedDay = new int[n];
+        groupStart = new int[customerOrdinals.size() * TYPE_CODES];
+        groupEnd = new int[groupStart.length];
+        Arrays.fill(groupStart, NONE);
+        for (int p = 0; p < n; p++) {
+            int i = sorted[p];
+            sortedAmount[p] = amount[i];
+            sortedDay[p] = day[i];
+            if (group[i] != NONE) {
+                if (groupStart[group[i]] == NONE) {
+                    groupStart[group[i]] = p;
+                }
+                groupEnd[group[i]] = p + 1;
+            }
+        }
+
+        nextFree = new int[n + 1];
+        prevFree = new int[n + 1];
+        for (int p = 0; p <= n; p++) {
+            nextFree[p] = p;
+            prevFree[p] = p;
+        }
+    }
+
+    /**
+     * Claims the best unclaimed candidate for an external row and returns its internal index, or {@link #NONE}.
+     */
+    int claim(String customerId, TransactionType type, BigDecimal amount, LocalDate date) {
+        Integer customer = customerOrdinals.get(customerId);
+        long target = units(amount);
+        if (customer == null || target == UNREPRESENTABLE || date == null) {
+            return NONE;
+        }
+        int group = customer * TYPE_CODES + typeCode(type);
+        int start = groupStart[group];
+        if (start == NONE) {
+            return NONE;
+        }
+        int end = groupEnd[group];
+        long low = target - amountTolerance;
+        long high = target + amountTolerance;
+        int day = (int) date.toEpochDay();
+
+        // Walk outwards from the target amount one run of equal amounts at a time, nearest amount first
+        int above = lowerBound(start, end, target);
+        int below = above - 1;
+        while (true) {
+            boolean hasAbove = above < end && sortedAmount[above] <= high;
+            boolean hasBelow = below >= start && sortedAmount[below] >= low;
+            if (!hasAbove && !hasBelow) {
+                return NONE;
+            }
+            int runStart;
+            int runEnd;
+            if (hasAbove && (!hasBelow || sortedAmount[above] - target <= target - sortedAmount[below])) {
+                runStart = above;
+                runEnd = lowerBound(above, end, sortedAmount[above] + 1);
+                above = runEnd;
+            } else {
+                runEnd = below + 1;
+                runStart = lowerBound(start, runEnd, sortedAmount[below]);
+                below = runStart - 1;
+            }
+            int position = closestFreeDay(runStart, runEnd, day);
+            if (position != NONE) {
+                nextFree[position] = position + 1;
+                prevFree[position + 1] = position;
+                claimed.set(sorted[position]);
+                return sorted[position];
+            }
+        }
+    }
+
+    boolean isClaimed(int internalIndex) {
+        return claimed.get(internalIndex);
+    }
+
+    // Unclaimed position of the run nearest to the day within the date tolerance, the earlier day on a tie
+    private int closestFreeDay(int runStart, int runEnd, int day) {
+        int first = firstDay(runStart, runEnd, day);
+        int after = findNext(first);
+        if (after >= runEnd || sortedDay[after] - day > dateToleranceDays) {
+            after = NONE;
+        }
+        int before = findPrevious(first - 1);
+        if (before < runStart || day - sortedDay[before] > dateToleranceDays) {
+            before = NONE;
+        } else {
+            // The earliest arrival of that day, as on the forward side
+            before = findNext(firstDay(runStart, before, sortedDay[before]));
+        }
+        if (after == NONE || before == NONE) {
+            return after == NONE ? before : after;
+        }
+        return sortedDay[after] - day < day - sortedDay[before] ? after : before;
+    }
+
+    // First position in [from, to) whose day is >= day
+    private int firstDay(int from, int to, int day) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (sortedDay[mid] < day) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    private int findNext(int position) {
+        while (nextFree[position] != position) {
+            nextFree[position] = nextFree[nextFree[position]];
+            position = nextFree[position];
+        }
+        return position;
+    }
+
+    private int findPrevious(int position) {
+        int slot = position + 1;
+        while (prevFree[slot] != slot) {
+            prevFree[slot] = prevFree[prevFree[slot]];
+            slot = prevFree[slot];
+        }
+        return slot - 1;
+    }
+
+    // First position in [from, to) whose amount is >= value
+    private int lowerBound(int from, int to, long value) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (sortedAmount[mid] < value) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    private static int typeCode(TransactionType type) {
+        return type != null ? type.ordinal() + 1 : 0;
+    }
+
+    private static long units(BigDecimal amount) {
+        if (amount == null) {
+            return UNREPRESENTABLE;
+        }
+        try {
+            return amount.movePointRight(AMOUNT_SCALE).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+        } catch (ArithmeticException e) {
+            return UNREPRESENTABLE;
+        }
+    }
+
+    // Bottom-up merge sort of int indexes; equal elements keep their order
+    static void stableSort(int[] values, IntBinaryOperator comparator) {
+        int n = values.length;
+        int[] source = values;
+        int[] target = new int[n];
+        for (int width = 1; width < n; width <<= 1) {
+            for (int from = 0; from < n; from += width << 1) {
+                int mid = Math.min(from + width, n);
+                int to = Math.min(from + (width << 1), n);
+                int i = from;
+                int j = mid;
+                int k = from;
+                while (i < mid && j < to) {
+                    target[k++] = comparator.applyAsInt(source[j], source[i]) < 0 ? source[j++] : source[i++];
+                }
+                while (i < mid) {
+                    target[k++] = source[i++];
+                }
+                while (j < to) {
+                    target[k++] = source[j++];
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != values) {
+            System.arraycopy(source, 0, values, 0, n);
+        }
+    }
+}
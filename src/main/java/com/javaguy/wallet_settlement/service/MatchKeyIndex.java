@@ -0,0 +1,229 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Open-addressing index from reconciliation match keys (customer, amount, type, date) to the rows that
+ * share them, replacing string keys such as {@code customerId|amount|type|date}.
+ * A key is packed into two longs: the amount's unscaled value, and the customer's interned ordinal
+ * together with the epoch day, the amount's scale and the type. Keys are equal exactly when their
+ * string forms would be, so {@code 100.0} and {@code 100.00} stay distinct. The few keys that do not
+ * pack (amounts beyond 18 digits, far-off dates) go through a string-keyed map instead.
+ * Rows sharing a key are chained in insertion order through an int array, and each key carries a
+ * matched flag, so building and probing allocate nothing per row beyond rescaling the amount.
+ * Not thread-safe.
+ */
+public final class MatchKeyIndex {
+
+    public static final int ABSENT = -1;
+
+    private static final int MAX_DAY = (1 << 21) - 1;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    // Customer ids are interned once per distinct customer, not per row
+    private final Map<String, Integer> customerOrdinals = new HashMap<>();
+    private final Map<String, Integer> unpackedKeys = new HashMap<>();
+
+    // Open-addressing table over packed keys; slotKey is ABSENT for an empty slot
+    private long[] slotAmount;
+    private long[] slotMeta;
+    private int[] slotKey;
+    private int mask;
+    private int packedKeyCount;
+
+    // Per key: first and last row, matched flag
+    private int[] keyFirstRow;
+    private int[] keyLastRow;
+    private long[] keyMatched;
+    private int keyCount;
+
+    // Per row: key and next row with the same key
+    private int[] rowKey;
+    private int[] rowNext;
+    private int rowCount;
+
+    public MatchKeyIndex(int expectedRows) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 30, (long) (expectedRows / LOAD_FACTOR) + 1)) - 1) << 1;
+        allocateTable(capacity);
+        int rows = Math.max(16, expectedRows);
+        keyFirstRow = new int[rows];
+        keyLastRow = new int[rows];
+        keyMatched = new long[(rows + 63) >>> 6];
+        rowKey = new int[rows];
+        rowNext = new int[rows];
+    }
+
+    /**
+     * Adds the next row, numbered from 0 in insertion order, and returns its number.
+     */
+    public int add(String customerId, BigDecimal amount, TransactionType type, LocalDate date) {
+        int customer = customerOrdinals.computeIfAbsent(customerId, id -> customerOrdinals.size());
+        int key;
+        long meta = meta(customer, amount, type, date);
+        if (meta != ABSENT) {
+            long unscaled = unscaled(amount);
+            key = findPacked(unscaled, meta);
+            if (key == ABSENT) {
+                key = newKey();
+                insertPacked(unscaled, meta, key);
+            }
+        } else {
+            key = unpackedKeys.computeIfAbsent(unpackedKey(customerId, amount, type, date), k -> newKey());
+        }
+
+        int row = rowCount++;
+        if (row == rowKey.length) {
+            rowKey = Arrays.copyOf(rowKey, row * 2);
+            rowNext = Arrays.copyOf(rowNext, row * 2);
+        }
+        rowKey[row] = key;
+        rowNext[row] = ABSENT;
+        if (keyFirstRow[key] == ABSENT) {
+            keyFirstRow[key] = row;
+        } else {
+            rowNext[keyLastRow[key]] = row;
+        }
+        keyLastRow[key] = row;
+        return row;
+    }
+
+    /**
+     * Key of the given fields, or {@link #ABSENT} if no row was added with it.
+     */
+    public int find(String customerId, BigDecimal amount, TransactionType type, LocalDate date) {
+        Integer customer = customerOrdinals.get(customerId);
+        if (customer == null) {
+            return ABSENT;
+        }
+        long meta = meta(customer, amount, type, date);
+        if (meta != ABSENT) {
+            return findPacked(unscaled(amount), meta);
+        }
+        Integer key = unpackedKeys.get(unpackedKey(customerId, amount, type, date));
+        return key != null ? key : ABSENT;
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    public int keyOfRow(int row) {
+        return rowKey[row];
+    }
+
+    public int firstRow(int key) {
+        return keyFirstRow[key];
+    }
+
+    // Next row with the same key, or ABSENT
+    public int nextRow(int row) {
+        return rowNext[row];
+    }
+
+    public boolean isMatched(int key) {
+        return (keyMatched[key >>> 6] & (1L << key)) != 0;
+    }
+
+    public void markMatched(int key) {
+        keyMatched[key >>> 6] |= 1L << key;
+    }
+
+    // Customer ordinal (32 bits) | epoch day + 1 (21) | scale (8) | type ordinal + 1 (3); ABSENT if the key does not pack
+    private static long meta(int customer, BigDecimal amount, TransactionType type, LocalDate date) {
+        if (amount == null || amount.scale() < Byte.MIN_VALUE || amount.scale() > Byte.MAX_VALUE
+                || amount.precision() > 18 || type != null && type.ordinal() >= 7) {
+            return ABSENT;
+        }
+        long day = date != null ? date.toEpochDay() + 1 : 0;
+        if (day < 0 || day > MAX_DAY) {
+            return ABSENT;
+        }
+        int typeCode = type != null ? type.ordinal() + 1 : 0;
+        return (long) customer << 32 | day << 11 | (long) (amount.scale() & 0xFF) << 3 | typeCode;
+    }
+
+    // Only called for amounts of at most 18 digits; scaling to an integer is cheaper than unscaledValue()'s BigInteger
+    private static long unscaled(BigDecimal amount) {
+        return amount.scale() == 0 ? amount.longValue() : amount.scaleByPowerOfTen(amount.scale()).longValue();
+    }
+
+    private static String unpackedKey(String customerId, BigDecimal amount, TransactionType type, LocalDate date) {
+        return customerId + "|" + amount + "|" + type + "|" + date;
+    }
+
+    private int newKey() {
+        int key = keyCount++;
+        if (key == keyFirstRow.length) {
+            keyFirstRow = Arrays.copyOf(keyFirstRow, key * 2);
+            keyLastRow = Arrays.copyOf(keyLastRow, key * 2);
+        }
+        if ((key >>> 6) == keyMatched.length) {
+            keyMatched = Arrays.copyOf(keyMatched, keyMatched.length * 2);
+        }
+        keyFirstRow[key] = ABSENT;
+        return key;
+    }
+
+    private int findPacked(long amount, long meta) {
+        for (int slot = slot(amount, meta); ; slot = (slot + 1) & mask) {
+            int key = slotKey[slot];
+            if (key == ABSENT || slotAmount[slot] == amount && slotMeta[slot] == meta) {
+                return key;
+            }
+        }
+    }
+
+    private void insertPacked(long amount, long meta, int key) {
+        if (packedKeyCount + 1 > (mask + 1) * LOAD_FACTOR) {
+            rehash();
+        }
+        int slot = slot(amount, meta);
+        while (slotKey[slot] != ABSENT) {
+            slot = (slot + 1) & mask;
+        }
+        slotAmount[slot] = amount;
+        slotMeta[slot] = meta;
+        slotKey[slot] = key;
+        packedKeyCount++;
+    }
+
+    private void rehash() {
+        long[] amounts = slotAmount;
+        long[] metas = slotMeta;
+        int[] keys = slotKey;
+        allocateTable(keys.length * 2);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != ABSENT) {
+                int slot = slot(amounts[i], metas[i]);
+                while (slotKey[slot] != ABSENT) {
+                    slot = (slot + 1) & mask;
+                }
+                slotAmount[slot] = amounts[i];
+                slotMeta[slot] = metas[i];
+                slotKey[slot] = keys[i];
+            }
+        }
+    }
+
+    private void allocateTable(int capacity) {
+        slotAmount = new long[capacity];
+        slotMeta = new long[capacity];
+        slotKey = new int[capacity];
+        Arrays.fill(slotKey, ABSENT);
+        mask = capacity - 1;
+    }
+
+    private int slot(long amount, long meta) {
+        long h = amount * 0x9E3779B97F4A7C15L ^ meta;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
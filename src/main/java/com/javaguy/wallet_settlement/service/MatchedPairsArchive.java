@@ -0,0 +1,204 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.dto.ReconciliationExportRow;
+import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
+import com.javaguy.wallet_settlement.model.enums.ReconciliationStatus;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Optional audit trail of matched pairs for the discrepancies-only storage mode, enabled by setting
+ * {@code wallet.reconciliation.pairs-dir}. Each transaction spools the pairs it matched into a gzipped
+ * CSV file per date (reconciliation id, internal id, external id, internal amount, external amount) that
+ * is renamed into place when the transaction commits and deleted when it rolls back.
+ */
+@Component
+@Slf4j
+public class MatchedPairsArchive {
+
+    private static final String FILE_PREFIX = "matched_";
+    private static final String FILE_SUFFIX = ".csv.gz";
+    private static final String SPOOL_SUFFIX = ".tmp";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // reconciliation_records amounts are DECIMAL(19,2); replayed rows are exported as if read from there
+    private static final int AMOUNT_SCALE = 2;
+    private static final BigDecimal NO_DISCREPANCY = BigDecimal.ZERO.setScale(AMOUNT_SCALE);
+
+    @Value("${wallet.reconciliation.pairs-dir:}")
+    private String directory;
+
+    @FunctionalInterface
+    public interface PairSink {
+        void accept(ReconciliationExportRow row) throws IOException;
+    }
+
+    public boolean isEnabled() {
+        return directory != null && !directory.isBlank();
+    }
+
+    /**
+     * Must be called inside a transaction; the pairs only become visible once it commits.
+     */
+    public void append(LocalDate date, List<ReconciliationRecord> matched) throws IOException {
+        if (!isEnabled() || matched.isEmpty()) {
+            return;
+        }
+        CSVWriter writer = spool(date).writer;
+        String[] line = new String[5];
+        for (ReconciliationRecord record : matched) {
+            line[0] = record.getReconciliationId();
+            line[1] = record.getInternalTransactionId();
+            line[2] = record.getExternalTransactionId();
+            line[3] = record.getInternalAmount().toPlainString();
+            line[4] = record.getExternalAmount().toPlainString();
+            writer.writeNext(line, false);
+        }
+    }
+
+    /**
+     * Replays every committed pair of the date as a MATCHED export row, file by file, with the same
+     * fields and amount scale a stored MATCHED record is exported with.
+     */
+    public void forEach(LocalDate date, PairSink sink) throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        Path dir = Path.of(directory);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, FILE_PREFIX + date + "_*" + FILE_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+
+        for (Path file : files) {
+            try (CSVReader reader = new CSVReader(new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE))) {
+                String[] line;
+                while ((line = reader.readNext()) != null) {
+                    // Files written before the external amount was archived have four columns
+                    sink.accept(ReconciliationExportRow.builder()
+                            .reconciliationId(line[0])
+                            .internalTransactionId(line[1])
+                            .externalTransactionId(line[2])
+                            .internalAmount(amount(line[3]))
+                            .externalAmount(amount(line.length > 4 ? line[4] : line[3]))
+                            .status(ReconciliationStatus.MATCHED)
+                            .discrepancyAmount(NO_DISCREPANCY)
+                            .build());
+                }
+            } catch (CsvValidationException e) {
+                throw new IOException("Malformed matched pairs file " + file, e);
+            }
+        }
+    }
+
+    private static BigDecimal amount(String text) {
+        return new BigDecimal(text).setScale(AMOUNT_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private Spool spool(LocalDate date) throws IOException {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Matched pairs can only be archived inside a transaction");
+        }
+        @SuppressWarnings("unchecked")
+        Map<LocalDate, Spool> spools = (Map<LocalDate, Spool>) TransactionSynchronizationManager.getResource(this);
+        if (spools == null) {
+            Map<LocalDate, Spool> bound = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // Flushes the gzip trailers now, so a full disk fails the commit instead of losing the file
+                    for (Spool spool : bound.values()) {
+                        try {
+                            spool.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException("Failed to write matched pairs file " + spool.temp, e);
+                        }
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(MatchedPairsArchive.this);
+                    for (Spool spool : bound.values()) {
+                        spool.complete(status == STATUS_COMMITTED);
+                    }
+                }
+            });
+            spools = bound;
+        }
+        Spool spool = spools.get(date);
+        if (spool == null) {
+            spool = new Spool(Path.of(directory), date);
+            spools.put(date, spool);
+        }
+        return spool;
+    }
+
+    private static final class Spool {
+        private final Path temp;
+        private final Path target;
+        private final CSVWriter writer;
+        private boolean closed;
+
+        private Spool(Path dir, LocalDate date) throws IOException {
+            Files.createDirectories(dir);
+            this.target = dir.resolve(FILE_PREFIX + date + "_" + UUID.randomUUID() + FILE_SUFFIX);
+            this.temp = target.resolveSibling(target.getFileName() + SPOOL_SUFFIX);
+            this.writer = new CSVWriter(new OutputStreamWriter(new GZIPOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE), BUFFER_SIZE), StandardCharsets.UTF_8));
+        }
+
+        private void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                writer.close();
+            }
+        }
+
+        private void complete(boolean committed) {
+            try {
+                close();
+                if (committed) {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } else {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException e) {
+                log.error("Failed to {} matched pairs file {}", committed ? "publish" : "discard", temp, e);
+            }
+        }
+    }
+}
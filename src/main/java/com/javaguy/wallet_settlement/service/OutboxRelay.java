@@ -0,0 +1,125 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.config.RabbitMQConfig;
+import com.javaguy.wallet_settlement.model.entity.OutboxEvent;
+import com.javaguy.wallet_settlement.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the transaction outbox to RabbitMQ, routing each event to the partition of its wallet.
+ * Each batch is published on one channel and confirmed with a single wait for publisher confirms;
+ * rows are deleted only once the whole batch is confirmed, so delivery is at-least-once.
+ * While the broker is unreachable events simply accumulate in the table, not in memory,
+ * and the relay retries with exponential backoff.
+ * <p>
+ * Events of one wallet are published in the order their transactions committed. An outbox id is drawn
+ * from the sequence by the INSERT itself, and the row is only inserted once its transaction holds the
+ * wallet row lock, so a later transaction on the same wallet always gets a higher id and cannot commit
+ * first. Batches are read in id order, and every instance runs the relay but a batch is only published
+ * under a PostgreSQL advisory lock: two relays publishing interleaved batches would break that order.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "wallet.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    static final long RELAY_LOCK_KEY = 0x6f7574626f78L; // "outbox"
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${wallet.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${wallet.outbox.relay.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMillis;
+
+    @Value("${wallet.events.partitions:4}")
+    private int partitions;
+
+    @Value("${wallet.outbox.relay.interval-ms:200}")
+    private long intervalMillis;
+
+    @Value("${wallet.outbox.relay.max-backoff-ms:30000}")
+    private long maxBackoffMillis;
+
+    // Only touched by the scheduler thread
+    private int consecutiveFailures;
+    private long nextAttemptNanos;
+
+    @Scheduled(fixedDelayString = "${wallet.outbox.relay.interval-ms:200}")
+    public void relay() {
+        if (consecutiveFailures > 0 && System.nanoTime() - nextAttemptNanos < 0) {
+            return;
+        }
+        try {
+            Integer relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed != null && relayed == batchSize);
+
+            if (consecutiveFailures > 0) {
+                logger.info("Resumed relaying transaction events after {} failed attempts", consecutiveFailures);
+                consecutiveFailures = 0;
+            }
+        } catch (Exception e) {
+            // Unconfirmed rows stay in the outbox and are retried, in order, once the broker is back.
+            // Backing off keeps a long outage from turning into a tight loop of lock-publish-rollback.
+            consecutiveFailures++;
+            long backoffMillis = backoffMillis(consecutiveFailures);
+            nextAttemptNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+            if (consecutiveFailures == 1) {
+                logger.error("Failed to relay transaction events from outbox, retrying in {} ms", backoffMillis, e);
+            } else {
+                logger.warn("Outbox relay still failing ({} attempts), retrying in {} ms: {}",
+                        consecutiveFailures, backoffMillis, e.getMessage());
+            }
+        }
+    }
+
+    long backoffMillis(int failures) {
+        long backoff = intervalMillis << Math.min(failures - 1, 20);
+        return Math.min(backoff, maxBackoffMillis);
+    }
+
+    private int relayBatch() {
+        if (!outboxEventRepository.tryRelayLock(RELAY_LOCK_KEY)) {
+            // Another instance is relaying; it drains the outbox in order
+            return 0;
+        }
+        List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        rabbitTemplate.invoke(operations -> {
+            for (OutboxEvent outboxEvent : batch) {
+                operations.convertAndSend(
+                        RabbitMQConfig.TRANSACTION_EXCHANGE,
+                        RabbitMQConfig.partitionRoutingKey(RabbitMQConfig.partitionFor(outboxEvent.getWalletId(), partitions)),
+                        outboxEvent.toEvent()
+                );
+            }
+            operations.waitForConfirmsOrDie(confirmTimeoutMillis);
+            return null;
+        });
+
+        outboxEventRepository.deleteAllInBatch(batch);
+        logger.debug("Relayed {} transaction events", batch.size());
+        return batch.size();
+    }
+}
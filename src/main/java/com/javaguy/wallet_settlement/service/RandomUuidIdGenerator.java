@@ -0,0 +1,15 @@
+package com.javaguy.wallet_settlement.service;
+
+import java.util.UUID;
+
+/**
+ * Random (version 4) UUID ids. Kept for compatibility; the ids are unordered, so every insert
+ * lands on a random page of the unique index.
+ */
+public class RandomUuidIdGenerator implements IdGenerator {
+
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,150 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javaguy.wallet_settlement.model.dto.ReconciliationExportRow;
+import com.javaguy.wallet_settlement.model.enums.ExportFormat;
+import com.javaguy.wallet_settlement.repository.ReconciliationRecordRepository;
+import com.opencsv.CSVWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams a day's reconciliation records to an output stream as CSV or JSON Lines, optionally gzipped.
+ * Rows come from a forward-only database cursor and are written as they arrive, so heap use does
+ * not grow with the size of the export. Matched pairs kept only in the {@link MatchedPairsArchive}
+ * follow the stored records.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReconciliationExporter {
+
+    static final String[] CSV_HEADER = {
+            "Reconciliation ID", "Internal Transaction ID", "External Transaction ID",
+            "Internal Amount", "External Amount", "Status", "Discrepancy Amount", "Reason"
+    };
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final ReconciliationRecordRepository reconciliationRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final MatchedPairsArchive matchedPairsArchive;
+
+    /**
+     * Writes the export and flushes it; the output stream itself is left open for the caller.
+     */
+    @Transactional(readOnly = true)
+    public void export(LocalDate date, ExportFormat format, boolean gzip, OutputStream outputStream) throws IOException {
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(outputStream, WRITE_BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                gzipStream != null ? gzipStream : outputStream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+
+        RowWriter rowWriter = format == ExportFormat.JSONL ? new JsonLinesRowWriter(writer) : new CsvRowWriter(writer);
+        try (Stream<ReconciliationExportRow> rows = reconciliationRecordRepository.streamExportRowsByDate(date)) {
+            Iterator<ReconciliationExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                rowWriter.write(iterator.next());
+            }
+        }
+        matchedPairsArchive.forEach(date, rowWriter::write);
+        rowWriter.finish();
+
+        writer.flush();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+        outputStream.flush();
+    }
+
+    private interface RowWriter {
+        void write(ReconciliationExportRow row) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        // Not closed: closing the CSVWriter would close the response stream underneath it
+        private final CSVWriter csvWriter;
+        private final String[] line = new String[CSV_HEADER.length];
+
+        private CsvRowWriter(Writer writer) {
+            this.csvWriter = new CSVWriter(writer);
+            csvWriter.writeNext(CSV_HEADER);
+        }
+
+        @Override
+        public void write(ReconciliationExportRow row) {
+            line[0] = row.getReconciliationId();
+            line[1] = row.getInternalTransactionId() != null ? row.getInternalTransactionId() : "";
+            line[2] = row.getExternalTransactionId() != null ? row.getExternalTransactionId() : "";
+            line[3] = toText(row.getInternalAmount());
+            line[4] = toText(row.getExternalAmount());
+            line[5] = String.valueOf(row.getStatus());
+            line[6] = toText(row.getDiscrepancyAmount());
+            line[7] = row.getDiscrepancyReason() != null ? row.getDiscrepancyReason() : "";
+            csvWriter.writeNext(line);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            csvWriter.flush();
+            if (csvWriter.checkError()) {
+                throw new IOException("Failed to write reconciliation CSV export");
+            }
+        }
+    }
+
+    private final class JsonLinesRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        private JsonLinesRowWriter(Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(ReconciliationExportRow row) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("reconciliationId", row.getReconciliationId());
+            generator.writeStringField("internalTransactionId", row.getInternalTransactionId());
+            generator.writeStringField("externalTransactionId", row.getExternalTransactionId());
+            writeAmount(generator, "internalAmount", row.getInternalAmount());
+            writeAmount(generator, "externalAmount", row.getExternalAmount());
+            generator.writeStringField("status", String.valueOf(row.getStatus()));
+            writeAmount(generator, "discrepancyAmount", row.getDiscrepancyAmount());
+            generator.writeStringField("discrepancyReason", row.getDiscrepancyReason());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static void writeAmount(JsonGenerator generator, String field, BigDecimal amount) throws IOException {
+        if (amount == null) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, amount);
+        }
+    }
+
+    private static String toText(BigDecimal amount) {
+        return amount != null ? amount.toString() : "";
+    }
+}
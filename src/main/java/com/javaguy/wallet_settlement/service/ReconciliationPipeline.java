@@ -0,0 +1,194 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
+import com.javaguy.wallet_settlement.service.ReconciliationService.ExternalTransaction;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Ingestion pipeline for external reports: parse -> match -> persist.
+ * Parsing and matching run on their own threads and hand rows over in chunks through bounded queues,
+ * so at most {@code queueCapacity} chunks per stage are in flight however large the report is,
+ * and a slow stage holds back the ones before it. The persist stage runs on the calling thread
+ * so that it joins the caller's transaction. A run instance is single-use.
+ */
+final class ReconciliationPipeline {
+
+    @FunctionalInterface
+    interface Source {
+        void emit(Consumer<ExternalTransaction> sink) throws IOException;
+    }
+
+    interface Matcher {
+        void match(ExternalTransaction external, Consumer<ReconciliationRecord> out);
+
+        // Called once after the last external row; emits whatever is left unmatched on the internal side
+        void finish(Consumer<ReconciliationRecord> out);
+    }
+
+    private static final long POLL_MILLIS = 100;
+
+    private final int chunkSize;
+    private final int queueCapacity;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean cancelled;
+
+    ReconciliationPipeline(int chunkSize, int queueCapacity) {
+        this.chunkSize = chunkSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @return the number of external rows read from the source
+     */
+    long run(Source source, Matcher matcher, Consumer<List<ReconciliationRecord>> sink) throws IOException {
+        BlockingQueue<List<ExternalTransaction>> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<ReconciliationRecord>> matched = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicLong rows = new AtomicLong();
+
+        Thread parser = startStage("reconciliation-parse", parsed, () -> {
+            Chunker<ExternalTransaction> out = new Chunker<>(parsed);
+            source.emit(external -> {
+                rows.incrementAndGet();
+                out.accept(external);
+            });
+            out.flush();
+        });
+
+        Thread matchStage = startStage("reconciliation-match", matched, () -> {
+            Chunker<ReconciliationRecord> out = new Chunker<>(matched);
+            for (List<ExternalTransaction> chunk = take(parsed); !chunk.isEmpty(); chunk = take(parsed)) {
+                for (ExternalTransaction external : chunk) {
+                    matcher.match(external, out);
+                }
+            }
+            if (cancelled) {
+                return;
+            }
+            matcher.finish(out);
+            out.flush();
+        });
+
+        try {
+            for (List<ReconciliationRecord> chunk = take(matched); !chunk.isEmpty(); chunk = take(matched)) {
+                sink.accept(chunk);
+            }
+        } catch (RuntimeException e) {
+            fail(e);
+        } finally {
+            join(parser);
+            join(matchStage);
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof IOException e) {
+            throw e;
+        }
+        if (error instanceof RuntimeException e) {
+            throw e;
+        }
+        if (error != null) {
+            throw new IllegalStateException("Reconciliation pipeline failed", error);
+        }
+        return rows.get();
+    }
+
+    private <T> Thread startStage(String name, BlockingQueue<List<T>> output, Stage stage) {
+        Thread thread = new Thread(() -> {
+            try {
+                stage.run();
+                // An empty chunk marks the end of the stream
+                put(output, List.of());
+            } catch (Throwable t) {
+                fail(t);
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void fail(Throwable t) {
+        failure.compareAndSet(null, t);
+        cancelled = true;
+    }
+
+    // Returns an empty chunk at end of stream or once the run has been cancelled
+    private <T> List<T> take(BlockingQueue<List<T>> queue) {
+        try {
+            while (!cancelled) {
+                List<T> chunk = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (chunk != null) {
+                    return chunk;
+                }
+            }
+            return List.of();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+            return List.of();
+        }
+    }
+
+    // Throws once the run has been cancelled, so an upstream stage stops producing
+    private <T> void put(BlockingQueue<List<T>> queue, List<T> chunk) {
+        try {
+            while (!cancelled) {
+                if (queue.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+        }
+        throw new CancellationException("Reconciliation pipeline cancelled");
+    }
+
+    private void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private final class Chunker<T> implements Consumer<T> {
+        private final BlockingQueue<List<T>> queue;
+        private List<T> chunk = new ArrayList<>(chunkSize);
+
+        private Chunker(BlockingQueue<List<T>> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void accept(T item) {
+            chunk.add(item);
+            if (chunk.size() == chunkSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (!chunk.isEmpty()) {
+                put(queue, chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.entity.ReconciliationMatchSummary;
+import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
+import com.javaguy.wallet_settlement.model.enums.ReconciliationStatus;
+import com.javaguy.wallet_settlement.repository.ReconciliationMatchSummaryRepository;
+import com.javaguy.wallet_settlement.repository.ReconciliationRecordRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists reconciliation records in bulk.
+ * On PostgreSQL with {@code wallet.reconciliation.write-mode=copy} rows are streamed with
+ * {@code COPY ... FROM STDIN}, bypassing the entity lifecycle entirely; ids are taken from
+ * reconciliation_records_seq in the same blocks of 50 Hibernate's pooled optimizer uses, so both
+ * paths can write to the table side by side. On any other database, or in {@code jpa} mode,
+ * records go through Hibernate's JDBC batching.
+ * With {@code wallet.reconciliation.storage=discrepancies} only non-matched records are stored; matched
+ * pairs are added to the day's {@link ReconciliationMatchSummary} and to the {@link MatchedPairsArchive}, which
+ * must then be enabled so the export can still list them.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReconciliationRecordWriter {
+
+    static final String COPY_SQL = "COPY reconciliation_records (id, reconciliation_date, reconciliation_id, " +
+            "internal_transaction_id, external_transaction_id, internal_amount, external_amount, " +
+            "discrepancy_amount, discrepancy_reason, status, created_at) FROM STDIN WITH (FORMAT csv)";
+
+    // Must match the allocationSize of ReconciliationRecord's sequence generator
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final int COPY_BUFFER_CHARS = 64 * 1024;
+
+    private final ReconciliationRecordRepository reconciliationRecordRepository;
+    private final ReconciliationMatchSummaryRepository reconciliationMatchSummaryRepository;
+    private final MatchedPairsArchive matchedPairsArchive;
+    private final EntityManager entityManager;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${wallet.reconciliation.write-mode:copy}")
+    private String writeMode;
+
+    @Value("${wallet.reconciliation.storage:full}")
+    private String storageMode;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int writeBatchSize;
+
+    @PostConstruct
+    void checkStorageMode() {
+        if (isDiscrepanciesOnly() && !matchedPairsArchive.isEnabled()) {
+            throw new IllegalStateException("wallet.reconciliation.storage=discrepancies requires " +
+                    "wallet.reconciliation.pairs-dir, otherwise matched pairs cannot be exported");
+        }
+    }
+
+    /**
+     * Must be called inside a transaction; the COPY runs on the transaction's connection.
+     */
+    public void write(List<ReconciliationRecord> records) {
+        if (!isDiscrepanciesOnly()) {
+            persist(records);
+            return;
+        }
+
+        List<ReconciliationRecord> discrepancies = new ArrayList<>();
+        Map<LocalDate, List<ReconciliationRecord>> matchedByDate = new LinkedHashMap<>();
+        for (ReconciliationRecord record : records) {
+            if (record.getStatus() == ReconciliationStatus.MATCHED) {
+                matchedByDate.computeIfAbsent(record.getReconciliationDate(), date -> new ArrayList<>()).add(record);
+            } else {
+                discrepancies.add(record);
+            }
+        }
+        matchedByDate.forEach(this::summarize);
+        persist(discrepancies);
+    }
+
+    private boolean isDiscrepanciesOnly() {
+        return "discrepancies".equalsIgnoreCase(storageMode);
+    }
+
+    private void summarize(LocalDate date, List<ReconciliationRecord> matched) {
+        BigDecimal amount = BigDecimal.ZERO;
+        for (ReconciliationRecord record : matched) {
+            amount = amount.add(record.getInternalAmount());
+        }
+        reconciliationMatchSummaryRepository.addMatches(date, matched.size(), amount);
+        try {
+            matchedPairsArchive.append(date, matched);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive matched pairs for " + date, e);
+        }
+    }
+
+    private void persist(List<ReconciliationRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        if ("copy".equalsIgnoreCase(writeMode)) {
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            try {
+                if (connection.isWrapperFor(PGConnection.class)) {
+                    copy(connection.unwrap(PGConnection.class), records);
+                    return;
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to COPY reconciliation records", e);
+            } finally {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        }
+        saveInBatches(records);
+    }
+
+    // Persists in JDBC-batch sized chunks and clears the persistence context between them,
+    // so a large day is neither sent as one INSERT per row nor kept fully managed in memory
+    private void saveInBatches(List<ReconciliationRecord> records) {
+        for (int from = 0; from < records.size(); from += writeBatchSize) {
+            List<ReconciliationRecord> chunk = records.subList(from, Math.min(from + writeBatchSize, records.size()));
+            reconciliationRecordRepository.saveAll(chunk);
+            entityManager.flush();
+            entityManager.clear();
+        }
+    }
+
+    private void copy(PGConnection connection, List<ReconciliationRecord> records) throws SQLException {
+        assignIds(records);
+        LocalDateTime createdAt = LocalDateTime.now();
+
+        CopyIn copyIn = connection.getCopyAPI().copyIn(COPY_SQL);
+        try {
+            StringBuilder buffer = new StringBuilder(COPY_BUFFER_CHARS + 1024);
+            for (ReconciliationRecord record : records) {
+                record.setCreatedAt(createdAt);
+                appendRow(buffer, record);
+                if (buffer.length() >= COPY_BUFFER_CHARS) {
+                    writeToCopy(copyIn, buffer);
+                }
+            }
+            writeToCopy(copyIn, buffer);
+            long rows = copyIn.endCopy();
+            log.debug("Copied {} reconciliation records", rows);
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    // Hibernate's pooled optimizer treats each sequence value as the top of a block of ID_BLOCK_SIZE ids
+    private void assignIds(List<ReconciliationRecord> records) {
+        int blocks = (records.size() + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+        List<Long> highs = jdbcTemplate.queryForList(
+                "SELECT nextval('reconciliation_records_seq') FROM generate_series(1, ?)", Long.class, blocks);
+        int index = 0;
+        for (Long high : highs) {
+            for (long id = high - ID_BLOCK_SIZE + 1; id <= high && index < records.size(); id++) {
+                records.get(index++).setId(id);
+            }
+        }
+    }
+
+    private void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    static void appendRow(StringBuilder buffer, ReconciliationRecord record) {
+        buffer.append(record.getId()).append(',');
+        buffer.append(record.getReconciliationDate()).append(',');
+        appendText(buffer, record.getReconciliationId()).append(',');
+        appendText(buffer, record.getInternalTransactionId()).append(',');
+        appendText(buffer, record.getExternalTransactionId()).append(',');
+        appendNumber(buffer, record.getInternalAmount()).append(',');
+        appendNumber(buffer, record.getExternalAmount()).append(',');
+        appendNumber(buffer, record.getDiscrepancyAmount()).append(',');
+        appendText(buffer, record.getDiscrepancyReason()).append(',');
+        buffer.append(record.getStatus().name()).append(',');
+        buffer.append(record.getCreatedAt()).append('\n');
+    }
+
+    // In COPY csv format an unquoted empty field is NULL and a quoted empty field is an empty string
+    private static StringBuilder appendText(StringBuilder buffer, String value) {
+        if (value == null) {
+            return buffer;
+        }
+        if (!value.isEmpty() && value.chars().noneMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+            return buffer.append(value);
+        }
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                buffer.append('"');
+            }
+            buffer.append(c);
+        }
+        return buffer.append('"');
+    }
+
+    private static StringBuilder appendNumber(StringBuilder buffer, BigDecimal value) {
+        return value == null ? buffer : buffer.append(value.toPlainString());
+    }
+}
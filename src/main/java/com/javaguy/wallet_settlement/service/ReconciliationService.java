@@ -1,34 +1,48 @@
 package com.javaguy.wallet_settlement.service;
 
+import com.javaguy.wallet_settlement.model.dto.LedgerEntry;
+import com.javaguy.wallet_settlement.model.dto.ReconciliationDigestComparison;
+import com.javaguy.wallet_settlement.model.dto.ReconciliationDiscrepancy;
 import com.javaguy.wallet_settlement.model.dto.ReconciliationReport;
+import com.javaguy.wallet_settlement.model.dto.ReconciliationStatusTotals;
 import com.javaguy.wallet_settlement.model.dto.ReconciliationSummary;
+import com.javaguy.wallet_settlement.model.entity.ReconciliationMatchSummary;
 import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
-import com.javaguy.wallet_settlement.model.entity.Transaction;
 import com.javaguy.wallet_settlement.model.enums.ReconciliationStatus;
 import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import com.javaguy.wallet_settlement.repository.ReconciliationMatchSummaryRepository;
 import com.javaguy.wallet_settlement.repository.ReconciliationRecordRepository;
 import com.javaguy.wallet_settlement.repository.TransactionRepository;
 import com.opencsv.CSVReader;
-import com.opencsv.CSVWriter;
 import com.opencsv.exceptions.CsvValidationException;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -36,13 +50,73 @@ import java.util.stream.Collectors;
 public class ReconciliationService {
 
     private final ReconciliationRecordRepository reconciliationRecordRepository;
+    private final ReconciliationMatchSummaryRepository reconciliationMatchSummaryRepository;
     private final TransactionRepository transactionRepository;
+    private final IdGenerator idGenerator;
+    private final ReconciliationRecordWriter reconciliationRecordWriter;
+    private final ExternalReportJsonReader externalReportJsonReader;
+    private final MappedCsvReportReader mappedCsvReportReader;
+
+    private static final Set<ReconciliationStatus> DISCREPANCY_STATUSES = EnumSet.of(
+            ReconciliationStatus.MISSING_INTERNAL, ReconciliationStatus.MISSING_EXTERNAL, ReconciliationStatus.AMOUNT_MISMATCH);
+
+    @Value("${wallet.reconciliation.csv-parser:mapped}")
+    private String csvParser;
+
+    @Value("${wallet.reconciliation.match.partitions:64}")
+    private int matchPartitions;
+
+    @Value("${wallet.reconciliation.match.parallelism:0}")
+    private int matchParallelism;
+
+    @Value("${wallet.reconciliation.match.parallel-threshold:50000}")
+    private int parallelMatchThreshold;
+
+    @Value("${wallet.reconciliation.ingest.chunk-size:1000}")
+    private int ingestChunkSize;
+
+    @Value("${wallet.reconciliation.ingest.queue-capacity:8}")
+    private int ingestQueueCapacity;
+
+    @Value("${wallet.reconciliation.match.strategy:hash}")
+    private String matchStrategy;
+
+    @Value("${wallet.reconciliation.match.engine:exact}")
+    private String matchEngine;
+
+    @Value("${wallet.reconciliation.match.amount-tolerance:0}")
+    private BigDecimal amountTolerance;
+
+    @Value("${wallet.reconciliation.match.date-tolerance-days:0}")
+    private int dateToleranceDays;
+
+    @Value("${wallet.reconciliation.digest.precompare:false}")
+    private boolean digestPrecompare;
+
+    @Value("${wallet.reconciliation.digest.bucket-bits:12}")
+    private int digestBucketBits;
+
+    @Value("${wallet.reconciliation.incremental.enabled:false}")
+    private boolean incrementalEnabled;
+
+    @Value("${wallet.reconciliation.spill.memory-budget-mb:64}")
+    private long spillMemoryBudgetMb;
+
+    @Value("${wallet.reconciliation.spill.directory:}")
+    private String spillDirectory;
+
+    @Value("${wallet.reconciliation.report.page-size:100}")
+    private int reportPageSize;
+
+    @Value("${wallet.reconciliation.report.max-page-size:1000}")
+    private int reportMaxPageSize;
 
     @Transactional
     public ReconciliationReport runReconciliation(LocalDate date){
         log.info("Running reconciliation for date: {}", date);
+        rejectIfDigestReconciled(date);
 
-        List<Transaction> internalTransactions = transactionRepository.findCompletedTransactionsByDate(date);
+        List<LedgerEntry> internalTransactions = transactionRepository.findCompletedLedgerEntriesByDate(date);
         log.info("found {} internal transactions for {}", internalTransactions.size(), date);
 
         //i have created mock external transactions for testing
@@ -52,62 +126,61 @@ public class ReconciliationService {
         List<ReconciliationRecord> reconciliationRecords = performReconciliation(
                 internalTransactions, externalTransactions, date
         );
-        reconciliationRecordRepository.saveAll(reconciliationRecords);
+        saveReconciliationRecords(reconciliationRecords);
         log.info("Reconciliation completed for date: {}", date);
-        return buildReconciliationReport(reconciliationRecords, date);
+        return buildReconciliationReport(date, DISCREPANCY_STATUSES, 0L, reportPageSize);
     }
 
     @Transactional
     public void processExternalReportCsv(MultipartFile file, LocalDate date) throws IOException {
         log.info("Processing external CSV report file: {} for date: {}",file.getOriginalFilename(), date);
-        List<ExternalTransaction> externalTransactions = parseCSVFile(file);
-        processAndSaveReconciliation(externalTransactions, date);
-        log.info("Processed {} reconciliation records from CSV for date: {}", externalTransactions.size(), date);
+        long processed = processAndSaveReconciliation(
+                "opencsv".equalsIgnoreCase(csvParser)
+                        ? sink -> parseCSVFile(file, sink)
+                        : sink -> mappedCsvReportReader.read(file, sink),
+                date);
+        log.info("Processed {} external transactions from CSV for date: {}", processed, date);
     }
 
     @Transactional
     public void processExternalReportJson(MultipartFile file, LocalDate date) throws IOException {
         log.info("Processing external JSON report file: {} for date: {}",file.getOriginalFilename(), date);
-        List<ExternalTransaction> externalTransactions = parseJsonFile(file);
-        processAndSaveReconciliation(externalTransactions, date);
-        log.info("Processed {} reconciliation records from JSON for date: {}", externalTransactions.size(), date);
+        long processed = processAndSaveReconciliation(sink -> parseJsonFile(file, sink), date);
+        log.info("Processed {} external transactions from JSON for date: {}", processed, date);
     }
 
     @Transactional(readOnly = true)
     public ReconciliationReport getReconciliationReport(LocalDate date) {
-        List<ReconciliationRecord> records = reconciliationRecordRepository.findByReconciliationDate(date);
-        return buildReconciliationReport(records, date);
+        return getReconciliationReport(date, null, null, null);
     }
 
-    public void exportReconciliationToCsv(LocalDate date, OutputStream outputStream) throws IOException {
-        List<ReconciliationRecord> records = reconciliationRecordRepository.findByReconciliationDate(date);
-
-        try (CSVWriter writer = new CSVWriter(new OutputStreamWriter(outputStream))) {
-            // Write header
-            writer.writeNext(new String[]{
-                    "Reconciliation ID", "Internal Transaction ID", "External Transaction ID",
-                    "Internal Amount", "External Amount", "Status", "Discrepancy Amount", "Reason"
-            });
-
-            // Write data
-            for (ReconciliationRecord record : records) {
-                writer.writeNext(new String[]{
-                        record.getReconciliationId(),
-                        record.getInternalTransactionId() != null ? record.getInternalTransactionId() : "",
-                        record.getExternalTransactionId() != null ? record.getExternalTransactionId() : "",
-                        record.getInternalAmount() != null ? record.getInternalAmount().toString() : "",
-                        record.getExternalAmount() != null ? record.getExternalAmount().toString() : "",
-                        String.valueOf(record.getStatus()),
-                        record.getDiscrepancyAmount() != null ? record.getDiscrepancyAmount().toString() : "",
-                        record.getDiscrepancyReason() != null ? record.getDiscrepancyReason() : ""
-                });
-            }
-        }
+    /**
+     * Report for a day: a summary aggregated in the database plus one keyset page of records.
+     * @param statuses Statuses to list; defaults to every status except MATCHED.
+     * @param afterId Cursor from the previous page's {@code nextCursor}; null for the first page.
+     * @param limit Page size, capped at {@code wallet.reconciliation.report.max-page-size}.
+     */
+    @Transactional(readOnly = true)
+    public ReconciliationReport getReconciliationReport(LocalDate date, Set<ReconciliationStatus> statuses,
+                                                        Long afterId, Integer limit) {
+        return buildReconciliationReport(
+                date,
+                statuses == null || statuses.isEmpty() ? DISCREPANCY_STATUSES : statuses,
+                afterId != null ? afterId : 0L,
+                limit != null ? Math.max(1, Math.min(limit, reportMaxPageSize)) : reportPageSize);
     }
 
     @Scheduled(cron = "0 0 2 * * *")
     public void scheduledReconciliation() {
+        if (incrementalEnabled) {
+            // IncrementalReconciler finalizes each day at its cutoff instead
+            return;
+        }
         LocalDate yesterday = LocalDate.now().minusDays(1);
+        if (reconciliationMatchSummaryRepository.existsByReconciliationDateAndDigestReconciledAtIsNotNull(yesterday)) {
+            log.info("Skipping scheduled reconciliation for {}, already reconciled by digest comparison", yesterday);
+            return;
+        }
         try {
             runReconciliation(yesterday);
             log.info("Scheduled reconciliation completed for {}", yesterday);
@@ -117,66 +190,414 @@ public class ReconciliationService {
     }
 
 
-    private List<ReconciliationRecord> performReconciliation(
-            List<Transaction> internalTransactions,
+    List<ReconciliationRecord> performReconciliation(
+            List<LedgerEntry> internalTransactions,
+            List<ExternalTransaction> externalTransactions,
+            LocalDate date) {
+
+        if (digestPrecompare) {
+            return performDigestReconciliation(internalTransactions, externalTransactions, date);
+        }
+        if (matchPartitions <= 1 || internalTransactions.size() + externalTransactions.size() < parallelMatchThreshold) {
+            IndexedMatcher matcher = newMatcher(internalTransactions, date);
+            List<ReconciliationRecord> records = new ArrayList<>();
+            externalTransactions.forEach(external -> matcher.match(external, records::add));
+            matcher.finish(records::add);
+            return records;
+        }
+        return performPartitionedReconciliation(internalTransactions, externalTransactions, date);
+    }
+
+    /**
+     * Every match key starts with the customer id, so rows of different customers can never match.
+     * Both sides are split into buckets by customer hash and each bucket is matched independently on a
+     * ForkJoinPool. Each record is tagged with the position it would have in the single-threaded output
+     * (external index, or external count + internal index for MISSING_EXTERNAL), and the buckets are
+     * merged back on that position, so the result is the same list in the same order.
+     */
+    private List<ReconciliationRecord> performPartitionedReconciliation(
+            List<LedgerEntry> internalTransactions,
             List<ExternalTransaction> externalTransactions,
             LocalDate date) {
 
-        // Create lookup map for internal transactions using a composite key
-        Map<String, Transaction> internalMap = internalTransactions.stream()
-                .collect(Collectors.toMap(
-                        this::generateInternalMatchKey,
-                        Function.identity(),
-                        (existing, replacement) -> existing
-                ));
-
-        // Create lookup map for external transactions using a composite key
-        Map<String, ExternalTransaction> externalMap = externalTransactions.stream()
-                .collect(Collectors.toMap(
-                        this::generateExternalMatchKey,
-                        Function.identity(),
-                        (existing, replacement) -> existing
-                ));
+        int[][] internalBuckets = partition(internalTransactions.size(), i -> internalTransactions.get(i).getCustomerId());
+        int[][] externalBuckets = partition(externalTransactions.size(), i -> externalTransactions.get(i).getCustomerId());
+        int externalCount = externalTransactions.size();
+
+        List<Callable<PositionedRecords>> tasks = new ArrayList<>(matchPartitions);
+        for (int bucket = 0; bucket < matchPartitions; bucket++) {
+            int[] internalIndexes = internalBuckets[bucket];
+            int[] externalIndexes = externalBuckets[bucket];
+            tasks.add(() -> {
+                List<LedgerEntry> internals = new ArrayList<>(internalIndexes.length);
+                for (int index : internalIndexes) {
+                    internals.add(internalTransactions.get(index));
+                }
+                IndexedMatcher matcher = newMatcher(internals, date);
+                PositionedRecords output = new PositionedRecords();
+                for (int index : externalIndexes) {
+                    matcher.match(externalTransactions.get(index), record -> output.add(index, record));
+                }
+                matcher.finishIndexed((record, local) -> output.add(externalCount + internalIndexes[local], record));
+                return output;
+            });
+        }
 
+        List<PositionedRecords> outputs = new ArrayList<>(matchPartitions);
+        ForkJoinPool pool = new ForkJoinPool(matchParallelism > 0 ? matchParallelism : Runtime.getRuntime().availableProcessors());
+        try {
+            for (Future<PositionedRecords> future : pool.invokeAll(tasks)) {
+                outputs.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while matching reconciliation partitions", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Failed to match reconciliation partitions", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        return PositionedRecords.merge(outputs);
+    }
+
+    // Buckets of row indexes by customer hash
+    private int[][] partition(int size, IntFunction<String> customerOf) {
+        int[] bucketOf = new int[size];
+        for (int i = 0; i < size; i++) {
+            String customerId = customerOf.apply(i);
+            bucketOf[i] = Math.floorMod(customerId == null ? 0 : customerId.hashCode(), matchPartitions);
+        }
+        return groupByBucket(bucketOf, matchPartitions);
+    }
+
+    // Counting sort of row indexes into buckets; indexes stay ascending within a bucket
+    private static int[][] groupByBucket(int[] bucketOf, int bucketCount) {
+        int[] counts = new int[bucketCount];
+        for (int bucket : bucketOf) {
+            counts[bucket]++;
+        }
+        int[][] buckets = new int[bucketCount][];
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            buckets[bucket] = new int[counts[bucket]];
+            counts[bucket] = 0;
+        }
+        for (int i = 0; i < bucketOf.length; i++) {
+            buckets[bucketOf[i]][counts[bucketOf[i]]++] = i;
+        }
+        return buckets;
+    }
+
+    /**
+     * Pre-comparison mode: both sides are first digested per customer bucket ({@link BucketDigest}) and only the
+     * rows of buckets whose digests differ go through the matcher. A clean bucket holds the same keys on both
+     * sides, so its rows are paired by sorting each side on the row hash and zipping; should the zip ever meet
+     * two different keys (a digest collision), the bucket is matched row by row after all. Records come out in
+     * the same order as from plain matching, except that duplicate keys in a clean bucket pair off one-to-one.
+     */
+    private List<ReconciliationRecord> performDigestReconciliation(
+            List<LedgerEntry> internalTransactions,
+            List<ExternalTransaction> externalTransactions,
+            LocalDate date) {
+
+        BucketDigest internalDigest = new BucketDigest(date, digestBucketBits);
+        int[] internalBucketOf = new int[internalTransactions.size()];
+        long[] internalHashes = new long[internalTransactions.size()];
+        for (int i = 0; i < internalTransactions.size(); i++) {
+            LedgerEntry internal = internalTransactions.get(i);
+            internalBucketOf[i] = internalDigest.bucketOf(BucketDigest.customerHash(internal.getCustomerId()));
+            internalHashes[i] = BucketDigest.rowHash(
+                    internal.getCustomerId(), internal.getAmount(), internal.getType(), internal.getCreatedAt().toLocalDate());
+            internalDigest.add(internalBucketOf[i], internalHashes[i], internal.getAmount());
+        }
+        BucketDigest externalDigest = new BucketDigest(date, digestBucketBits);
+        int[] externalBucketOf = new int[externalTransactions.size()];
+        long[] externalHashes = new long[externalTransactions.size()];
+        for (int i = 0; i < externalTransactions.size(); i++) {
+            ExternalTransaction external = externalTransactions.get(i);
+            externalBucketOf[i] = externalDigest.bucketOf(BucketDigest.customerHash(external.getCustomerId()));
+            externalHashes[i] = BucketDigest.rowHash(
+                    external.getCustomerId(), external.getAmount(), external.getType(), external.getTransactionDate());
+            externalDigest.add(externalBucketOf[i], externalHashes[i], external.getAmount());
+        }
+
+        BitSet differing = internalDigest.differingBuckets(externalDigest);
+        int[][] internalBuckets = groupByBucket(internalBucketOf, internalDigest.bucketCount());
+        int[][] externalBuckets = groupByBucket(externalBucketOf, externalDigest.bucketCount());
+        int[] pairedInternal = new int[externalTransactions.size()];
+        Arrays.fill(pairedInternal, -1);
+        for (int bucket = differing.nextClearBit(0); bucket < internalDigest.bucketCount(); bucket = differing.nextClearBit(bucket + 1)) {
+            if (!pairCleanBucket(internalBuckets[bucket], internalHashes, internalTransactions,
+                    externalBuckets[bucket], externalHashes, externalTransactions, pairedInternal)) {
+                differing.set(bucket);
+            }
+        }
+
+        List<LedgerEntry> dirtyInternals = new ArrayList<>();
+        for (int i = 0; i < internalTransactions.size(); i++) {
+            if (differing.get(internalBucketOf[i])) {
+                dirtyInternals.add(internalTransactions.get(i));
+            }
+        }
+        log.info("Digest pre-comparison for {}: {} of {} buckets differ, {} of {} internal rows left to match",
+                date, differing.cardinality(), internalDigest.bucketCount(), dirtyInternals.size(), internalTransactions.size());
+
+        IndexedMatcher matcher = newMatcher(dirtyInternals, date);
         List<ReconciliationRecord> records = new ArrayList<>();
-        Set<String> matchedInternalKeys = new HashSet<>();
-        Set<String> matchedExternalKeys = new HashSet<>();
-
-        // Phase 1: Match internal transactions with external transactions
-        for (Transaction internal : internalTransactions) {
-            String internalKey = generateInternalMatchKey(internal);
-            ExternalTransaction external = externalMap.get(internalKey);
-
-            if (external != null) {
-                // Found a match
-                records.add(createReconciliationRecord(internal, external, date));
-                matchedInternalKeys.add(internalKey);
-                matchedExternalKeys.add(internalKey);
+        for (int i = 0; i < externalTransactions.size(); i++) {
+            ExternalTransaction external = externalTransactions.get(i);
+            if (pairedInternal[i] >= 0) {
+                records.add(createReconciliationRecord(internalTransactions.get(pairedInternal[i]), external, date));
             } else {
-                // Internal transaction potentially missing in external report
-                // This will be handled in Phase 2 if it's not a true match
+                matcher.match(external, records::add);
             }
         }
+        matcher.finish(records::add);
+        return records;
+    }
 
-        // Phase 2: Identify mismatches and missing records
-        // Add records for internal transactions not matched in Phase 1
-        internalTransactions.stream()
-                .filter(internal -> !matchedInternalKeys.contains(generateInternalMatchKey(internal)))
-                .forEach(internal -> records.add(createMissingExternalRecord(internal, date)));
+    // Zips a clean bucket's rows in row-hash order; false (pairing nothing) if two zipped rows differ in key
+    private static boolean pairCleanBucket(int[] internalIndexes, long[] internalHashes, List<LedgerEntry> internalTransactions,
+                                           int[] externalIndexes, long[] externalHashes, List<ExternalTransaction> externalTransactions,
+                                           int[] pairedInternal) {
+        int[] internals = internalIndexes.clone();
+        int[] externals = externalIndexes.clone();
+        MatchCandidateIndex.stableSort(internals, (a, b) -> Long.compare(internalHashes[a], internalHashes[b]));
+        MatchCandidateIndex.stableSort(externals, (a, b) -> Long.compare(externalHashes[a], externalHashes[b]));
+        for (int i = 0; i < externals.length; i++) {
+            LedgerEntry internal = internalTransactions.get(internals[i]);
+            ExternalTransaction external = externalTransactions.get(externals[i]);
+            if (!Objects.equals(internal.getCustomerId(), external.getCustomerId())
+                    || !Objects.equals(internal.getAmount(), external.getAmount())
+                    || internal.getType() != external.getType()
+                    || !internal.getCreatedAt().toLocalDate().equals(external.getTransactionDate())) {
+                return false;
+            }
+        }
+        for (int i = 0; i < externals.length; i++) {
+            pairedInternal[externals[i]] = internals[i];
+        }
+        return true;
+    }
 
-        // Add records for external transactions not matched in Phase 1
-        externalTransactions.stream()
-                .filter(external -> !matchedExternalKeys.contains(generateExternalMatchKey(external)))
-                .forEach(external -> records.add(createMissingInternalRecord(external, date)));
+    /**
+     * Digest of the day's completed ledger entries, to hand to a partner or compare with theirs.
+     */
+    @Transactional(readOnly = true)
+    public BucketDigest computeLedgerDigest(LocalDate date, int bucketBits) {
+        BucketDigest digest = new BucketDigest(date, bucketBits);
+        try (Stream<LedgerEntry> ledger = transactionRepository.streamCompletedLedgerEntriesByDate(date)) {
+            ledger.forEach(internal -> digest.add(
+                    internal.getCustomerId(), internal.getAmount(), internal.getType(), internal.getCreatedAt().toLocalDate()));
+        }
+        return digest;
+    }
 
-        return records;
+    @Transactional(readOnly = true)
+    public BucketDigest computeLedgerDigest(LocalDate date) {
+        return computeLedgerDigest(date, digestBucketBits);
     }
 
-    private ReconciliationRecord createReconciliationRecord(
-            Transaction internal, ExternalTransaction external, LocalDate date) {
+    /**
+     * Compares a partner's digest of the day with the ledger's, bucket by bucket. When every bucket agrees the
+     * day is reconciled without exchanging a single row and its ledger entries become the day's match summary;
+     * otherwise the differing buckets are returned so that only their rows need to be exchanged.
+     * A clean comparison may be repeated, but is rejected for a day that already has output from a
+     * row-level reconciliation run; likewise row-level runs are rejected for a day reconciled this way.
+     */
+    @Transactional
+    public ReconciliationDigestComparison compareDigest(LocalDate date, BucketDigest partnerDigest) {
+        if (!date.equals(partnerDigest.getDate())) {
+            throw new IllegalArgumentException("Digest is for " + partnerDigest.getDate() + ", not " + date);
+        }
+        BucketDigest ledgerDigest = computeLedgerDigest(date, partnerDigest.getBucketBits());
+        BitSet differing = ledgerDigest.differingBuckets(partnerDigest);
+        boolean clean = differing.isEmpty();
+        if (clean && ledgerDigest.rowCount() > 0) {
+            recordDigestMatches(date, ledgerDigest);
+        }
+        log.info("Digest comparison for {}: {} of {} buckets differ", date, differing.cardinality(), ledgerDigest.bucketCount());
+
+        return ReconciliationDigestComparison.builder()
+                .date(date)
+                .bucketBits(ledgerDigest.getBucketBits())
+                .ledgerRows(ledgerDigest.rowCount())
+                .partnerRows(partnerDigest.rowCount())
+                .differingBuckets(differing.stream().boxed().toList())
+                .clean(clean)
+                .build();
+    }
+
+    // Replaces the totals of an earlier clean comparison, so repeating one leaves the day unchanged
+    private void recordDigestMatches(LocalDate date, BucketDigest ledgerDigest) {
+        Optional<ReconciliationMatchSummary> existing = reconciliationMatchSummaryRepository.findById(date);
+        boolean summarizedByRuns = existing.isPresent() && existing.get().getDigestReconciledAt() == null;
+        if (summarizedByRuns || reconciliationRecordRepository.existsByReconciliationDate(date)) {
+            throw new IllegalStateException("Reconciliation output already exists for " + date);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        ReconciliationMatchSummary summary = existing.orElseGet(() -> ReconciliationMatchSummary.builder()
+                .reconciliationDate(date)
+                .build());
+        summary.setMatchedCount(ledgerDigest.rowCount());
+        summary.setMatchedAmount(ledgerDigest.amount());
+        summary.setUpdatedAt(now);
+        summary.setDigestReconciledAt(now);
+        reconciliationMatchSummaryRepository.save(summary);
+    }
+
+    // The digest totals already cover every ledger entry of the day; row-level output would count them again
+    private void rejectIfDigestReconciled(LocalDate date) {
+        if (reconciliationMatchSummaryRepository.existsByReconciliationDateAndDigestReconciledAtIsNotNull(date)) {
+            throw new IllegalStateException(date + " was already reconciled by digest comparison");
+        }
+    }
+
+    private static final class PositionedRecords {
+        private long[] positions = new long[16];
+        private final List<ReconciliationRecord> records = new ArrayList<>();
+
+        private void add(long position, ReconciliationRecord record) {
+            if (records.size() == positions.length) {
+                positions = Arrays.copyOf(positions, positions.length * 2);
+            }
+            positions[records.size()] = position;
+            records.add(record);
+        }
+
+        // k-way merge of outputs that are each ascending by position
+        private static List<ReconciliationRecord> merge(List<PositionedRecords> outputs) {
+            int total = outputs.stream().mapToInt(output -> output.records.size()).sum();
+            List<ReconciliationRecord> merged = new ArrayList<>(total);
+            int[] cursors = new int[outputs.size()];
+            PriorityQueue<Integer> heads = new PriorityQueue<>(Math.max(1, outputs.size()),
+                    Comparator.comparingLong(o -> outputs.get(o).positions[cursors[o]]));
+            for (int o = 0; o < outputs.size(); o++) {
+                if (!outputs.get(o).records.isEmpty()) {
+                    heads.add(o);
+                }
+            }
+            while (!heads.isEmpty()) {
+                int o = heads.poll();
+                PositionedRecords output = outputs.get(o);
+                long position = output.positions[cursors[o]];
+                // Records sharing a position (one external matching several internals) stay together
+                do {
+                    merged.add(output.records.get(cursors[o]++));
+                } while (cursors[o] < output.records.size() && output.positions[cursors[o]] == position);
+                if (cursors[o] < output.records.size()) {
+                    heads.add(o);
+                }
+            }
+            return merged;
+        }
+    }
+
+    private IndexedMatcher newMatcher(List<LedgerEntry> internalTransactions, LocalDate date) {
+        return "tolerant".equalsIgnoreCase(matchEngine)
+                ? new TolerantMatcher(internalTransactions, date)
+                : new KeyedMatcher(internalTransactions, date);
+    }
+
+    private interface IndexedMatcher extends ReconciliationPipeline.Matcher {
+        // Emits MISSING_EXTERNAL records in internal order together with each internal's index
+        void finishIndexed(ObjIntConsumer<ReconciliationRecord> out);
+
+        @Override
+        default void finish(Consumer<ReconciliationRecord> out) {
+            finishIndexed((record, position) -> out.accept(record));
+        }
+    }
+
+    /**
+     * Matches external rows one at a time against an index of the day's internal transactions.
+     * Internal transactions sharing a key all match the first external row with that key; later
+     * external rows with an already matched key are dropped, and unmatched ones are MISSING_INTERNAL.
+     * Keys are packed into a {@link MatchKeyIndex} rather than built as strings per row.
+     */
+    private final class KeyedMatcher implements IndexedMatcher {
+        private final LocalDate date;
+        private final List<LedgerEntry> internalTransactions;
+        private final MatchKeyIndex index;
+
+        private KeyedMatcher(List<LedgerEntry> internalTransactions, LocalDate date) {
+            this.date = date;
+            this.internalTransactions = internalTransactions;
+            this.index = new MatchKeyIndex(internalTransactions.size());
+            for (LedgerEntry internal : internalTransactions) {
+                index.add(internal.getCustomerId(), internal.getAmount(), internal.getType(), internal.getCreatedAt().toLocalDate());
+            }
+        }
+
+        @Override
+        public void match(ExternalTransaction external, Consumer<ReconciliationRecord> out) {
+            int key = index.find(external.getCustomerId(), external.getAmount(), external.getType(), external.getTransactionDate());
+            if (key == MatchKeyIndex.ABSENT) {
+                out.accept(createMissingInternalRecord(external, date));
+                return;
+            }
+            if (index.isMatched(key)) {
+                return;
+            }
+            for (int row = index.firstRow(key); row != MatchKeyIndex.ABSENT; row = index.nextRow(row)) {
+                out.accept(createReconciliationRecord(internalTransactions.get(row), external, date));
+            }
+            index.markMatched(key);
+        }
+
+        @Override
+        public void finishIndexed(ObjIntConsumer<ReconciliationRecord> out) {
+            for (int i = 0; i < internalTransactions.size(); i++) {
+                if (!index.isMatched(index.keyOfRow(i))) {
+                    out.accept(createMissingExternalRecord(internalTransactions.get(i), date), i);
+                }
+            }
+        }
+    }
+
+    /**
+     * One-to-one matching: each external row claims at most one internal transaction of the same customer
+     * and type whose amount and date are within the configured tolerances, preferring the closest amount and
+     * then the closest date. Duplicate payments on both sides pair off instead of collapsing onto one row.
+     * A pair whose amounts differ is recorded as AMOUNT_MISMATCH with its discrepancy.
+     */
+    private final class TolerantMatcher implements IndexedMatcher {
+        private final LocalDate date;
+        private final List<LedgerEntry> internalTransactions;
+        private final MatchCandidateIndex candidates;
+
+        private TolerantMatcher(List<LedgerEntry> internalTransactions, LocalDate date) {
+            this.date = date;
+            this.internalTransactions = internalTransactions;
+            this.candidates = new MatchCandidateIndex(internalTransactions, amountTolerance, dateToleranceDays);
+        }
+
+        @Override
+        public void match(ExternalTransaction external, Consumer<ReconciliationRecord> out) {
+            int row = candidates.claim(external.getCustomerId(), external.getType(), external.getAmount(), external.getTransactionDate());
+            out.accept(row == MatchCandidateIndex.NONE
+                    ? createMissingInternalRecord(external, date)
+                    : createReconciliationRecord(internalTransactions.get(row), external, date));
+        }
+
+        @Override
+        public void finishIndexed(ObjIntConsumer<ReconciliationRecord> out) {
+            for (int i = 0; i < internalTransactions.size(); i++) {
+                if (!candidates.isClaimed(i)) {
+                    out.accept(createMissingExternalRecord(internalTransactions.get(i), date), i);
+                }
+            }
+        }
+    }
+
+    ReconciliationRecord createReconciliationRecord(
+            LedgerEntry internal, ExternalTransaction external, LocalDate date) {
 
         ReconciliationRecord.ReconciliationRecordBuilder builder = ReconciliationRecord.builder()
-                .reconciliationId(UUID.randomUUID().toString())
+                .reconciliationId(idGenerator.nextId())
                 .reconciliationDate(date)
                 .internalTransactionId(internal.getTransactionId())
                 .externalTransactionId(external.getTransactionId())
@@ -197,9 +618,9 @@ public class ReconciliationService {
         return builder.build();
     }
 
-    private ReconciliationRecord createMissingExternalRecord(Transaction internal, LocalDate date) {
+    ReconciliationRecord createMissingExternalRecord(LedgerEntry internal, LocalDate date) {
         return ReconciliationRecord.builder()
-                .reconciliationId(UUID.randomUUID().toString())
+                .reconciliationId(idGenerator.nextId())
                 .reconciliationDate(date)
                 .internalTransactionId(internal.getTransactionId())
                 .internalAmount(internal.getAmount())
@@ -209,9 +630,9 @@ public class ReconciliationService {
                 .build();
     }
 
-    private ReconciliationRecord createMissingInternalRecord(ExternalTransaction external, LocalDate date) {
+    ReconciliationRecord createMissingInternalRecord(ExternalTransaction external, LocalDate date) {
         return ReconciliationRecord.builder()
-                .reconciliationId(UUID.randomUUID().toString())
+                .reconciliationId(idGenerator.nextId())
                 .reconciliationDate(date)
                 .externalTransactionId(external.getTransactionId())
                 .externalAmount(external.getAmount())
@@ -221,43 +642,56 @@ public class ReconciliationService {
                 .build();
     }
 
-    private ReconciliationReport buildReconciliationReport(List<ReconciliationRecord> records, LocalDate date) {
-        Map<ReconciliationStatus, Long> statusCounts = records.stream()
-                .collect(Collectors.groupingBy(ReconciliationRecord::getStatus, Collectors.counting()));
-
-        BigDecimal totalAmount = records.stream()
-                .filter(r -> r.getInternalAmount() != null || r.getExternalAmount() != null)
-                .map(r -> r.getInternalAmount() != null ? r.getInternalAmount() : r.getExternalAmount())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal matchedAmount = records.stream()
-                .filter(r -> r.getStatus() == ReconciliationStatus.MATCHED)
-                .map(ReconciliationRecord::getInternalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        List<ReconciliationRecord> discrepancies = records.stream()
-                .filter(r -> r.getStatus() != ReconciliationStatus.MATCHED)
-                .collect(Collectors.toList());
+    private ReconciliationReport buildReconciliationReport(LocalDate date, Set<ReconciliationStatus> statuses,
+                                                           long afterId, int limit) {
+        int total = 0;
+        int matched = 0;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        BigDecimal matchedAmount = BigDecimal.ZERO;
+        for (ReconciliationStatusTotals totals : reconciliationRecordRepository.sumByStatus(date)) {
+            total += totals.getCount().intValue();
+            if (totals.getAmount() != null) {
+                totalAmount = totalAmount.add(totals.getAmount());
+            }
+            if (totals.getStatus() == ReconciliationStatus.MATCHED) {
+                matched = totals.getCount().intValue();
+                if (totals.getInternalAmount() != null) {
+                    matchedAmount = totals.getInternalAmount();
+                }
+            }
+        }
+        // Matches counted without a record of their own (wallet.reconciliation.storage=discrepancies)
+        Optional<ReconciliationMatchSummary> matchSummary = reconciliationMatchSummaryRepository.findById(date);
+        if (matchSummary.isPresent()) {
+            int summarized = matchSummary.get().getMatchedCount().intValue();
+            total += summarized;
+            matched += summarized;
+            totalAmount = totalAmount.add(matchSummary.get().getMatchedAmount());
+            matchedAmount = matchedAmount.add(matchSummary.get().getMatchedAmount());
+        }
 
         ReconciliationSummary summary = ReconciliationSummary.builder()
-                .totalTransactions(records.size())
-                .matched(statusCounts.getOrDefault(ReconciliationStatus.MATCHED, 0L).intValue())
-                .mismatched(records.size() - statusCounts.getOrDefault(ReconciliationStatus.MATCHED, 0L).intValue())
+                .totalTransactions(total)
+                .matched(matched)
+                .mismatched(total - matched)
                 .totalAmount(totalAmount)
                 .matchedAmount(matchedAmount)
                 .discrepancyAmount(totalAmount.subtract(matchedAmount))
                 .build();
 
+        List<ReconciliationDiscrepancy> discrepancies = statuses.contains(ReconciliationStatus.MATCHED)
+                ? reconciliationRecordRepository.findRecordPage(date, statuses, afterId, Limit.of(limit))
+                : reconciliationRecordRepository.findDiscrepancyPage(date, statuses, afterId, Limit.of(limit));
+
         return ReconciliationReport.builder()
                 .date(date)
                 .summary(summary)
                 .discrepancies(discrepancies)
+                .nextCursor(discrepancies.size() == limit ? discrepancies.get(limit - 1).getId() : null)
                 .build();
     }
 
-    private List<ExternalTransaction> parseCSVFile(MultipartFile file) throws IOException {
-        List<ExternalTransaction> transactions = new ArrayList<>();
-
+    private void parseCSVFile(MultipartFile file, Consumer<ExternalTransaction> sink) throws IOException {
         try (CSVReader reader = new CSVReader(new InputStreamReader(file.getInputStream()))) {
             reader.skip(1); // Skip header row
             String[] nextLine;
@@ -272,51 +706,133 @@ public class ReconciliationService {
                                 .type(TransactionType.valueOf(nextLine[3].trim().toUpperCase()))
                                 .transactionDate(LocalDate.parse(nextLine[4].trim()))
                                 .build();
-                        transactions.add(transaction);
-                    } catch (IllegalArgumentException e) {
+                        sink.accept(transaction);
+                    } catch (IllegalArgumentException | DateTimeParseException e) {
                         log.warn("Skipping invalid row: {}", Arrays.toString(nextLine));
                     }
                 }
             }
         } catch (CsvValidationException e) {
-            throw new RuntimeException(e);
+            throw new IOException("Invalid CSV report", e);
+        }
+    }
+
+    private void parseJsonFile(MultipartFile file, Consumer<ExternalTransaction> sink) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            externalReportJsonReader.read(inputStream, sink);
         }
+    }
 
-        return transactions;
+    // Streams the external report through parse -> match -> persist; only the internal side of the day
+    // and a bounded number of in-flight chunks are held in memory
+    private long processAndSaveReconciliation(ReconciliationPipeline.Source externalTransactions, LocalDate date) throws IOException {
+        rejectIfDigestReconciled(date);
+        if ("sort-merge".equalsIgnoreCase(matchStrategy)) {
+            return processWithSortMerge(externalTransactions, date);
+        }
+        List<LedgerEntry> internalTransactions = transactionRepository.findCompletedLedgerEntriesByDate(date);
+        IndexedMatcher matcher = newMatcher(internalTransactions, date);
+
+        return new ReconciliationPipeline(ingestChunkSize, ingestQueueCapacity)
+                .run(externalTransactions, matcher, this::saveReconciliationRecords);
     }
 
-    private List<ExternalTransaction> parseJsonFile(MultipartFile file) throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.findAndRegisterModules(); // Register Java 8 Date/Time modules
-        try {
-            return Arrays.asList(objectMapper.readValue(file.getBytes(), ExternalTransaction[].class));
-        } catch (JsonProcessingException e) {
-            throw new IOException("Failed to parse JSON file", e);
+    /**
+     * Out-of-core variant for days that do not fit in memory: both sides are externally sorted by match key
+     * into spill files and merge-joined in one sequential pass. Produces the same records as {@link KeyedMatcher}
+     * (grouped by key rather than in report order) while holding at most the configured memory budget of rows.
+     */
+    private long processWithSortMerge(ReconciliationPipeline.Source externalTransactions, LocalDate date) throws IOException {
+        Path directory = Path.of(spillDirectory.isBlank() ? System.getProperty("java.io.tmpdir") : spillDirectory);
+        Files.createDirectories(directory);
+        // Both sorters are open during the merge, so each gets half of the budget
+        long sideBudget = spillMemoryBudgetMb * 1024L * 1024L / 2;
+
+        try (SpillSorter internals = new SpillSorter(directory, sideBudget);
+             SpillSorter externals = new SpillSorter(directory, sideBudget)) {
+            try (Stream<LedgerEntry> ledger = transactionRepository.streamCompletedLedgerEntriesByDate(date)) {
+                ledger.forEach(internal -> internals.add(
+                        generateInternalMatchKey(internal), internal.getTransactionId(), internal.getAmount()));
+            }
+            try {
+                externalTransactions.emit(external -> externals.add(
+                        generateExternalMatchKey(external), external.getTransactionId(), external.getAmount()));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            log.info("Sorted {} internal and {} external transactions for {} into {} + {} spill runs",
+                    internals.size(), externals.size(), date, internals.runCount(), externals.runCount());
+
+            SpillSorter.RowIterator internalRows = internals.sorted();
+            SpillSorter.RowIterator externalRows = externals.sorted();
+            SpillSorter.Row internal = internalRows.hasNext() ? internalRows.next() : null;
+            SpillSorter.Row external = externalRows.hasNext() ? externalRows.next() : null;
+            List<ReconciliationRecord> chunk = new ArrayList<>(ingestChunkSize);
+
+            while (internal != null || external != null) {
+                int order = internal == null ? 1 : external == null ? -1 : internal.key().compareTo(external.key());
+                if (order < 0) {
+                    chunk.add(createMissingExternalRecord(toLedgerEntry(internal), date));
+                    internal = internalRows.hasNext() ? internalRows.next() : null;
+                } else if (order > 0) {
+                    chunk.add(createMissingInternalRecord(toExternalTransaction(external), date));
+                    external = externalRows.hasNext() ? externalRows.next() : null;
+                } else {
+                    // The first external row of a key matches all internals of the key; later ones are
+                    // dropped, as in KeyedMatcher
+                    String key = external.key();
+                    ExternalTransaction matched = toExternalTransaction(external);
+                    while (internal != null && internal.key().equals(key)) {
+                        chunk.add(createReconciliationRecord(toLedgerEntry(internal), matched, date));
+                        internal = internalRows.hasNext() ? internalRows.next() : null;
+                    }
+                    do {
+                        external = externalRows.hasNext() ? externalRows.next() : null;
+                    } while (external != null && external.key().equals(key));
+                }
+                if (chunk.size() >= ingestChunkSize) {
+                    saveReconciliationRecords(chunk);
+                    chunk = new ArrayList<>(ingestChunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                saveReconciliationRecords(chunk);
+            }
+            return externals.size();
         }
     }
 
-    private void processAndSaveReconciliation(List<ExternalTransaction> externalTransactions, LocalDate date) {
-        List<Transaction> internalTransactions = transactionRepository.findCompletedTransactionsByDate(date);
+    private static LedgerEntry toLedgerEntry(SpillSorter.Row row) {
+        return LedgerEntry.builder()
+                .transactionId(row.transactionId())
+                .amount(row.amount())
+                .build();
+    }
 
-        List<ReconciliationRecord> reconciliationRecords = performReconciliation(
-                internalTransactions, externalTransactions, date
-        );
-        reconciliationRecordRepository.saveAll(reconciliationRecords);
+    private static ExternalTransaction toExternalTransaction(SpillSorter.Row row) {
+        return ExternalTransaction.builder()
+                .transactionId(row.transactionId())
+                .amount(row.amount())
+                .build();
+    }
+
+    private void saveReconciliationRecords(List<ReconciliationRecord> records) {
+        reconciliationRecordWriter.write(records);
     }
 
     // Mock external transactions for demo purposes
     private List<ExternalTransaction> getMockExternalTransactions(
-            List<Transaction> internalTransactions, LocalDate date) {
+            List<LedgerEntry> internalTransactions, LocalDate date) {
 
         List<ExternalTransaction> externalTransactions = new ArrayList<>();
         Random random = new Random();
 
-        for (Transaction internal : internalTransactions) {
+        for (LedgerEntry internal : internalTransactions) {
             if (random.nextDouble() < 0.9) { // 90% chance of a matching transaction
                 externalTransactions.add(ExternalTransaction.builder()
                         .transactionId("EXT-" + internal.getTransactionId())
                         .amount(internal.getAmount())
-                        .customerId(internal.getWallet().getCustomerId())
+                        .customerId(internal.getCustomerId())
                         .type(internal.getType())
                         .transactionDate(date)
                         .build());
@@ -325,7 +841,7 @@ public class ReconciliationService {
                 externalTransactions.add(ExternalTransaction.builder()
                         .transactionId("EXT-" + internal.getTransactionId())
                         .amount(internal.getAmount().subtract(discrepancy))
-                        .customerId(internal.getWallet().getCustomerId())
+                        .customerId(internal.getCustomerId())
                         .type(internal.getType())
                         .transactionDate(date)
                         .build());
@@ -353,6 +869,7 @@ public class ReconciliationService {
     // Helper class for external transaction data
     @lombok.Data
     @lombok.Builder
+    @lombok.extern.jackson.Jacksonized
     public static class ExternalTransaction {
         private String transactionId;
         private BigDecimal amount;
@@ -361,8 +878,8 @@ public class ReconciliationService {
         private LocalDate transactionDate;
     }
 
-    private String generateInternalMatchKey(Transaction internal) {
-        return internal.getWallet().getCustomerId() + "|" + internal.getAmount() + "|" + internal.getType() + "|" + internal.getCreatedAt().toLocalDate();
+    private String generateInternalMatchKey(LedgerEntry internal) {
+        return internal.getCustomerId() + "|" + internal.getAmount() + "|" + internal.getType() + "|" + internal.getCreatedAt().toLocalDate();
     }
 
     private String generateExternalMatchKey(ExternalTransaction external) {
@@ -0,0 +1,58 @@
+package com.javaguy.wallet_settlement.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered, node-unique ids in the Snowflake style, rendered as 13 Crockford base32 characters.
+ * Layout of the 63-bit value: milliseconds since 2025-01-01 (41 bits), per-millisecond sequence (12 bits), node (10 bits).
+ * Ids from one node sort in issue order, both numerically and as strings, so inserts append to the right
+ * edge of the index. Generation is a single CAS on an {@link AtomicLong}: when the sequence for a millisecond
+ * runs out, or the wall clock steps back, it simply carries into the timestamp instead of blocking.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    private static final long EPOCH_MILLIS = 1735689600000L;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long nodeId;
+
+    // (millis since epoch << SEQUENCE_BITS) | sequence, for the last id handed out
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String nextId() {
+        return encode(nextLong());
+    }
+
+    public long nextLong() {
+        while (true) {
+            long last = lastState.get();
+            long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+            long next = now > last ? now : last + 1;
+            if (lastState.compareAndSet(last, next)) {
+                return (next << NODE_BITS) | nodeId;
+            }
+        }
+    }
+
+    static String encode(long value) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+}
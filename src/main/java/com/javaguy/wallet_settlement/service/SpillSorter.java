@@ -0,0 +1,221 @@
+package com.javaguy.wallet_settlement.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * External merge sort of (match key, transaction id, amount) rows for out-of-core reconciliation.
+ * Rows are buffered until their estimated heap footprint reaches the memory budget, then sorted and
+ * written to a run file; {@link #sorted()} merges the runs back into one stream ordered by key.
+ * Ties keep insertion order, so the first row added for a key is also the first one read back.
+ * The budget also caps the merge fan-in, each open run costing one read buffer; with more runs
+ * than that, runs are merged in several passes.
+ */
+final class SpillSorter implements Closeable {
+
+    record Row(String key, long sequence, String transactionId, BigDecimal amount) {
+    }
+
+    private static final Comparator<Row> ORDER = Comparator.comparing(Row::key).thenComparingLong(Row::sequence);
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+    // Object headers, references and the BigDecimal behind each buffered row
+    private static final int ROW_OVERHEAD_BYTES = 160;
+
+    private final Path directory;
+    private final long memoryBudgetBytes;
+    private final List<Row> buffer = new ArrayList<>();
+    private final List<Run> runs = new ArrayList<>();
+    private final List<DataInputStream> openReaders = new ArrayList<>();
+
+    private long bufferedBytes;
+    private long sequence;
+
+    SpillSorter(Path directory, long memoryBudgetBytes) {
+        this.directory = directory;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    void add(String key, String transactionId, BigDecimal amount) {
+        buffer.add(new Row(key, sequence++, transactionId, amount));
+        bufferedBytes += ROW_OVERHEAD_BYTES + 2L * (key.length() + (transactionId != null ? transactionId.length() : 0));
+        if (bufferedBytes >= memoryBudgetBytes) {
+            try {
+                spill();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to spill reconciliation rows to " + directory, e);
+            }
+        }
+    }
+
+    long size() {
+        return sequence;
+    }
+
+    int runCount() {
+        return runs.size();
+    }
+
+    /**
+     * Ends input and returns every row in key order. May be called once.
+     */
+    RowIterator sorted() throws IOException {
+        spill();
+        int fanIn = (int) Math.max(2, Math.min(Integer.MAX_VALUE, memoryBudgetBytes / IO_BUFFER_SIZE));
+        while (runs.size() > fanIn) {
+            List<Run> batch = new ArrayList<>(runs.subList(0, fanIn));
+            runs.subList(0, fanIn).clear();
+            RowIterator merged = merge(batch);
+            runs.add(write(merged, batch.stream().mapToLong(Run::rows).sum()));
+            closeReaders();
+            for (Run run : batch) {
+                Files.deleteIfExists(run.path());
+            }
+        }
+        return merge(runs);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.clear();
+        closeReaders();
+        for (Run run : runs) {
+            Files.deleteIfExists(run.path());
+        }
+        runs.clear();
+    }
+
+    private void spill() throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        buffer.sort(ORDER);
+        runs.add(write(new ListIterator(buffer), buffer.size()));
+        buffer.clear();
+        bufferedBytes = 0;
+    }
+
+    private Run write(RowIterator rows, long count) throws IOException {
+        Path path = Files.createTempFile(directory, "reconciliation-", ".run");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), IO_BUFFER_SIZE))) {
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                out.writeUTF(row.key());
+                out.writeLong(row.sequence());
+                out.writeBoolean(row.transactionId() != null);
+                if (row.transactionId() != null) {
+                    out.writeUTF(row.transactionId());
+                }
+                out.writeUTF(row.amount().toString());
+            }
+        }
+        return new Run(path, count);
+    }
+
+    private RowIterator merge(List<Run> sources) throws IOException {
+        PriorityQueue<RunReader> heap = new PriorityQueue<>(Math.max(1, sources.size()),
+                (a, b) -> ORDER.compare(a.head, b.head));
+        for (Run run : sources) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run.path()), IO_BUFFER_SIZE));
+            openReaders.add(in);
+            RunReader reader = new RunReader(in, run.rows());
+            if (reader.advance()) {
+                heap.add(reader);
+            }
+        }
+        return new RowIterator() {
+            @Override
+            public boolean hasNext() {
+                return !heap.isEmpty();
+            }
+
+            @Override
+            public Row next() {
+                RunReader reader = heap.poll();
+                if (reader == null) {
+                    throw new NoSuchElementException();
+                }
+                Row row = reader.head;
+                try {
+                    if (reader.advance()) {
+                        heap.add(reader);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read reconciliation spill file", e);
+                }
+                return row;
+            }
+        };
+    }
+
+    private void closeReaders() throws IOException {
+        for (DataInputStream reader : openReaders) {
+            reader.close();
+        }
+        openReaders.clear();
+    }
+
+    interface RowIterator {
+        boolean hasNext();
+
+        Row next();
+    }
+
+    private record Run(Path path, long rows) {
+    }
+
+    private static final class ListIterator implements RowIterator {
+        private final List<Row> rows;
+        private int index;
+
+        private ListIterator(List<Row> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < rows.size();
+        }
+
+        @Override
+        public Row next() {
+            return rows.get(index++);
+        }
+    }
+
+    private static final class RunReader {
+        private final DataInputStream in;
+        private long remaining;
+        private Row head;
+
+        private RunReader(DataInputStream in, long rows) {
+            this.in = in;
+            this.remaining = rows;
+        }
+
+        private boolean advance() throws IOException {
+            if (remaining == 0) {
+                head = null;
+                return false;
+            }
+            remaining--;
+            String key = in.readUTF();
+            long sequence = in.readLong();
+            String transactionId = in.readBoolean() ? in.readUTF() : null;
+            head = new Row(key, sequence, transactionId, new BigDecimal(in.readUTF()));
+            return true;
+        }
+    }
+}
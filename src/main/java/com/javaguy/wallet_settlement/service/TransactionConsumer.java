@@ -1,26 +1,37 @@
 package com.javaguy.wallet_settlement.service;
 
 import com.javaguy.wallet_settlement.model.dto.TransactionEvent;
+import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
-import com.javaguy.wallet_settlement.config.RabbitMQConfig;
+
+import java.math.BigDecimal;
+import java.util.List;
 
 @Component
+@RequiredArgsConstructor
 public class TransactionConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionConsumer.class);
 
-    @RabbitListener(queues = RabbitMQConfig.TRANSACTION_QUEUE)
-    public void handleTransactionEvent(TransactionEvent event) {
+    private final IncrementalReconciler incrementalReconciler;
+
+    // Registered once per partition queue by TransactionPartitionListenerConfig.
+    // The whole batch is acked together when this returns; an exception rejects and requeues all of it
+    public void handleTransactionEvents(List<TransactionEvent> events) {
         try {
-            logger.info("Processing transaction event: {} - {} - {}",
-                    event.getTransactionId(), event.getType(), event.getAmount());
+            BigDecimal total = BigDecimal.ZERO;
+            for (TransactionEvent event : events) {
+                logger.debug("Processing transaction event: {} - {} - {}",
+                        event.getTransactionId(), event.getType(), event.getAmount());
+                total = total.add(event.getAmount());
+            }
+            incrementalReconciler.onTransactionEvents(events);
 
-            logger.info("Successfully processed transaction event: {}", event.getTransactionId());
+            logger.info("Successfully processed {} transaction events (total amount {})", events.size(), total);
         } catch (Exception e) {
-            logger.error("Failed to process transaction event: {}", event.getTransactionId(), e);
+            logger.error("Failed to process batch of {} transaction events", events.size(), e);
             throw e;
         }
     }
@@ -1,33 +1,33 @@
 package com.javaguy.wallet_settlement.service;
 
-import com.javaguy.wallet_settlement.config.RabbitMQConfig;
 import com.javaguy.wallet_settlement.model.dto.TransactionEvent;
+import com.javaguy.wallet_settlement.model.entity.OutboxEvent;
 import com.javaguy.wallet_settlement.model.entity.Transaction;
+import com.javaguy.wallet_settlement.repository.OutboxEventRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Records transaction events in the outbox table as part of the caller's transaction.
+ * The event becomes visible to {@link OutboxRelay} only if the ledger row commits,
+ * and the broker is never contacted on the request path.
+ * Callers must already hold the wallet row lock, which is what makes outbox ids follow each wallet's commit order.
+ */
 @Component
 @RequiredArgsConstructor
 public class TransactionPublisher {
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionPublisher.class);
 
-    private final RabbitTemplate rabbitTemplate;
+    private final OutboxEventRepository outboxEventRepository;
 
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publishTransaction(Transaction transaction) {
-        try {
-            TransactionEvent event = new TransactionEvent(transaction);
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.TRANSACTION_EXCHANGE,
-                    RabbitMQConfig.TRANSACTION_ROUTING_KEY,
-                    event
-            );
-            logger.info("Published transaction event: {}", transaction.getTransactionId());
-        } catch (Exception e) {
-            logger.error("Failed to publish transaction event: {}", transaction.getTransactionId(), e);
-        }
+        outboxEventRepository.save(new OutboxEvent(new TransactionEvent(transaction)));
+        logger.debug("Queued transaction event in outbox: {}", transaction.getTransactionId());
     }
 }
@@ -1,6 +1,7 @@
 package com.javaguy.wallet_settlement.service;
 
 import com.javaguy.wallet_settlement.exception.DuplicateTransactionException;
+import com.javaguy.wallet_settlement.model.dto.LedgerInsertResult;
 import com.javaguy.wallet_settlement.model.entity.Transaction;
 import com.javaguy.wallet_settlement.model.entity.Wallet;
 import com.javaguy.wallet_settlement.model.enums.TransactionStatus;
@@ -12,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,22 +25,16 @@ public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final TransactionPublisher transactionPublisher;
 
+    /**
+     * Writes the ledger row, or returns the original transaction for a replayed requestId.
+     * The event is not queued here; see {@link #publishTransaction}.
+     */
     @Transactional
     public Transaction createTransaction(String transactionId, Wallet wallet,
                                          TransactionType type,
                                          BigDecimal amount, String description,
                                          String requestId) {
 
-        if (transactionRepository.existsByRequestId(requestId)) {
-            // If a transaction with this requestId already exists, return it to ensure idempotency
-            return transactionRepository.findByRequestId(requestId).orElseThrow(
-                    () -> new DuplicateTransactionException("Duplicate requestId found but transaction not retrieved: " + requestId));
-        }
-
-        if (transactionRepository.existsByTransactionId(transactionId)) {
-            throw new DuplicateTransactionException("Transaction already exists: " + transactionId);
-        }
-
         Transaction transaction = new Transaction();
         transaction.setTransactionId(transactionId);
         transaction.setRequestId(requestId);
@@ -47,12 +43,33 @@ public class TransactionService {
         transaction.setAmount(amount);
         transaction.setDescription(description);
         transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setCreatedAt(LocalDateTime.now());
 
-        Transaction saved = transactionRepository.save(transaction);
+        // The transaction_request claim detects a replay in the same statement that writes the row
+        Optional<LedgerInsertResult> result = transactionRepository.insertIfAbsent(
+                transactionId, requestId, wallet.getId(), type.name(), amount, description,
+                transaction.getStatus().name(), transaction.getCreatedAt());
 
-        transactionPublisher.publishTransaction(saved);
+        if (result.isPresent() && result.get().getInserted()) {
+            transaction.setId(result.get().getId());
+            return transaction;
+        }
+
+        // If a transaction with this requestId already exists, return it to ensure idempotency
+        Optional<Transaction> existing = result.isPresent()
+                ? transactionRepository.findById(result.get().getId())
+                : transactionRepository.findByRequestId(requestId);
+        return existing.orElseThrow(
+                () -> new DuplicateTransactionException("Duplicate requestId found but transaction not retrieved: " + requestId));
+    }
 
-        return saved;
+    /**
+     * Queues the event of a transaction inserted by {@link #createTransaction}. Must be called after the
+     * wallet's balance change has been written, so that the outbox row is inserted under the wallet row lock.
+     */
+    @Transactional
+    public void publishTransaction(Transaction transaction) {
+        transactionPublisher.publishTransaction(transaction);
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,312 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.exception.InsufficientFundsException;
+import com.javaguy.wallet_settlement.exception.WalletNotFoundException;
+import com.javaguy.wallet_settlement.model.dto.ConsumeRequest;
+import com.javaguy.wallet_settlement.model.dto.TopUpRequest;
+import com.javaguy.wallet_settlement.model.dto.TransactionResponse;
+import com.javaguy.wallet_settlement.model.entity.Transaction;
+import com.javaguy.wallet_settlement.model.entity.Wallet;
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import com.javaguy.wallet_settlement.repository.WalletRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single-writer execution mode for wallet commands.
+ * Each customer is pinned to one of a fixed number of lanes, so commands for the same wallet
+ * are applied in arrival order by one thread and never race on {@code Wallet.version}.
+ * A lane drains whatever has queued up (up to {@code max-batch-size}) and commits it as one
+ * database transaction; each caller's future completes only after that commit. Callers wait at most
+ * {@code await-timeout-ms}, and commands still queued when the pipeline stops are failed, never dropped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WalletCommandPipeline {
+
+    private final WalletRepository walletRepository;
+    private final TransactionService transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final IdGenerator idGenerator;
+
+    @Value("${wallet.pipeline.enabled:false}")
+    private boolean enabled;
+
+    @Value("${wallet.pipeline.lanes:16}")
+    private int laneCount;
+
+    @Value("${wallet.pipeline.max-batch-size:64}")
+    private int maxBatchSize;
+
+    @Value("${wallet.pipeline.queue-capacity:1024}")
+    private int queueCapacity;
+
+    @Value("${wallet.pipeline.await-timeout-ms:30000}")
+    private long awaitTimeoutMillis;
+
+    @Value("${wallet.pipeline.stop-timeout-ms:5000}")
+    private long stopTimeoutMillis;
+
+    private final List<Lane> lanes = new ArrayList<>();
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < laneCount; i++) {
+            Lane lane = new Lane(new LinkedBlockingQueue<>(queueCapacity));
+            Thread thread = new Thread(lane, "wallet-lane-" + i);
+            thread.setDaemon(true);
+            lane.thread = thread;
+            lanes.add(lane);
+            thread.start();
+        }
+        log.info("Wallet command pipeline started with {} lanes, max batch size {}", laneCount, maxBatchSize);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Lane lane : lanes) {
+            lane.thread.join(stopTimeoutMillis);
+        }
+        // Lanes drain their queues before exiting; whatever is left was queued too late or a lane is stuck
+        List<WalletCommand> abandoned = new ArrayList<>();
+        for (Lane lane : lanes) {
+            lane.queue.drainTo(abandoned);
+        }
+        abandoned.forEach(WalletCommand::rejectStopped);
+        if (!abandoned.isEmpty()) {
+            log.warn("Wallet command pipeline stopped with {} queued commands, failed them", abandoned.size());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public TransactionResponse topUp(String customerId, TopUpRequest request) {
+        return await(submit(new WalletCommand(customerId, TransactionType.TOPUP,
+                request.getAmount(), request.getDescription(), request.getRequestId())));
+    }
+
+    public TransactionResponse consume(String customerId, ConsumeRequest request) {
+        return await(submit(new WalletCommand(customerId, TransactionType.CONSUME,
+                request.getAmount(), request.getDescription(), request.getRequestId())));
+    }
+
+    CompletableFuture<TransactionResponse> submit(WalletCommand command) {
+        if (!running) {
+            throw new IllegalStateException("Wallet command pipeline is not running");
+        }
+        Lane lane = lanes.get(Math.floorMod(command.customerId.hashCode(), lanes.size()));
+        try {
+            // Blocks when the lane is saturated, pushing back on the caller instead of growing the heap
+            while (!lane.queue.offer(command, 100, TimeUnit.MILLISECONDS)) {
+                if (!running) {
+                    throw new IllegalStateException("Wallet command pipeline is not running");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing wallet command", e);
+        }
+        // stop() may have drained this lane just before the command was queued. If it is still in the
+        // queue nobody will take it; if it is gone, a lane or stop() owns it and completes it.
+        if (!running && lane.queue.remove(command)) {
+            command.rejectStopped();
+        }
+        return command.future;
+    }
+
+    private TransactionResponse await(CompletableFuture<TransactionResponse> future) {
+        try {
+            return future.get(awaitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Wallet command failed", e.getCause());
+        } catch (TimeoutException e) {
+            // The command may still commit; retrying with the same requestId returns its outcome
+            throw new IllegalStateException("Timed out waiting for wallet command", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for wallet command", e);
+        }
+    }
+
+    private void commit(List<WalletCommand> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(batch));
+            batch.forEach(WalletCommand::complete);
+        } catch (RuntimeException e) {
+            // The group commit failed as a whole; retry one command per transaction so a single
+            // bad command cannot fail its neighbours
+            log.warn("Group commit of {} wallet commands failed, retrying individually", batch.size(), e);
+            for (WalletCommand command : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> apply(List.of(command)));
+                    command.complete();
+                } catch (RuntimeException ex) {
+                    command.future.completeExceptionally(ex);
+                }
+            }
+        }
+    }
+
+    private void apply(List<WalletCommand> batch) {
+        Map<String, Wallet> wallets = new HashMap<>();
+        Map<String, TransactionResponse> applied = new HashMap<>();
+        List<Transaction> inserted = new ArrayList<>();
+
+        for (WalletCommand command : batch) {
+            command.response = null;
+            command.error = null;
+
+            // Replays of a requestId seen earlier in this batch; committed replays are caught by the ledger insert
+            TransactionResponse replay = applied.get(command.requestId);
+            if (replay != null) {
+                command.response = replay;
+                continue;
+            }
+
+            Wallet wallet = wallets.computeIfAbsent(command.customerId,
+                    customerId -> walletRepository.findByCustomerId(customerId).orElse(null));
+            if (wallet == null) {
+                if (command.type == TransactionType.CONSUME) {
+                    command.error = new WalletNotFoundException("Wallet not found for customer: " + command.customerId);
+                    continue;
+                }
+                Wallet newWallet = new Wallet();
+                newWallet.setCustomerId(command.customerId);
+                newWallet.setBalance(BigDecimal.ZERO);
+                wallet = walletRepository.save(newWallet);
+                wallets.put(command.customerId, wallet);
+            }
+
+            // Checked before the ledger write, which cannot be undone without failing the whole batch.
+            // Only on this failure path is the ledger consulted, in case the command is a replay.
+            if (command.type == TransactionType.CONSUME && wallet.getBalance().compareTo(command.amount) < 0) {
+                Wallet underfunded = wallet;
+                transactionService.findByRequestId(command.requestId).ifPresentOrElse(
+                        existing -> command.response = WalletService.toTransactionResponse(existing),
+                        () -> command.error = new InsufficientFundsException("Insufficient balance. Available: " + underfunded.getBalance() + ", Required: " + command.amount));
+                continue;
+            }
+
+            String transactionId = WalletService.TRANSACTION_ID_PREFIX + idGenerator.nextId();
+            Transaction transaction = transactionService.createTransaction(
+                    transactionId,
+                    wallet,
+                    command.type,
+                    command.amount,
+                    command.description,
+                    command.requestId
+            );
+            command.response = WalletService.toTransactionResponse(transaction);
+            applied.put(command.requestId, command.response);
+
+            if (!transactionId.equals(transaction.getTransactionId())) {
+                continue;
+            }
+            inserted.add(transaction);
+            // Written by dirty checking: the next command's native ledger insert auto-flushes the session,
+            // so the wallet row is updated once per applied command, the last one by the flush below
+            wallet.setBalance(command.type == TransactionType.CONSUME
+                    ? wallet.getBalance().subtract(command.amount)
+                    : wallet.getBalance().add(command.amount));
+        }
+
+        // Events are queued only once every wallet row of the batch is updated and locked, in command order
+        walletRepository.flush();
+        inserted.forEach(transactionService::publishTransaction);
+    }
+
+    private final class Lane implements Runnable {
+        private final BlockingQueue<WalletCommand> queue;
+        private Thread thread;
+
+        private Lane(BlockingQueue<WalletCommand> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            List<WalletCommand> batch = new ArrayList<>(maxBatchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    WalletCommand first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    commit(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Wallet lane failed to process a batch of {} commands", batch.size(), e);
+                    batch.forEach(command -> command.future.completeExceptionally(e));
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    static final class WalletCommand {
+        private final String customerId;
+        private final TransactionType type;
+        private final BigDecimal amount;
+        private final String description;
+        private final String requestId;
+        private final CompletableFuture<TransactionResponse> future = new CompletableFuture<>();
+
+        private TransactionResponse response;
+        private RuntimeException error;
+
+        WalletCommand(String customerId, TransactionType type, BigDecimal amount, String description, String requestId) {
+            this.customerId = customerId;
+            this.type = type;
+            this.amount = amount;
+            this.description = description;
+            this.requestId = requestId;
+        }
+
+        private void complete() {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(response);
+            }
+        }
+
+        private void rejectStopped() {
+            future.completeExceptionally(new IllegalStateException("Wallet command pipeline stopped before the command ran"));
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.javaguy.wallet_settlement.service;
 import com.javaguy.wallet_settlement.exception.InsufficientFundsException;
 import com.javaguy.wallet_settlement.exception.WalletAlreadyExistsException;
 import com.javaguy.wallet_settlement.exception.WalletNotFoundException;
+import com.javaguy.wallet_settlement.model.dto.BalanceMutation;
 import com.javaguy.wallet_settlement.model.dto.ConsumeRequest;
 import com.javaguy.wallet_settlement.model.dto.CreateWalletRequest;
 import com.javaguy.wallet_settlement.model.dto.TopUpRequest;
@@ -13,20 +14,32 @@ import com.javaguy.wallet_settlement.model.entity.Wallet;
 import com.javaguy.wallet_settlement.model.enums.TransactionType;
 import com.javaguy.wallet_settlement.repository.WalletRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class WalletService {
 
+    static final String TRANSACTION_ID_PREFIX = "TXN-";
+
     private final WalletRepository walletRepository;
     private final TransactionService transactionService;
+    private final IdGenerator idGenerator;
+
+    /**
+     * When enabled, balances are mutated with a single conditional UPDATE instead of
+     * read-modify-write under the optimistic {@code @Version} check.
+     */
+    @Value("${wallet.balance.atomic-update:true}")
+    private boolean atomicBalanceUpdate;
 
     @Transactional
     public WalletResponse createWallet(CreateWalletRequest request) {
@@ -45,18 +58,10 @@ public class WalletService {
 
     @Transactional
     public TransactionResponse topUp(String customerId, TopUpRequest request) {
-        // Check for existing transaction with the same requestId to ensure idempotency
-        Optional<Transaction> existingTransaction = transactionService.findByRequestId(request.getRequestId());
-        if (existingTransaction.isPresent()) {
-            return toTransactionResponse(existingTransaction.get());
-        }
-
         Wallet wallet = getOrCreateWallet(customerId);
         String transactionId = generateTransactionId();
 
-        wallet.setBalance(wallet.getBalance().add(request.getAmount()));
-        walletRepository.save(wallet);
-
+        // The ledger insert claims the requestId; a replay returns the original transaction instead
         Transaction transaction = transactionService.createTransaction(
                 transactionId,
                 wallet,
@@ -66,29 +71,27 @@ public class WalletService {
                 request.getRequestId()
         );
 
+        if (transactionId.equals(transaction.getTransactionId())) {
+            credit(wallet, request.getAmount());
+            transactionService.publishTransaction(transaction);
+        }
+
         return toTransactionResponse(transaction);
     }
 
     @Transactional
     public TransactionResponse consume(String customerId, ConsumeRequest request) {
-        // Check for existing transaction with the same requestId to ensure idempotency
-        Optional<Transaction> existingTransaction = transactionService.findByRequestId(request.getRequestId());
-        if (existingTransaction.isPresent()) {
-            return toTransactionResponse(existingTransaction.get());
-        }
-
-        Wallet wallet = walletRepository.findByCustomerIdWithLock(customerId)
+        // The atomic path bumps the version itself, so it must not hold an optimistic read lock
+        Optional<Wallet> existingWallet = atomicBalanceUpdate
+                ? walletRepository.findByCustomerId(customerId)
+                : walletRepository.findByCustomerIdWithLock(customerId);
+        Wallet wallet = existingWallet
                 .orElseThrow(() -> new WalletNotFoundException("Wallet not found for customer: " + customerId));
 
-        if (wallet.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientFundsException("Insufficient balance. Available: " + wallet.getBalance() + ", Required: " + request.getAmount());
-        }
-
         String transactionId = generateTransactionId();
 
-        wallet.setBalance(wallet.getBalance().subtract(request.getAmount()));
-        walletRepository.save(wallet);
-
+        // The ledger insert claims the requestId; a replay returns the original transaction instead.
+        // A failed balance check below rolls the ledger row back with the rest of the transaction.
         Transaction transaction = transactionService.createTransaction(
                 transactionId,
                 wallet,
@@ -98,6 +101,11 @@ public class WalletService {
                 request.getRequestId()
         );
 
+        if (transactionId.equals(transaction.getTransactionId())) {
+            debit(wallet, request.getAmount());
+            transactionService.publishTransaction(transaction);
+        }
+
         return toTransactionResponse(transaction);
     }
 
@@ -108,6 +116,39 @@ public class WalletService {
         return new WalletResponse(wallet.getCustomerId(), wallet.getBalance());
     }
 
+    private void credit(Wallet wallet, BigDecimal amount) {
+        if (atomicBalanceUpdate) {
+            // The wallet was just read or created in this transaction, so no row updated means it vanished
+            BalanceMutation mutation = walletRepository.credit(wallet.getCustomerId(), amount)
+                    .orElseThrow(() -> new WalletNotFoundException("Wallet not found for customer: " + wallet.getCustomerId()));
+            log.debug("Credited wallet {}: balance={}, version={}",
+                    wallet.getCustomerId(), mutation.getBalance(), mutation.getVersion());
+            return;
+        }
+
+        wallet.setBalance(wallet.getBalance().add(amount));
+        // Flushed now rather than at commit: the event is published under the row lock this UPDATE takes
+        walletRepository.saveAndFlush(wallet);
+    }
+
+    private void debit(Wallet wallet, BigDecimal amount) {
+        if (atomicBalanceUpdate) {
+            BalanceMutation mutation = walletRepository.debit(wallet.getCustomerId(), amount)
+                    // The balance read earlier is stale under contention, so it is not reported
+                    .orElseThrow(() -> new InsufficientFundsException("Insufficient balance. Required: " + amount));
+            log.debug("Debited wallet {}: balance={}, version={}",
+                    wallet.getCustomerId(), mutation.getBalance(), mutation.getVersion());
+            return;
+        }
+
+        if (wallet.getBalance().compareTo(amount) < 0) {
+            throw new InsufficientFundsException("Insufficient balance. Available: " + wallet.getBalance() + ", Required: " + amount);
+        }
+
+        wallet.setBalance(wallet.getBalance().subtract(amount));
+        walletRepository.saveAndFlush(wallet);
+    }
+
     private Wallet getOrCreateWallet(String customerId) {
         return walletRepository.findByCustomerId(customerId)
                 .orElseGet(() -> {
@@ -119,10 +160,10 @@ public class WalletService {
     }
 
     private String generateTransactionId() {
-        return "TXN-" + UUID.randomUUID().toString();
+        return TRANSACTION_ID_PREFIX + idGenerator.nextId();
     }
 
-    private TransactionResponse toTransactionResponse(Transaction transaction) {
+    static TransactionResponse toTransactionResponse(Transaction transaction) {
         return new TransactionResponse(
                 transaction.getTransactionId(),
                 transaction.getType(),
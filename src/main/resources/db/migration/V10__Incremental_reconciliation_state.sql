@@ -0,0 +1,27 @@
+-- State of continuous reconciliation (wallet.reconciliation.incremental), shared by all instances.
+-- A day row is locked by every change to the day, so matching and finalization are serialized across instances.
+CREATE TABLE reconciliation_incremental_days (
+            reconciliation_date DATE PRIMARY KEY,
+            opened_at TIMESTAMP NOT NULL,
+            finalized_at TIMESTAMP
+);
+
+-- Every ledger event and partner row seen for an open day. Settled rows (matched, or reported as a discrepancy)
+-- are kept until the day has been finalized for retention-days, so redeliveries are recognised.
+-- Amounts are stored as text because match keys compare them including their scale.
+CREATE SEQUENCE reconciliation_pending_rows_seq INCREMENT BY 50;
+CREATE TABLE reconciliation_pending_rows (
+            id BIGINT PRIMARY KEY,
+            reconciliation_date DATE NOT NULL,
+            side VARCHAR(8) NOT NULL CHECK (side IN ('INTERNAL', 'EXTERNAL')),
+            transaction_id VARCHAR(255),
+            customer_id VARCHAR(255) NOT NULL,
+            amount VARCHAR(64) NOT NULL,
+            type VARCHAR(20) NOT NULL,
+            created_at TIMESTAMP,
+            settled BOOLEAN NOT NULL
+);
+
+CREATE UNIQUE INDEX idx_reconciliation_pending_rows_transaction ON reconciliation_pending_rows(reconciliation_date, side, transaction_id);
+CREATE INDEX idx_reconciliation_pending_rows_unsettled ON reconciliation_pending_rows(reconciliation_date, side, customer_id)
+    WHERE settled = FALSE;
@@ -0,0 +1,6 @@
+-- Outbox ids are drawn when the row is inserted, which happens under the wallet row lock, instead of from
+-- blocks pre-allocated per instance. A wallet's events then get increasing ids in commit order, which is
+-- the order the relay publishes them in.
+-- The increment stays at 50: an instance still on pooled ids uses the 50 ids ending at each value it draws,
+-- and those never overlap the values drawn here.
+ALTER TABLE transaction_outbox ALTER COLUMN id SET DEFAULT nextval('transaction_outbox_seq');
@@ -0,0 +1,17 @@
+-- Pooled sequence ids (allocation size 50) replace BIGSERIAL so Hibernate can batch inserts.
+-- Each sequence restarts above the current max id; Hibernate treats the first value as the top of its first block.
+CREATE SEQUENCE wallet_seq INCREMENT BY 50;
+CREATE SEQUENCE transaction_ledger_seq INCREMENT BY 50;
+CREATE SEQUENCE reconciliation_records_seq INCREMENT BY 50;
+
+SELECT setval('wallet_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM wallet), false);
+SELECT setval('transaction_ledger_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM transaction_ledger), false);
+SELECT setval('reconciliation_records_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM reconciliation_records), false);
+
+ALTER TABLE wallet ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE transaction_ledger ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE reconciliation_records ALTER COLUMN id DROP DEFAULT;
+
+DROP SEQUENCE IF EXISTS wallet_id_seq;
+DROP SEQUENCE IF EXISTS transaction_ledger_id_seq;
+DROP SEQUENCE IF EXISTS reconciliation_records_id_seq;
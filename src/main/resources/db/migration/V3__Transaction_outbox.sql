@@ -0,0 +1,14 @@
+-- Events written in the same transaction as their ledger row and drained to RabbitMQ by the outbox relay
+CREATE SEQUENCE transaction_outbox_seq INCREMENT BY 50;
+
+CREATE TABLE transaction_outbox (
+            id BIGINT PRIMARY KEY,
+            transaction_id VARCHAR(255) NOT NULL,
+            wallet_id BIGINT NOT NULL,
+            type VARCHAR(20) NOT NULL,
+            amount DECIMAL(19,2) NOT NULL,
+            description TEXT,
+            status VARCHAR(20) NOT NULL,
+            event_timestamp TIMESTAMP,
+            created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,70 @@
+-- transaction_ledger becomes range-partitioned by created_at, one partition per day.
+-- A unique index on a partitioned table must include the partition key, so requestId idempotency
+-- moves to its own unpartitioned claim table; transaction ids are generated unique and keep a plain index.
+CREATE TABLE transaction_request (
+            request_id VARCHAR(255) PRIMARY KEY,
+            ledger_id BIGINT NOT NULL,
+            created_at TIMESTAMP NOT NULL
+);
+
+ALTER TABLE transaction_ledger RENAME TO transaction_ledger_unpartitioned;
+DROP INDEX idx_transaction_ledger_wallet_id;
+DROP INDEX idx_transaction_ledger_transaction_id;
+DROP INDEX idx_transaction_ledger_created_at;
+
+CREATE TABLE transaction_ledger (
+             id BIGINT NOT NULL,
+             transaction_id VARCHAR(255) NOT NULL,
+             request_id VARCHAR(255),
+             wallet_id BIGINT NOT NULL REFERENCES wallet(id),
+             type VARCHAR(20) NOT NULL CHECK (type IN ('TOPUP', 'CONSUME')),
+             amount DECIMAL(19,2) NOT NULL,
+             description TEXT,
+             status VARCHAR(20) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'COMPLETED', 'FAILED')),
+             created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+             PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_transaction_ledger_wallet_id ON transaction_ledger(wallet_id);
+CREATE INDEX idx_transaction_ledger_transaction_id ON transaction_ledger(transaction_id);
+CREATE INDEX idx_transaction_ledger_request_id ON transaction_ledger(request_id);
+CREATE INDEX idx_transaction_ledger_created_at ON transaction_ledger(created_at);
+
+-- Catches rows outside every daily partition so an insert never fails for lack of one
+CREATE TABLE transaction_ledger_default PARTITION OF transaction_ledger DEFAULT;
+
+-- Creates the missing daily partitions transaction_ledger_yyyymmdd for [from_day, to_day]; returns how many were created.
+-- Called by LedgerPartitionMaintainer at startup and daily to stay ahead of the clock.
+CREATE OR REPLACE FUNCTION create_transaction_ledger_partitions(from_day DATE, to_day DATE) RETURNS INTEGER AS $$
+DECLARE
+    day DATE := from_day;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    WHILE day <= to_day LOOP
+        partition_name := 'transaction_ledger_' || to_char(day, 'YYYYMMDD');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF transaction_ledger FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, day::timestamp, (day + 1)::timestamp);
+            created := created + 1;
+        END IF;
+        day := day + 1;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_transaction_ledger_partitions(
+        COALESCE((SELECT MIN(created_at)::date FROM transaction_ledger_unpartitioned), CURRENT_DATE),
+        CURRENT_DATE + 7);
+
+INSERT INTO transaction_ledger (id, transaction_id, request_id, wallet_id, type, amount, description, status, created_at)
+SELECT id, transaction_id, request_id, wallet_id, type, amount, description, status, created_at
+FROM transaction_ledger_unpartitioned;
+
+INSERT INTO transaction_request (request_id, ledger_id, created_at)
+SELECT request_id, id, created_at
+FROM transaction_ledger_unpartitioned
+WHERE request_id IS NOT NULL;
+
+DROP TABLE transaction_ledger_unpartitioned;
@@ -0,0 +1,2 @@
+-- Serves the report's per-status GROUP BY and its keyset-paginated discrepancy pages from one index
+CREATE INDEX idx_reconciliation_date_status_id ON reconciliation_records(reconciliation_date, status, id);
@@ -0,0 +1,7 @@
+-- Matched pairs are counted here instead of being stored row by row when wallet.reconciliation.storage=discrepancies
+CREATE TABLE reconciliation_match_summary (
+            reconciliation_date DATE PRIMARY KEY,
+            matched_count BIGINT NOT NULL,
+            matched_amount DECIMAL(19,2) NOT NULL,
+            updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
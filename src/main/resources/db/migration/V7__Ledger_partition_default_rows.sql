@@ -0,0 +1,38 @@
+-- Creating a daily partition fails if transaction_ledger_default already holds rows of that day,
+-- and one such day used to abort the whole call. Each day is now created on its own: rows that landed
+-- in the default partition are moved into a fresh table that is then attached as the day's partition,
+-- and a day that still fails is reported with a warning and left for the next run.
+CREATE OR REPLACE FUNCTION create_transaction_ledger_partitions(from_day DATE, to_day DATE) RETURNS INTEGER AS $$
+DECLARE
+    day DATE := from_day;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    WHILE day <= to_day LOOP
+        partition_name := 'transaction_ledger_' || to_char(day, 'YYYYMMDD');
+        IF to_regclass(partition_name) IS NULL THEN
+            BEGIN
+                IF EXISTS (SELECT 1 FROM transaction_ledger_default
+                           WHERE created_at >= day::timestamp AND created_at < (day + 1)::timestamp) THEN
+                    EXECUTE format('CREATE TABLE %I (LIKE transaction_ledger INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+                                   partition_name);
+                    EXECUTE format('WITH moved AS (DELETE FROM transaction_ledger_default'
+                                   ' WHERE created_at >= %L AND created_at < %L RETURNING *)'
+                                   ' INSERT INTO %I SELECT * FROM moved',
+                                   day::timestamp, (day + 1)::timestamp, partition_name);
+                    EXECUTE format('ALTER TABLE transaction_ledger ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                                   partition_name, day::timestamp, (day + 1)::timestamp);
+                ELSE
+                    EXECUTE format('CREATE TABLE %I PARTITION OF transaction_ledger FOR VALUES FROM (%L) TO (%L)',
+                                   partition_name, day::timestamp, (day + 1)::timestamp);
+                END IF;
+                created := created + 1;
+            EXCEPTION WHEN OTHERS THEN
+                RAISE WARNING 'Could not create partition % of transaction_ledger: %', partition_name, SQLERRM;
+            END;
+        END IF;
+        day := day + 1;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
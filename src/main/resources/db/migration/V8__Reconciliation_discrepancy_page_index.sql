@@ -0,0 +1,4 @@
+-- Discrepancy pages list several statuses in id order; (reconciliation_date, status, id) cannot return
+-- ids in order across statuses, so non-matched records get their own (reconciliation_date, id) index
+CREATE INDEX idx_reconciliation_date_discrepancy_id ON reconciliation_records(reconciliation_date, id)
+    WHERE status <> 'MATCHED';
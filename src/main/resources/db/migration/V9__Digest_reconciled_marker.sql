@@ -0,0 +1,3 @@
+-- Set when a day's totals come from a clean digest comparison; such totals are replaced, not added to,
+-- when the comparison is repeated
+ALTER TABLE reconciliation_match_summary ADD COLUMN digest_reconciled_at TIMESTAMP;
@@ -0,0 +1,152 @@
+package com.javaguy.wallet_settlement.benchmark;
+
+import com.javaguy.wallet_settlement.model.dto.ConsumeRequest;
+import com.javaguy.wallet_settlement.model.dto.CreateWalletRequest;
+import com.javaguy.wallet_settlement.model.dto.TopUpRequest;
+import com.javaguy.wallet_settlement.repository.TransactionRepository;
+import com.javaguy.wallet_settlement.repository.WalletRepository;
+import com.javaguy.wallet_settlement.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Hot-wallet contention benchmark comparing the optimistic read-modify-write path
+ * with the single-statement conditional UPDATE path.
+ * Not picked up by the default surefire run; execute with
+ * {@code mvn test -Dtest=BalanceContentionBenchmark}.
+ */
+@SpringBootTest
+@Testcontainers
+class BalanceContentionBenchmark {
+
+    private static final int THREADS = 32;
+    private static final int OPERATIONS_PER_THREAD = 200;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("walletdb")
+            .withUsername("wallet_user")
+            .withPassword("wallet_pass");
+
+    @Container
+    static RabbitMQContainer rabbitmq = new RabbitMQContainer("rabbitmq:latest")
+            .withExposedPorts(5672)
+            .withAdminUser("guest")
+            .withAdminPassword("guest");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> THREADS);
+        registry.add("spring.rabbitmq.host", rabbitmq::getHost);
+        registry.add("spring.rabbitmq.port", rabbitmq::getAmqpPort);
+        registry.add("spring.rabbitmq.username", rabbitmq::getAdminUsername);
+        registry.add("spring.rabbitmq.password", rabbitmq::getAdminPassword);
+    }
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void compareBalanceUpdateStrategies() throws Exception {
+        Result optimistic = run(false, "HOT_MERCHANT_OPTIMISTIC");
+        Result atomic = run(true, "HOT_MERCHANT_ATOMIC");
+
+        System.out.printf("%-12s %10s %10s %10s %12s%n", "strategy", "ok", "failed", "millis", "ops/sec");
+        print("optimistic", optimistic);
+        print("atomic", atomic);
+
+        // Every atomic request must land; the balance must reflect exactly the successful ones
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, atomic.succeeded);
+        assertEquals(0, atomic.failed);
+    }
+
+    private Result run(boolean atomicUpdate, String customerId) throws Exception {
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(walletService), "atomicBalanceUpdate", atomicUpdate);
+        walletService.createWallet(new CreateWalletRequest(customerId));
+        TopUpRequest seed = new TopUpRequest();
+        seed.setAmount(new BigDecimal("1000000.00"));
+        seed.setRequestId(UUID.randomUUID().toString());
+        walletService.topUp(customerId, seed);
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    ConsumeRequest request = new ConsumeRequest();
+                    request.setAmount(AMOUNT);
+                    request.setRequestId(UUID.randomUUID().toString());
+                    try {
+                        walletService.consume(customerId, request);
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        executor.shutdown();
+
+        BigDecimal expected = new BigDecimal("1000000.00").subtract(AMOUNT.multiply(BigDecimal.valueOf(succeeded.get())));
+        assertEquals(0, expected.compareTo(walletService.getBalance(customerId).getBalance()));
+        return new Result(succeeded.get(), failed.get(), elapsedMillis);
+    }
+
+    private void print(String label, Result result) {
+        double opsPerSecond = result.succeeded * 1000.0 / Math.max(1, result.elapsedMillis);
+        System.out.printf("%-12s %10d %10d %10d %12.1f%n", label, result.succeeded, result.failed, result.elapsedMillis, opsPerSecond);
+    }
+
+    private record Result(int succeeded, int failed, long elapsedMillis) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.javaguy.wallet_settlement.benchmark;
+
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import com.javaguy.wallet_settlement.service.MappedCsvReportReader;
+import com.javaguy.wallet_settlement.service.ReconciliationService.ExternalTransaction;
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a generated external CSV report with the opencsv loop used by ReconciliationService
+ * against the memory-mapped byte-level reader. Run with the JVM option {@code -prof gc} to compare
+ * allocation per row as well as time.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.javaguy.wallet_settlement.benchmark.CsvReportParserBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CsvReportParserBenchmark {
+
+    @Param({"1000000"})
+    public int rows;
+
+    private Path report;
+    private final MappedCsvReportReader mappedReader = new MappedCsvReportReader();
+
+    @Setup(Level.Trial)
+    public void writeReport() throws IOException {
+        report = Files.createTempFile("csv-benchmark-", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(report)) {
+            writer.write("transactionId,amount,customerId,type,transactionDate\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write("EXT-TXN-" + i + "," + (i % 100_000) + "." + (i % 100) + ",CUST_" + (i % 50_000)
+                        + "," + (i % 3 == 0 ? "CONSUME" : "TOPUP") + ",2025-08-28\n");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteReport() throws IOException {
+        Files.deleteIfExists(report);
+    }
+
+    @Benchmark
+    public void opencsv(Blackhole blackhole) throws IOException, CsvValidationException {
+        try (CSVReader reader = new CSVReader(new InputStreamReader(Files.newInputStream(report)))) {
+            reader.skip(1);
+            String[] nextLine;
+            while ((nextLine = reader.readNext()) != null) {
+                if (nextLine.length >= 5) {
+                    blackhole.consume(ExternalTransaction.builder()
+                            .transactionId(nextLine[0].trim())
+                            .amount(new BigDecimal(nextLine[1].trim()))
+                            .customerId(nextLine[2].trim())
+                            .type(TransactionType.valueOf(nextLine[3].trim().toUpperCase()))
+                            .transactionDate(LocalDate.parse(nextLine[4].trim()))
+                            .build());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void mapped(Blackhole blackhole) throws IOException {
+        mappedReader.read(report, blackhole::consume);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CsvReportParserBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,142 @@
+package com.javaguy.wallet_settlement.benchmark;
+
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import com.javaguy.wallet_settlement.service.MatchKeyIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the internal index of a reconciliation day and probing it with every external row:
+ * string keys in a HashMap of lists plus a HashSet of matched keys (the previous KeyedMatcher)
+ * against the packed open-addressing MatchKeyIndex. Both return the same checksum.
+ * The main method runs with {@code -prof gc}, so allocation per operation is reported next to time.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.javaguy.wallet_settlement.benchmark.MatchKeyIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MatchKeyIndexBenchmark {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 8, 28);
+
+    @Param({"1000000"})
+    public int rows;
+
+    private String[] customerIds;
+    private BigDecimal[] amounts;
+    private TransactionType[] types;
+    private String[] externalCustomerIds;
+    private BigDecimal[] externalAmounts;
+    private TransactionType[] externalTypes;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        Random random = new Random(1);
+        String[] customers = new String[50_000];
+        for (int i = 0; i < customers.length; i++) {
+            customers[i] = "CUST_" + i;
+        }
+        customerIds = new String[rows];
+        amounts = new BigDecimal[rows];
+        types = new TransactionType[rows];
+        externalCustomerIds = new String[rows];
+        externalAmounts = new BigDecimal[rows];
+        externalTypes = new TransactionType[rows];
+        for (int i = 0; i < rows; i++) {
+            customerIds[i] = customers[random.nextInt(customers.length)];
+            amounts[i] = BigDecimal.valueOf(random.nextInt(100_000), 2);
+            types[i] = random.nextBoolean() ? TransactionType.TOPUP : TransactionType.CONSUME;
+            // 90% of external rows match an internal row
+            boolean matching = random.nextInt(10) < 9;
+            externalCustomerIds[i] = matching ? customerIds[i] : customers[random.nextInt(customers.length)];
+            externalAmounts[i] = matching ? amounts[i] : BigDecimal.valueOf(random.nextInt(100_000), 2);
+            externalTypes[i] = matching ? types[i] : TransactionType.TOPUP;
+        }
+    }
+
+    @Benchmark
+    public long stringKeys() {
+        Map<String, List<Integer>> internalsByKey = new HashMap<>();
+        for (int i = 0; i < rows; i++) {
+            internalsByKey.computeIfAbsent(customerIds[i] + "|" + amounts[i] + "|" + types[i] + "|" + DATE,
+                    k -> new ArrayList<>(1)).add(i);
+        }
+        Set<String> matchedKeys = new HashSet<>();
+        long checksum = 0;
+        for (int i = 0; i < rows; i++) {
+            String key = externalCustomerIds[i] + "|" + externalAmounts[i] + "|" + externalTypes[i] + "|" + DATE;
+            if (matchedKeys.contains(key)) {
+                continue;
+            }
+            List<Integer> internals = internalsByKey.get(key);
+            if (internals == null) {
+                checksum--;
+                continue;
+            }
+            for (int row : internals) {
+                checksum += row;
+            }
+            matchedKeys.add(key);
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long packedKeys() {
+        MatchKeyIndex index = new MatchKeyIndex(rows);
+        for (int i = 0; i < rows; i++) {
+            index.add(customerIds[i], amounts[i], types[i], DATE);
+        }
+        long checksum = 0;
+        for (int i = 0; i < rows; i++) {
+            int key = index.find(externalCustomerIds[i], externalAmounts[i], externalTypes[i], DATE);
+            if (key == MatchKeyIndex.ABSENT) {
+                checksum--;
+                continue;
+            }
+            if (index.isMatched(key)) {
+                continue;
+            }
+            for (int row = index.firstRow(key); row != MatchKeyIndex.ABSENT; row = index.nextRow(row)) {
+                checksum += row;
+            }
+            index.markMatched(key);
+        }
+        return checksum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MatchKeyIndexBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
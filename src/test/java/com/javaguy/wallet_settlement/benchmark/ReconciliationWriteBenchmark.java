@@ -0,0 +1,145 @@
+package com.javaguy.wallet_settlement.benchmark;
+
+import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
+import com.javaguy.wallet_settlement.model.enums.ReconciliationStatus;
+import com.javaguy.wallet_settlement.repository.ReconciliationRecordRepository;
+import com.javaguy.wallet_settlement.service.ReconciliationRecordWriter;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Before/after comparison for persisting reconciliation records:
+ * row-at-a-time inserts that fetch each generated key (what IDENTITY forces on Hibernate)
+ * against sequence ids with ordered JDBC batching, and against streaming the rows with COPY.
+ * Not picked up by the default surefire run; execute with
+ * {@code mvn test -Dtest=ReconciliationWriteBenchmark}.
+ */
+@SpringBootTest
+@Testcontainers
+class ReconciliationWriteBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int CHUNK = 500;
+
+    @Autowired
+    private ReconciliationRecordRepository reconciliationRecordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ReconciliationRecordWriter reconciliationRecordWriter;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("walletdb")
+            .withUsername("wallet_user")
+            .withPassword("wallet_pass")
+            .withUrlParam("reWriteBatchedInserts", "true");
+
+    @Container
+    static RabbitMQContainer rabbitmq = new RabbitMQContainer("rabbitmq:latest")
+            .withExposedPorts(5672)
+            .withAdminUser("guest")
+            .withAdminPassword("guest");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.rabbitmq.host", rabbitmq::getHost);
+        registry.add("spring.rabbitmq.port", rabbitmq::getAmqpPort);
+        registry.add("spring.rabbitmq.username", rabbitmq::getAdminUsername);
+        registry.add("spring.rabbitmq.password", rabbitmq::getAdminPassword);
+    }
+
+    @BeforeEach
+    void setUp() {
+        reconciliationRecordRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void compareRowAtATimeWithBatchedInserts() {
+        LocalDate date = LocalDate.of(2025, 8, 28);
+
+        long rowAtATimeMillis = time(() -> transactionTemplate.executeWithoutResult(status -> {
+            for (ReconciliationRecord record : records(date)) {
+                // One round trip per row, each returning its generated key
+                jdbcTemplate.queryForObject(
+                        "INSERT INTO reconciliation_records (id, reconciliation_date, reconciliation_id, internal_transaction_id, " +
+                                "internal_amount, status, created_at) VALUES (nextval('reconciliation_records_seq'), ?, ?, ?, ?, ?, now()) RETURNING id",
+                        Long.class,
+                        record.getReconciliationDate(), record.getReconciliationId(), record.getInternalTransactionId(),
+                        record.getInternalAmount(), record.getStatus().name());
+            }
+        }));
+        assertEquals(ROWS, reconciliationRecordRepository.count());
+        reconciliationRecordRepository.deleteAllInBatch();
+
+        long batchedMillis = time(() -> transactionTemplate.executeWithoutResult(status -> {
+            List<ReconciliationRecord> records = records(date);
+            for (int from = 0; from < records.size(); from += CHUNK) {
+                reconciliationRecordRepository.saveAll(records.subList(from, Math.min(from + CHUNK, records.size())));
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }));
+        assertEquals(ROWS, reconciliationRecordRepository.count());
+        reconciliationRecordRepository.deleteAllInBatch();
+
+        long copyMillis = time(() -> transactionTemplate.executeWithoutResult(
+                status -> reconciliationRecordWriter.write(records(date))));
+        assertEquals(ROWS, reconciliationRecordRepository.count());
+
+        System.out.printf("%-14s %10s %12s%n", "strategy", "millis", "rows/sec");
+        System.out.printf("%-14s %10d %12.1f%n", "row-at-a-time", rowAtATimeMillis, ROWS * 1000.0 / Math.max(1, rowAtATimeMillis));
+        System.out.printf("%-14s %10d %12.1f%n", "batched", batchedMillis, ROWS * 1000.0 / Math.max(1, batchedMillis));
+        System.out.printf("%-14s %10d %12.1f%n", "copy", copyMillis, ROWS * 1000.0 / Math.max(1, copyMillis));
+    }
+
+    private List<ReconciliationRecord> records(LocalDate date) {
+        List<ReconciliationRecord> records = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            records.add(ReconciliationRecord.builder()
+                    .reconciliationId(UUID.randomUUID().toString())
+                    .reconciliationDate(date)
+                    .internalTransactionId("TXN-" + i)
+                    .internalAmount(BigDecimal.valueOf(i % 1000, 2))
+                    .status(ReconciliationStatus.MATCHED)
+                    .build());
+        }
+        return records;
+    }
+
+    private long time(Runnable runnable) {
+        long started = System.nanoTime();
+        runnable.run();
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+}
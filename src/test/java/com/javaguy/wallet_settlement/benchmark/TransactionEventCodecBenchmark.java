@@ -0,0 +1,84 @@
+package com.javaguy.wallet_settlement.benchmark;
+
+import com.javaguy.wallet_settlement.config.TransactionEventMessageConverter;
+import com.javaguy.wallet_settlement.model.dto.TransactionEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of a transaction event as JSON against the binary layout.
+ * Message sizes are printed once at setup.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.javaguy.wallet_settlement.benchmark.TransactionEventCodecBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionEventCodecBenchmark {
+
+    private final TransactionEventMessageConverter json =
+            new TransactionEventMessageConverter(new Jackson2JsonMessageConverter(), false);
+    private final TransactionEventMessageConverter binary =
+            new TransactionEventMessageConverter(new Jackson2JsonMessageConverter(), true);
+
+    private TransactionEvent event;
+    private Message jsonMessage;
+    private Message binaryMessage;
+
+    @Setup
+    public void setUp() {
+        event = new TransactionEvent("TXN-0K5F3ZQ8W1ABC", 42L, "TOPUP", new BigDecimal("1234.56"),
+                "Top-up via M-Pesa", "COMPLETED", LocalDateTime.of(2025, 8, 28, 14, 30, 15, 123_456_000));
+        jsonMessage = json.toMessage(event, new MessageProperties());
+        binaryMessage = binary.toMessage(event, new MessageProperties());
+        System.out.printf("%nmessage size: json=%d bytes, binary=%d bytes%n",
+                jsonMessage.getBody().length, binaryMessage.getBody().length);
+    }
+
+    @Benchmark
+    public Message encodeJson() {
+        return json.toMessage(event, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message encodeBinary() {
+        return binary.toMessage(event, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object decodeJson() {
+        return json.fromMessage(jsonMessage);
+    }
+
+    @Benchmark
+    public Object decodeBinary() {
+        return binary.fromMessage(binaryMessage);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransactionEventCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
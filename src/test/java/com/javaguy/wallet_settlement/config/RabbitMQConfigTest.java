@@ -0,0 +1,59 @@
+package com.javaguy.wallet_settlement.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class RabbitMQConfigTest {
+
+    private final RabbitMQConfig config = new RabbitMQConfig();
+
+    @Test
+    void batchListenerContainerFactory_AppliesBatchingProperties() {
+        SimpleRabbitListenerContainerFactory factory = config.batchListenerContainerFactory(
+                mock(ConnectionFactory.class), 250, 100, 150L);
+
+        assertEquals(Boolean.TRUE, ReflectionTestUtils.getField(factory, "batchListener"));
+        assertEquals(Boolean.TRUE, ReflectionTestUtils.getField(factory, "consumerBatchEnabled"));
+        assertEquals(100, ReflectionTestUtils.getField(factory, "batchSize"));
+        assertEquals(250, ReflectionTestUtils.getField(factory, "prefetchCount"));
+        assertEquals(150L, ReflectionTestUtils.getField(factory, "receiveTimeout"));
+        assertEquals(AcknowledgeMode.AUTO, ReflectionTestUtils.getField(factory, "acknowledgeMode"));
+        assertInstanceOf(TransactionEventMessageConverter.class, ReflectionTestUtils.getField(factory, "messageConverter"));
+    }
+
+    @Test
+    void batchListenerContainerFactory_PrefetchCoversAWholeBatch() {
+        SimpleRabbitListenerContainerFactory factory = config.batchListenerContainerFactory(
+                mock(ConnectionFactory.class), 10, 100, 100L);
+
+        assertEquals(100, ReflectionTestUtils.getField(factory, "prefetchCount"));
+    }
+
+    @Test
+    void partitionFor_IsStableAndInRange() {
+        for (long walletId = -1000; walletId <= 1000; walletId++) {
+            int partition = RabbitMQConfig.partitionFor(walletId, 4);
+            assertTrue(partition >= 0 && partition < 4);
+            assertEquals(partition, RabbitMQConfig.partitionFor(walletId, 4));
+        }
+        assertEquals(RabbitMQConfig.partitionFor(Long.MIN_VALUE, 7), RabbitMQConfig.partitionFor(Long.MIN_VALUE, 7));
+        assertTrue(RabbitMQConfig.partitionFor(Long.MIN_VALUE, 7) >= 0);
+    }
+
+    @Test
+    void partitionFor_SpreadsWalletsOverAllPartitions() {
+        boolean[] used = new boolean[4];
+        for (long walletId = 1; walletId <= 100; walletId++) {
+            used[RabbitMQConfig.partitionFor(walletId, 4)] = true;
+        }
+        for (boolean partitionUsed : used) {
+            assertTrue(partitionUsed);
+        }
+    }
+}
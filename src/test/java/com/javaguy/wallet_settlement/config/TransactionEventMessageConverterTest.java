@@ -0,0 +1,72 @@
+package com.javaguy.wallet_settlement.config;
+
+import com.javaguy.wallet_settlement.model.dto.TransactionEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionEventMessageConverterTest {
+
+    private final TransactionEventMessageConverter binaryConverter =
+            new TransactionEventMessageConverter(new Jackson2JsonMessageConverter(), true);
+    private final TransactionEventMessageConverter jsonConverter =
+            new TransactionEventMessageConverter(new Jackson2JsonMessageConverter(), false);
+
+    @Test
+    void binaryRoundTrip_PreservesEvent() {
+        TransactionEvent event = event(new BigDecimal("1234.56"), "Top-up via M-Pesa");
+
+        Message message = binaryConverter.toMessage(event, new MessageProperties());
+
+        assertEquals(TransactionEventMessageConverter.BINARY_CONTENT_TYPE, message.getMessageProperties().getContentType());
+        assertEquals(event, binaryConverter.fromMessage(message));
+    }
+
+    @Test
+    void binaryRoundTrip_NullDescriptionAndTimestamp() {
+        TransactionEvent event = event(new BigDecimal("0.01"), null);
+        event.setTimestamp(null);
+
+        assertEquals(event, binaryConverter.fromMessage(binaryConverter.toMessage(event, new MessageProperties())));
+    }
+
+    @Test
+    void binaryConverter_ReadsJsonFromOlderProducers() {
+        TransactionEvent event = event(new BigDecimal("10.00"), "Consume");
+
+        Message message = jsonConverter.toMessage(event, new MessageProperties());
+
+        assertEquals(MessageProperties.CONTENT_TYPE_JSON, message.getMessageProperties().getContentType());
+        assertEquals(event, binaryConverter.fromMessage(message));
+    }
+
+    @Test
+    void unencodableEvent_FallsBackToJson() {
+        TransactionEvent event = event(new BigDecimal("10.00"), null);
+        event.setType("REFUND");
+
+        Message message = binaryConverter.toMessage(event, new MessageProperties());
+
+        assertEquals(MessageProperties.CONTENT_TYPE_JSON, message.getMessageProperties().getContentType());
+    }
+
+    @Test
+    void truncatedBody_Rejected() {
+        byte[] body = TransactionEventMessageConverter.encode(event(BigDecimal.ONE, "x"));
+        byte[] truncated = java.util.Arrays.copyOf(body, body.length - 3);
+
+        assertThrows(MessageConversionException.class, () -> TransactionEventMessageConverter.decode(truncated));
+    }
+
+    private TransactionEvent event(BigDecimal amount, String description) {
+        return new TransactionEvent("TXN-0K5F3ZQ8W1ABC", 42L, "TOPUP", amount, description, "COMPLETED",
+                LocalDateTime.of(2025, 8, 28, 14, 30, 15, 123_456_000));
+    }
+}
@@ -0,0 +1,55 @@
+package com.javaguy.wallet_settlement.config;
+
+import com.javaguy.wallet_settlement.service.TransactionConsumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.MethodRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionPartitionListenerConfigTest {
+
+    @Mock
+    private TransactionConsumer transactionConsumer;
+
+    @Mock
+    private SimpleRabbitListenerContainerFactory containerFactory;
+
+    @Mock
+    private RabbitListenerEndpointRegistrar registrar;
+
+    @Test
+    void configureRabbitListeners_RegistersOneExclusiveConsumerPerPartition() {
+        TransactionPartitionListenerConfig config = new TransactionPartitionListenerConfig(transactionConsumer, containerFactory);
+        ReflectionTestUtils.setField(config, "partitions", 3);
+
+        config.configureRabbitListeners(registrar);
+
+        ArgumentCaptor<RabbitListenerEndpoint> endpoints = ArgumentCaptor.forClass(RabbitListenerEndpoint.class);
+        verify(registrar, times(3)).registerEndpoint(endpoints.capture(), eq(containerFactory));
+        List<RabbitListenerEndpoint> registered = endpoints.getAllValues();
+        for (int partition = 0; partition < 3; partition++) {
+            MethodRabbitListenerEndpoint endpoint = (MethodRabbitListenerEndpoint) registered.get(partition);
+            assertEquals("transaction-partition-" + partition, endpoint.getId());
+            assertEquals(List.of(RabbitMQConfig.partitionQueue(partition)), List.copyOf(endpoint.getQueueNames()));
+            assertEquals("1", endpoint.getConcurrency());
+            assertTrue(endpoint.isExclusive());
+            assertEquals(Boolean.TRUE, endpoint.getBatchListener());
+            assertSame(transactionConsumer, endpoint.getBean());
+            assertEquals("handleTransactionEvents", endpoint.getMethod().getName());
+        }
+    }
+}
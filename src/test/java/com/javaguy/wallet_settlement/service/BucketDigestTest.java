@@ -0,0 +1,96 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BucketDigestTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 8, 28);
+
+    @Test
+    void differingBuckets_IgnoresRowOrder() {
+        BucketDigest forward = new BucketDigest(DATE, 4);
+        BucketDigest backward = new BucketDigest(DATE, 4);
+        for (int i = 0; i < 100; i++) {
+            forward.add("CUST_" + i % 7, new BigDecimal(i + ".00"), TransactionType.TOPUP, DATE);
+            backward.add("CUST_" + (99 - i) % 7, new BigDecimal((99 - i) + ".00"), TransactionType.TOPUP, DATE);
+        }
+
+        assertTrue(forward.differingBuckets(backward).isEmpty());
+        assertEquals(100, forward.rowCount());
+        assertEquals(0, new BigDecimal("4950.00").compareTo(forward.amount()));
+    }
+
+    @Test
+    void differingBuckets_FlagsOnlyTheBucketOfAChangedRow() {
+        BucketDigest ledger = new BucketDigest(DATE, 8);
+        BucketDigest partner = new BucketDigest(DATE, 8);
+        for (int i = 0; i < 50; i++) {
+            ledger.add("CUST_" + i, new BigDecimal("10.00"), TransactionType.TOPUP, DATE);
+            partner.add("CUST_" + i, new BigDecimal(i == 3 ? "10.0" : "10.00"), TransactionType.TOPUP, DATE);
+        }
+
+        BitSet differing = ledger.differingBuckets(partner);
+        assertEquals(1, differing.cardinality());
+        assertEquals(ledger.bucketOf(BucketDigest.customerHash("CUST_3")), differing.nextSetBit(0));
+    }
+
+    @Test
+    void differingBuckets_CountsDuplicateRows() {
+        BucketDigest once = new BucketDigest(DATE, 2);
+        BucketDigest twice = new BucketDigest(DATE, 2);
+        once.add("CUST_1", new BigDecimal("10.00"), TransactionType.TOPUP, DATE);
+        twice.add("CUST_1", new BigDecimal("10.00"), TransactionType.TOPUP, DATE);
+        twice.add("CUST_1", new BigDecimal("10.00"), TransactionType.TOPUP, DATE);
+
+        assertFalse(once.differingBuckets(twice).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> once.differingBuckets(new BucketDigest(DATE, 3)));
+    }
+
+    @Test
+    void writeAndRead_RoundTrips() throws IOException {
+        BucketDigest digest = new BucketDigest(DATE, 6);
+        for (int i = 0; i < 200; i++) {
+            digest.add("CUST_" + i, new BigDecimal(i + ".50"), i % 2 == 0 ? TransactionType.TOPUP : TransactionType.CONSUME, DATE);
+        }
+        StringWriter writer = new StringWriter();
+        digest.write(writer);
+
+        BucketDigest read = BucketDigest.read(new StringReader(writer.toString()));
+
+        assertEquals(DATE, read.getDate());
+        assertEquals(6, read.getBucketBits());
+        assertEquals(200, read.rowCount());
+        assertTrue(digest.differingBuckets(read).isEmpty());
+    }
+
+    // Expected values from SHA-256 of "CUST_1" and "CUST_1|100.00|TOPUP|2025-08-28" computed outside the JVM
+    @Test
+    void write_UsesTheDocumentedCanonicalHashes() throws IOException {
+        BucketDigest digest = new BucketDigest(DATE, 4);
+        digest.add("CUST_1", new BigDecimal("100.00"), TransactionType.TOPUP, DATE);
+        StringWriter writer = new StringWriter();
+        digest.write(writer);
+
+        assertEquals(0x963f94108460122bL, BucketDigest.customerHash("CUST_1"));
+        assertEquals("date,2025-08-28\nbucket_bits,4\nbucket,count,digest\n9,1,931b02a52389f78f\n", writer.toString());
+    }
+
+    @Test
+    void read_RejectsMalformedFiles() {
+        assertThrows(IllegalArgumentException.class, () -> BucketDigest.read(new StringReader("")));
+        assertThrows(IllegalArgumentException.class, () -> BucketDigest.read(new StringReader(
+                "date,2025-08-28\nbucket_bits,2\nbucket,count,digest\n9,1,ff\n")));
+        assertThrows(IllegalArgumentException.class, () -> BucketDigest.read(new StringReader(
+                "date,2025-08-28\nbucket_bits,2\nbucket,count,digest\n1,x,ff\n")));
+    }
+}
@@ -0,0 +1,64 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import com.javaguy.wallet_settlement.service.ReconciliationService.ExternalTransaction;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalReportJsonReaderTest {
+
+    private final ExternalReportJsonReader reader = new ExternalReportJsonReader(Jackson2ObjectMapperBuilder.json().build());
+
+    @Test
+    void read_EmitsEachArrayElementInOrder() throws IOException {
+        List<ExternalTransaction> transactions = new ArrayList<>();
+
+        reader.read(json("""
+                [
+                  {"transactionId": "EXT-1", "amount": 100.50, "customerId": "CUST_1", "type": "TOPUP", "transactionDate": "2025-08-28"},
+                  {"transactionId": "EXT-2", "amount": 20.00, "customerId": "CUST_2", "type": "CONSUME", "transactionDate": "2025-08-28", "channel": "mpesa"}
+                ]
+                """), transactions::add);
+
+        assertEquals(2, transactions.size());
+        assertEquals("EXT-1", transactions.get(0).getTransactionId());
+        assertEquals(new BigDecimal("100.50"), transactions.get(0).getAmount());
+        assertEquals(TransactionType.TOPUP, transactions.get(0).getType());
+        assertEquals(LocalDate.of(2025, 8, 28), transactions.get(0).getTransactionDate());
+        assertEquals(TransactionType.CONSUME, transactions.get(1).getType());
+    }
+
+    @Test
+    void read_EmptyArray() throws IOException {
+        List<ExternalTransaction> transactions = new ArrayList<>();
+
+        reader.read(json("[]"), transactions::add);
+
+        assertTrue(transactions.isEmpty());
+    }
+
+    @Test
+    void read_RejectsNonArrayDocument() {
+        assertThrows(IOException.class, () -> reader.read(json("{\"transactionId\": \"EXT-1\"}"), transaction -> { }));
+    }
+
+    @Test
+    void read_RejectsMalformedElement() {
+        assertThrows(IOException.class, () -> reader.read(json("[{\"transactionId\": \"EXT-1\"}, 42]"), transaction -> { }));
+    }
+
+    private InputStream json(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
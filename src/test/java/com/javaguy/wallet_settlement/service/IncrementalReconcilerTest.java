@@ -0,0 +1,285 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javaguy.wallet_settlement.model.dto.LedgerEntry;
+import com.javaguy.wallet_settlement.model.dto.TransactionEvent;
+import com.javaguy.wallet_settlement.model.entity.IncrementalReconciliationDay;
+import com.javaguy.wallet_settlement.model.entity.ReconciliationPendingRow;
+import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
+import com.javaguy.wallet_settlement.model.entity.Wallet;
+import com.javaguy.wallet_settlement.model.enums.ReconciliationSide;
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import com.javaguy.wallet_settlement.repository.IncrementalReconciliationDayRepository;
+import com.javaguy.wallet_settlement.repository.ReconciliationMatchSummaryRepository;
+import com.javaguy.wallet_settlement.repository.ReconciliationPendingRowRepository;
+import com.javaguy.wallet_settlement.repository.ReconciliationRecordRepository;
+import com.javaguy.wallet_settlement.repository.TransactionRepository;
+import com.javaguy.wallet_settlement.repository.WalletRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IncrementalReconcilerTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 8, 28);
+    private static final String HEADER = "external_transaction_id,amount,customer_id,type,transaction_date\n";
+
+    @Mock
+    private WalletRepository walletRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ReconciliationRecordRepository reconciliationRecordRepository;
+
+    @Mock
+    private ReconciliationMatchSummaryRepository matchSummaryRepository;
+
+    @Mock
+    private IncrementalReconciliationDayRepository dayRepository;
+
+    @Mock
+    private ReconciliationPendingRowRepository pendingRowRepository;
+
+    @Mock
+    private ReconciliationRecordWriter reconciliationRecordWriter;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private ReconciliationService reconciliationService;
+    private IncrementalReconciler reconciler;
+    private final List<String> written = new ArrayList<>();
+
+    // Stand-ins for the two tables, shared by every reconciler created in a test
+    private final Map<LocalDate, IncrementalReconciliationDay> days = new HashMap<>();
+    private final List<ReconciliationPendingRow> pendingRows = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        reconciliationService = new ReconciliationService(null, null, null, new SnowflakeIdGenerator(1), null, null, null);
+        reconciler = newReconciler();
+
+        lenient().doAnswer(invocation -> {
+            ((Consumer<org.springframework.transaction.TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            List<ReconciliationRecord> records = invocation.getArgument(0);
+            records.forEach(r -> written.add(r.getStatus() + "|" + r.getInternalTransactionId() + "|" + r.getExternalTransactionId()));
+            return null;
+        }).when(reconciliationRecordWriter).write(anyList());
+        lenient().when(walletRepository.findAllById(anyIterable())).thenReturn(List.of(wallet(1L, "CUST_1"), wallet(2L, "CUST_2")));
+
+        lenient().when(dayRepository.existsById(any())).thenAnswer(invocation -> days.containsKey(invocation.<LocalDate>getArgument(0)));
+        lenient().when(dayRepository.insertDay(any())).thenAnswer(invocation -> {
+            LocalDate date = invocation.getArgument(0);
+            days.put(date, IncrementalReconciliationDay.builder().reconciliationDate(date).openedAt(LocalDateTime.now()).build());
+            return 1;
+        });
+        lenient().when(dayRepository.lockDay(any())).thenAnswer(invocation -> Optional.ofNullable(days.get(invocation.<LocalDate>getArgument(0))));
+        lenient().when(dayRepository.findOpenDaysThrough(any())).thenAnswer(invocation -> days.values().stream()
+                .filter(day -> day.getFinalizedAt() == null && !day.getReconciliationDate().isAfter(invocation.getArgument(0)))
+                .map(IncrementalReconciliationDay::getReconciliationDate)
+                .sorted()
+                .toList());
+
+        lenient().when(pendingRowRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            for (ReconciliationPendingRow row : invocation.<Iterable<ReconciliationPendingRow>>getArgument(0)) {
+                if (row.getId() == null) {
+                    row.setId((long) pendingRows.size() + 1);
+                    pendingRows.add(row);
+                }
+            }
+            return null;
+        });
+        lenient().when(pendingRowRepository.findUnsettled(any(), any(), any())).thenAnswer(invocation -> pendingRows.stream()
+                .filter(row -> row.getReconciliationDate().equals(invocation.getArgument(0)) && row.getSide() == invocation.getArgument(1)
+                        && !row.isSettled() && invocation.<Collection<String>>getArgument(2).contains(row.getCustomerId()))
+                .toList());
+        lenient().when(pendingRowRepository.findKnownTransactionIds(any(), any(), any())).thenAnswer(invocation -> pendingRows.stream()
+                .filter(row -> row.getReconciliationDate().equals(invocation.getArgument(0)) && row.getSide() == invocation.getArgument(1)
+                        && invocation.<Collection<String>>getArgument(2).contains(row.getTransactionId()))
+                .map(ReconciliationPendingRow::getTransactionId)
+                .toList());
+        lenient().when(pendingRowRepository.findUnsettledByDate(any())).thenAnswer(invocation -> pendingRows.stream()
+                .filter(row -> row.getReconciliationDate().equals(invocation.getArgument(0)) && !row.isSettled())
+                .toList());
+        lenient().when(pendingRowRepository.countByReconciliationDateAndSideAndSettledFalse(any(), any())).thenAnswer(invocation -> pendingRows.stream()
+                .filter(row -> row.getReconciliationDate().equals(invocation.getArgument(0)) && row.getSide() == invocation.getArgument(1)
+                        && !row.isSettled())
+                .count());
+    }
+
+    @Test
+    void eventsAndFeedChunks_MatchAsTheyArriveAndLeftoversBecomeDiscrepanciesAtCutoff() throws IOException {
+        reconciler.onTransactionEvents(List.of(event("TXN-1", 1L, "100.00"), event("TXN-2", 2L, "50.00")));
+        assertEquals(List.of(), written);
+
+        reconciler.acceptPartnerFeed(csv("EXT-1,100.00,CUST_1,TOPUP,2025-08-28\nEXT-3,75.00,CUST_3,TOPUP,2025-08-28\n"));
+
+        assertEquals(List.of("MATCHED|TXN-1|EXT-1"), written);
+        assertEquals(Map.of("internal", 1L, "external", 1L), reconciler.pendingCounts(DATE));
+
+        reconciler.finalizeDueDays();
+
+        assertEquals(List.of("MATCHED|TXN-1|EXT-1", "MISSING_INTERNAL|null|EXT-3", "MISSING_EXTERNAL|TXN-2|null"), written);
+        assertEquals(Map.of("internal", 0L, "external", 0L), reconciler.pendingCounts(DATE));
+        assertNotNull(days.get(DATE).getFinalizedAt());
+    }
+
+    @Test
+    void duplicatesPairOneToOneAndRedeliveriesAreIgnored() throws IOException {
+        reconciler.acceptPartnerFeed(csv("EXT-1,100.00,CUST_1,TOPUP,2025-08-28\nEXT-2,100.00,CUST_1,TOPUP,2025-08-28\n"));
+        reconciler.onTransactionEvents(List.of(event("TXN-1", 1L, "100.00")));
+        reconciler.onTransactionEvents(List.of(event("TXN-2", 1L, "100.00"), event("TXN-3", 1L, "100.00")));
+        reconciler.onTransactionEvents(List.of(event("TXN-3", 1L, "100.00"), event("TXN-1", 1L, "100.00")));
+        reconciler.acceptPartnerFeed(csv("EXT-2,100.00,CUST_1,TOPUP,2025-08-28\n"));
+
+        assertEquals(List.of("MATCHED|TXN-1|EXT-1", "MATCHED|TXN-2|EXT-2"), written);
+        assertEquals(Map.of("internal", 1L, "external", 0L), reconciler.pendingCounts(DATE));
+        verify(walletRepository, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    void pendingRows_SurviveARestart() throws IOException {
+        reconciler.onTransactionEvents(List.of(event("TXN-1", 1L, "100.00")));
+
+        IncrementalReconciler restarted = newReconciler();
+        restarted.acceptPartnerFeed(csv("EXT-1,100.00,CUST_1,TOPUP,2025-08-28\n"));
+
+        assertEquals(List.of("MATCHED|TXN-1|EXT-1"), written);
+    }
+
+    @Test
+    void finalizeDay_MatchesLedgerEntriesWhoseEventNeverArrived() throws IOException {
+        reconciler.acceptPartnerFeed(csv("EXT-1,100.00,CUST_1,TOPUP,2025-08-28\nEXT-2,50.00,CUST_2,TOPUP,2025-08-28\n"));
+        reconciler.onTransactionEvents(List.of(event("TXN-2", 2L, "50.00")));
+        when(transactionRepository.streamCompletedLedgerEntriesByDate(DATE)).thenAnswer(invocation -> List.of(
+                new LedgerEntry("TXN-1", "CUST_1", new BigDecimal("100.00"), TransactionType.TOPUP, DATE.atTime(10, 0)),
+                new LedgerEntry("TXN-2", "CUST_2", new BigDecimal("50.00"), TransactionType.TOPUP, DATE.atTime(10, 0))).stream());
+
+        reconciler.finalizeDay(DATE);
+
+        assertEquals(List.of("MATCHED|TXN-2|EXT-2", "MATCHED|TXN-1|EXT-1"), written);
+        assertEquals(2, pendingRows.stream().filter(row -> row.getSide() == ReconciliationSide.INTERNAL).count());
+    }
+
+    @Test
+    void eventAmounts_AreMatchedAtTheLedgerScale() throws IOException {
+        reconciler.onTransactionEvents(List.of(event("TXN-1", 1L, "100"), event("TXN-2", 2L, "50.5")));
+        reconciler.acceptPartnerFeed(csv("EXT-1,100.00,CUST_1,TOPUP,2025-08-28\n"));
+        when(transactionRepository.streamCompletedLedgerEntriesByDate(DATE)).thenAnswer(invocation -> List.of(
+                new LedgerEntry("TXN-1", "CUST_1", new BigDecimal("100.00"), TransactionType.TOPUP, DATE.atTime(10, 0)),
+                new LedgerEntry("TXN-2", "CUST_2", new BigDecimal("50.50"), TransactionType.TOPUP, DATE.atTime(10, 0))).stream());
+
+        reconciler.finalizeDay(DATE);
+
+        assertEquals(List.of("MATCHED|TXN-1|EXT-1", "MISSING_EXTERNAL|TXN-2|null"), written);
+        assertEquals(new BigDecimal("50.50"), pendingRows.get(1).getAmount());
+    }
+
+    @Test
+    void rowsForAFinalizedDay_AreReportedAtOnce() throws IOException {
+        reconciler.onTransactionEvents(List.of(event("TXN-1", 1L, "100.00")));
+        reconciler.finalizeDay(DATE);
+        written.clear();
+
+        reconciler.onTransactionEvents(List.of(event("TXN-2", 1L, "100.00")));
+        reconciler.acceptPartnerFeed(csv("EXT-1,100.00,CUST_1,TOPUP,2025-08-28\n"));
+        reconciler.onTransactionEvents(List.of(event("TXN-1", 1L, "100.00"), event("TXN-2", 1L, "100.00")));
+
+        assertEquals(List.of("MISSING_EXTERNAL|TXN-2|null", "MISSING_INTERNAL|null|EXT-1"), written);
+    }
+
+    @Test
+    void untrackedDayReconciledByAnotherRun_IsNotReopened() throws IOException {
+        when(reconciliationRecordRepository.existsByReconciliationDate(DATE)).thenReturn(true);
+
+        reconciler.onTransactionEvents(List.of(event("TXN-1", 1L, "100.00")));
+
+        assertEquals(List.of("MISSING_EXTERNAL|TXN-1|null"), written);
+        assertTrue(days.isEmpty());
+        verify(dayRepository, never()).insertDay(any());
+    }
+
+    @Test
+    void dayReconciledByDigest_IsNotReopened() throws IOException {
+        when(matchSummaryRepository.existsByReconciliationDateAndDigestReconciledAtIsNotNull(DATE)).thenReturn(true);
+
+        reconciler.acceptPartnerFeed(csv("EXT-1,100.00,CUST_1,TOPUP,2025-08-28\n"));
+
+        assertEquals(List.of("MISSING_INTERNAL|null|EXT-1"), written);
+        verify(dayRepository, never()).insertDay(any());
+    }
+
+    @Test
+    void failedWrite_PropagatesSoTheBatchIsRedelivered() throws IOException {
+        reconciler.acceptPartnerFeed(csv("EXT-1,100.00,CUST_1,TOPUP,2025-08-28\n"));
+        doThrow(new IllegalStateException("database down")).when(reconciliationRecordWriter).write(anyList());
+
+        assertThrows(IllegalStateException.class, () -> reconciler.onTransactionEvents(List.of(event("TXN-1", 1L, "100.00"))));
+    }
+
+    private IncrementalReconciler newReconciler() {
+        IncrementalReconciler incrementalReconciler = new IncrementalReconciler(walletRepository, transactionRepository,
+                reconciliationRecordRepository, matchSummaryRepository, dayRepository, pendingRowRepository, reconciliationService,
+                reconciliationRecordWriter, transactionTemplate, entityManager, new MappedCsvReportReader(),
+                new ExternalReportJsonReader(new ObjectMapper()));
+        ReflectionTestUtils.setField(incrementalReconciler, "enabled", true);
+        ReflectionTestUtils.setField(incrementalReconciler, "windowMinutes", 120L);
+        ReflectionTestUtils.setField(incrementalReconciler, "retentionDays", 7);
+        return incrementalReconciler;
+    }
+
+    private MockMultipartFile csv(String rows) {
+        return new MockMultipartFile("file", "feed.csv", "text/csv", (HEADER + rows).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private TransactionEvent event(String transactionId, Long walletId, String amount) {
+        return TransactionEvent.builder()
+                .transactionId(transactionId)
+                .walletId(walletId)
+                .type("TOPUP")
+                .amount(new BigDecimal(amount))
+                .status("COMPLETED")
+                .timestamp(DATE.atTime(10, 0))
+                .build();
+    }
+
+    private Wallet wallet(Long id, String customerId) {
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setCustomerId(customerId);
+        return wallet;
+    }
+}
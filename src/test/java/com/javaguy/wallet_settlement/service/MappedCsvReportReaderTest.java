@@ -0,0 +1,120 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import com.javaguy.wallet_settlement.service.ReconciliationService.ExternalTransaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCsvReportReaderTest {
+
+    private static final String HEADER = "transactionId,amount,customerId,type,transactionDate\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_DecodesFieldsFromBytes() throws IOException {
+        List<ExternalTransaction> rows = read(new MappedCsvReportReader(), HEADER
+                + "EXT-1, 100.50 ,CUST_1,topup,2025-08-28\r\n"
+                + "EXT-2,-7,CUST_2,CONSUME,2025-08-29\n");
+
+        assertEquals(2, rows.size());
+        ExternalTransaction first = rows.get(0);
+        assertEquals("EXT-1", first.getTransactionId());
+        assertEquals(new BigDecimal("100.50"), first.getAmount());
+        assertEquals("CUST_1", first.getCustomerId());
+        assertEquals(TransactionType.TOPUP, first.getType());
+        assertEquals(LocalDate.of(2025, 8, 28), first.getTransactionDate());
+        assertEquals(new BigDecimal("-7"), rows.get(1).getAmount());
+        assertEquals(TransactionType.CONSUME, rows.get(1).getType());
+    }
+
+    @Test
+    void read_SkipsInvalidAndShortRows() throws IOException {
+        List<ExternalTransaction> rows = read(new MappedCsvReportReader(), HEADER
+                + "EXT-1,abc,CUST_1,TOPUP,2025-08-28\n"
+                + "EXT-2,10.00,CUST_2,REFUND,2025-08-28\n"
+                + "EXT-3,10.00,CUST_3,TOPUP,2025-02-30\n"
+                + "EXT-4,10.00,CUST_4\n"
+                + "\n"
+                + "EXT-5,10.00,CUST_5,TOPUP,2025-08-28");
+
+        assertEquals(1, rows.size());
+        assertEquals("EXT-5", rows.get(0).getTransactionId());
+    }
+
+    @Test
+    void read_QuotedFieldsAndLongAmountsMatchOpencsv() throws IOException {
+        List<ExternalTransaction> rows = read(new MappedCsvReportReader(), HEADER
+                + "\"EXT,1\",\"1,5\",CUST_1,TOPUP,2025-08-28\n"
+                + "\"EXT-2\",12.5,\"CUST_2\",TOPUP,2025-08-28\n"
+                + "EXT-3,12345678901234567890.12,CUST_3,TOPUP,2025-08-28\n"
+                + "EXT-4,1E+2,CUST_4,TOPUP,2025-08-28\n");
+
+        assertEquals(3, rows.size());
+        assertEquals("EXT-2", rows.get(0).getTransactionId());
+        assertEquals("CUST_2", rows.get(0).getCustomerId());
+        assertEquals(new BigDecimal("12345678901234567890.12"), rows.get(1).getAmount());
+        assertEquals(new BigDecimal("1E+2"), rows.get(2).getAmount());
+    }
+
+    @Test
+    void read_QuotedNewlineStaysInOneRecord() throws IOException {
+        String csv = HEADER
+                + "\"EXT-1\n(split)\",10.00,CUST_1,TOPUP,2025-08-28\n"
+                + "EXT-2,20.00,\"CUST\r\n2\",CONSUME,2025-08-28\n"
+                + "EXT-3,30.00,CUST_3,TOPUP,2025-08-28\n";
+
+        for (MappedCsvReportReader reader : List.of(new MappedCsvReportReader(), new MappedCsvReportReader(64))) {
+            List<ExternalTransaction> rows = read(reader, csv);
+
+            assertEquals(3, rows.size());
+            assertEquals("EXT-1\n(split)", rows.get(0).getTransactionId());
+            assertEquals(new BigDecimal("10.00"), rows.get(0).getAmount());
+            assertEquals("CUST\r\n2", rows.get(1).getCustomerId());
+            assertEquals(TransactionType.CONSUME, rows.get(1).getType());
+            assertEquals("EXT-3", rows.get(2).getTransactionId());
+        }
+    }
+
+    @Test
+    void read_RowsStraddlingRegionBoundaries() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 200; i++) {
+            csv.append("EXT-").append(i).append(',').append(i).append(".25,CUST_").append(i % 7).append(",TOPUP,2025-08-28\n");
+        }
+
+        List<ExternalTransaction> rows = read(new MappedCsvReportReader(64), csv.toString());
+
+        assertEquals(200, rows.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals("EXT-" + i, rows.get(i).getTransactionId());
+            assertEquals(new BigDecimal(i + ".25"), rows.get(i).getAmount());
+        }
+    }
+
+    @Test
+    void read_LineLongerThanRegionRejected() {
+        assertThrows(IOException.class, () -> read(new MappedCsvReportReader(16),
+                HEADER + "EXT-1,10.00,CUST_1,TOPUP,2025-08-28\n"));
+    }
+
+    private List<ExternalTransaction> read(MappedCsvReportReader reader, String content) throws IOException {
+        Path file = tempDir.resolve("report.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        List<ExternalTransaction> rows = new ArrayList<>();
+        reader.read(file, rows::add);
+        return rows;
+    }
+}
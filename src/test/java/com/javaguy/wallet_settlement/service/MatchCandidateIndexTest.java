@@ -0,0 +1,127 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.dto.LedgerEntry;
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchCandidateIndexTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 8, 28);
+
+    @Test
+    void claim_PairsDuplicatesOneToOneInArrivalOrder() {
+        MatchCandidateIndex index = new MatchCandidateIndex(List.of(
+                internal("CUST_1", "100.00", TransactionType.TOPUP, DATE),
+                internal("CUST_2", "100.00", TransactionType.TOPUP, DATE),
+                internal("CUST_1", "100.00", TransactionType.TOPUP, DATE)), BigDecimal.ZERO, 0);
+
+        assertEquals(0, index.claim("CUST_1", TransactionType.TOPUP, new BigDecimal("100.00"), DATE));
+        assertEquals(2, index.claim("CUST_1", TransactionType.TOPUP, new BigDecimal("100"), DATE));
+        assertEquals(MatchCandidateIndex.NONE, index.claim("CUST_1", TransactionType.TOPUP, new BigDecimal("100.00"), DATE));
+        assertTrue(index.isClaimed(0));
+        assertFalse(index.isClaimed(1));
+        assertTrue(index.isClaimed(2));
+    }
+
+    @Test
+    void claim_PrefersClosestAmountThenClosestDateWithinTolerance() {
+        MatchCandidateIndex index = new MatchCandidateIndex(List.of(
+                internal("CUST_1", "99.90", TransactionType.TOPUP, DATE),
+                internal("CUST_1", "100.05", TransactionType.TOPUP, DATE.plusDays(2)),
+                internal("CUST_1", "100.05", TransactionType.TOPUP, DATE.minusDays(1)),
+                internal("CUST_1", "100.20", TransactionType.TOPUP, DATE),
+                internal("CUST_1", "100.00", TransactionType.CONSUME, DATE)), new BigDecimal("0.10"), 1);
+
+        assertEquals(2, index.claim("CUST_1", TransactionType.TOPUP, new BigDecimal("100.00"), DATE));
+        assertEquals(0, index.claim("CUST_1", TransactionType.TOPUP, new BigDecimal("100.00"), DATE));
+        // Only candidates outside the date or amount tolerance are left
+        assertEquals(MatchCandidateIndex.NONE, index.claim("CUST_1", TransactionType.TOPUP, new BigDecimal("100.00"), DATE));
+        assertEquals(1, index.claim("CUST_1", TransactionType.TOPUP, new BigDecimal("100.00"), DATE.plusDays(1)));
+        assertEquals(MatchCandidateIndex.NONE, index.claim("CUST_2", TransactionType.TOPUP, new BigDecimal("100.00"), DATE));
+        assertEquals(MatchCandidateIndex.NONE, index.claim("CUST_1", TransactionType.TOPUP, null, DATE));
+        assertEquals(MatchCandidateIndex.NONE, index.claim("CUST_1", TransactionType.TOPUP, new BigDecimal("100.00"), null));
+    }
+
+    @Test
+    void claim_AgreesWithExhaustiveSearch() {
+        Random random = new Random(42);
+        BigDecimal tolerance = new BigDecimal("0.03");
+        int dateTolerance = 2;
+        List<LedgerEntry> internals = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            internals.add(internal("CUST_" + random.nextInt(20), amount(random),
+                    random.nextBoolean() ? TransactionType.TOPUP : TransactionType.CONSUME, DATE.plusDays(random.nextInt(7))));
+        }
+        MatchCandidateIndex index = new MatchCandidateIndex(internals, tolerance, dateTolerance);
+        boolean[] claimed = new boolean[internals.size()];
+
+        for (int i = 0; i < 2_500; i++) {
+            String customerId = "CUST_" + random.nextInt(22);
+            TransactionType type = random.nextBoolean() ? TransactionType.TOPUP : TransactionType.CONSUME;
+            BigDecimal amount = new BigDecimal(amount(random));
+            LocalDate date = DATE.plusDays(random.nextInt(7));
+
+            int expected = exhaustiveClaim(internals, claimed, customerId, type, amount, date, tolerance, dateTolerance);
+            assertEquals(expected, index.claim(customerId, type, amount, date));
+            if (expected != MatchCandidateIndex.NONE) {
+                claimed[expected] = true;
+            }
+        }
+        for (int i = 0; i < internals.size(); i++) {
+            assertEquals(claimed[i], index.isClaimed(i));
+        }
+    }
+
+    // Closest amount (higher amount on a tie), then closest day (earlier day on a tie), then lowest index
+    private int exhaustiveClaim(List<LedgerEntry> internals, boolean[] claimed, String customerId, TransactionType type,
+                                BigDecimal amount, LocalDate date, BigDecimal tolerance, int dateTolerance) {
+        int best = MatchCandidateIndex.NONE;
+        for (int i = 0; i < internals.size(); i++) {
+            LedgerEntry internal = internals.get(i);
+            long days = internal.getCreatedAt().toLocalDate().toEpochDay() - date.toEpochDay();
+            BigDecimal difference = internal.getAmount().subtract(amount);
+            if (claimed[i] || !internal.getCustomerId().equals(customerId) || internal.getType() != type
+                    || difference.abs().compareTo(tolerance) > 0 || Math.abs(days) > dateTolerance) {
+                continue;
+            }
+            if (best == MatchCandidateIndex.NONE || isBetter(internal, internals.get(best), amount, date)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private boolean isBetter(LedgerEntry candidate, LedgerEntry best, BigDecimal amount, LocalDate date) {
+        BigDecimal candidateDifference = candidate.getAmount().subtract(amount);
+        BigDecimal bestDifference = best.getAmount().subtract(amount);
+        int order = candidateDifference.abs().compareTo(bestDifference.abs());
+        if (order == 0) {
+            order = -Integer.compare(candidateDifference.signum(), bestDifference.signum());
+        }
+        if (order == 0) {
+            long candidateDays = candidate.getCreatedAt().toLocalDate().toEpochDay() - date.toEpochDay();
+            long bestDays = best.getCreatedAt().toLocalDate().toEpochDay() - date.toEpochDay();
+            order = Long.compare(Math.abs(candidateDays), Math.abs(bestDays));
+            if (order == 0) {
+                order = Long.compare(candidateDays, bestDays);
+            }
+        }
+        return order < 0;
+    }
+
+    private String amount(Random random) {
+        return "10." + String.format("%02d", random.nextInt(12));
+    }
+
+    private LedgerEntry internal(String customerId, String amount, TransactionType type, LocalDate date) {
+        return new LedgerEntry("TXN", customerId, new BigDecimal(amount), type, date.atTime(10, 0));
+    }
+}
@@ -0,0 +1,97 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchKeyIndexTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 8, 28);
+
+    @Test
+    void find_ChainsRowsOfTheSameKeyInInsertionOrder() {
+        MatchKeyIndex index = new MatchKeyIndex(4);
+        index.add("CUST_1", new BigDecimal("100.00"), TransactionType.TOPUP, DATE);
+        index.add("CUST_2", new BigDecimal("100.00"), TransactionType.TOPUP, DATE);
+        index.add("CUST_1", new BigDecimal("100.00"), TransactionType.TOPUP, DATE);
+
+        int key = index.find("CUST_1", new BigDecimal("100.00"), TransactionType.TOPUP, DATE);
+        assertEquals(0, index.firstRow(key));
+        assertEquals(2, index.nextRow(0));
+        assertEquals(MatchKeyIndex.ABSENT, index.nextRow(2));
+        assertEquals(key, index.keyOfRow(2));
+        assertNotEquals(key, index.keyOfRow(1));
+    }
+
+    @Test
+    void find_DistinguishesEveryKeyComponentLikeTheStringKey() {
+        MatchKeyIndex index = new MatchKeyIndex(1);
+        index.add("CUST_1", new BigDecimal("100.00"), TransactionType.TOPUP, DATE);
+
+        assertNotEquals(MatchKeyIndex.ABSENT, index.find("CUST_1", new BigDecimal("100.00"), TransactionType.TOPUP, DATE));
+        assertEquals(MatchKeyIndex.ABSENT, index.find("CUST_1", new BigDecimal("100.0"), TransactionType.TOPUP, DATE));
+        assertEquals(MatchKeyIndex.ABSENT, index.find("CUST_1", new BigDecimal("100.01"), TransactionType.TOPUP, DATE));
+        assertEquals(MatchKeyIndex.ABSENT, index.find("CUST_1", new BigDecimal("100.00"), TransactionType.CONSUME, DATE));
+        assertEquals(MatchKeyIndex.ABSENT, index.find("CUST_1", new BigDecimal("100.00"), TransactionType.TOPUP, DATE.plusDays(1)));
+        assertEquals(MatchKeyIndex.ABSENT, index.find("CUST_2", new BigDecimal("100.00"), TransactionType.TOPUP, DATE));
+    }
+
+    @Test
+    void find_KeysThatDoNotPackFallBackToStringKeys() {
+        MatchKeyIndex index = new MatchKeyIndex(4);
+        BigDecimal huge = new BigDecimal("123456789012345678901234.50");
+        index.add("CUST_1", huge, TransactionType.TOPUP, DATE);
+        index.add(null, null, null, null);
+        index.add("CUST_1", new BigDecimal("5.00"), TransactionType.TOPUP, LocalDate.of(1900, 1, 1));
+
+        assertEquals(index.keyOfRow(0), index.find("CUST_1", new BigDecimal("123456789012345678901234.50"), TransactionType.TOPUP, DATE));
+        assertEquals(index.keyOfRow(1), index.find(null, null, null, null));
+        assertEquals(index.keyOfRow(2), index.find("CUST_1", new BigDecimal("5.00"), TransactionType.TOPUP, LocalDate.of(1900, 1, 1)));
+    }
+
+    @Test
+    void add_AgreesWithAStringKeyedMapWhileGrowing() {
+        Random random = new Random(11);
+        MatchKeyIndex index = new MatchKeyIndex(0);
+        Map<String, List<Integer>> expected = new HashMap<>();
+        for (int row = 0; row < 50_000; row++) {
+            String customerId = "CUST_" + random.nextInt(2_000);
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(500), 2);
+            TransactionType type = random.nextBoolean() ? TransactionType.TOPUP : TransactionType.CONSUME;
+            LocalDate date = DATE.plusDays(random.nextInt(3));
+            assertEquals(row, index.add(customerId, amount, type, date));
+            expected.computeIfAbsent(customerId + "|" + amount + "|" + type + "|" + date, k -> new ArrayList<>()).add(row);
+        }
+
+        for (List<Integer> rows : expected.values()) {
+            int key = index.keyOfRow(rows.get(0));
+            List<Integer> chained = new ArrayList<>();
+            for (int row = index.firstRow(key); row != MatchKeyIndex.ABSENT; row = index.nextRow(row)) {
+                chained.add(row);
+            }
+            assertEquals(rows, chained);
+        }
+    }
+
+    @Test
+    void markMatched_IsTrackedPerKey() {
+        MatchKeyIndex index = new MatchKeyIndex(200);
+        for (int i = 0; i < 200; i++) {
+            index.add("CUST_" + i, BigDecimal.TEN, TransactionType.TOPUP, DATE);
+        }
+        index.markMatched(index.keyOfRow(130));
+
+        assertTrue(index.isMatched(index.keyOfRow(130)));
+        assertFalse(index.isMatched(index.keyOfRow(66)));
+        assertFalse(index.isMatched(index.keyOfRow(2)));
+    }
+}
@@ -0,0 +1,109 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.dto.ReconciliationExportRow;
+import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
+import com.javaguy.wallet_settlement.model.enums.ReconciliationStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchedPairsArchiveTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 8, 28);
+
+    @TempDir
+    Path directory;
+
+    private MatchedPairsArchive archive;
+
+    @BeforeEach
+    void setUp() {
+        archive = new MatchedPairsArchive();
+        ReflectionTestUtils.setField(archive, "directory", directory.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void append_PairsBecomeReadableOnlyAfterCommit() throws IOException {
+        TransactionSynchronizationManager.initSynchronization();
+        archive.append(DATE, List.of(pair("rec-1", "TXN-1", "EXT,1", "100.00"), pair("rec-2", "TXN-2", "EXT-2", "25.50")));
+        assertTrue(read(DATE).isEmpty());
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        List<ReconciliationExportRow> rows = read(DATE);
+        assertEquals(2, rows.size());
+        assertEquals("rec-1", rows.get(0).getReconciliationId());
+        assertEquals("EXT,1", rows.get(0).getExternalTransactionId());
+        assertEquals(ReconciliationStatus.MATCHED, rows.get(1).getStatus());
+        assertEquals(0, new BigDecimal("25.50").compareTo(rows.get(1).getExternalAmount()));
+        assertTrue(read(DATE.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    void append_RolledBackPairsAreDiscarded() throws IOException {
+        TransactionSynchronizationManager.initSynchronization();
+        archive.append(DATE, List.of(pair("rec-1", "TXN-1", "EXT-1", "100.00")));
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertTrue(read(DATE).isEmpty());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void append_RequiresTransaction() {
+        assertThrows(IllegalStateException.class,
+                () -> archive.append(DATE, List.of(pair("rec-1", "TXN-1", "EXT-1", "100.00"))));
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+
+    private List<ReconciliationExportRow> read(LocalDate date) throws IOException {
+        List<ReconciliationExportRow> rows = new ArrayList<>();
+        archive.forEach(date, rows::add);
+        return rows;
+    }
+
+    private ReconciliationRecord pair(String reconciliationId, String internalId, String externalId, String amount) {
+        return ReconciliationRecord.builder()
+                .reconciliationId(reconciliationId)
+                .reconciliationDate(DATE)
+                .internalTransactionId(internalId)
+                .externalTransactionId(externalId)
+                .internalAmount(new BigDecimal(amount))
+                .externalAmount(new BigDecimal(amount))
+                .status(ReconciliationStatus.MATCHED)
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.config.RabbitMQConfig;
+import com.javaguy.wallet_settlement.model.dto.TransactionEvent;
+import com.javaguy.wallet_settlement.model.entity.OutboxEvent;
+import com.javaguy.wallet_settlement.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private RabbitOperations rabbitOperations;
+
+    @InjectMocks
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 2);
+        ReflectionTestUtils.setField(outboxRelay, "confirmTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(outboxRelay, "partitions", 4);
+        ReflectionTestUtils.setField(outboxRelay, "intervalMillis", 200L);
+        ReflectionTestUtils.setField(outboxRelay, "maxBackoffMillis", 30000L);
+
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Integer>) invocation.getArgument(0)).doInTransaction(null));
+        lenient().when(outboxEventRepository.tryRelayLock(OutboxRelay.RELAY_LOCK_KEY)).thenReturn(true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void relay_PublishesBatchesUntilOutboxIsDrained() {
+        List<OutboxEvent> firstBatch = List.of(outboxEvent(1L, "TXN-1"), outboxEvent(2L, "TXN-2"));
+        List<OutboxEvent> secondBatch = List.of(outboxEvent(3L, "TXN-3"));
+        when(outboxEventRepository.lockNextBatch(2)).thenReturn(firstBatch, secondBatch);
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                ((RabbitOperations.OperationsCallback<Object>) invocation.getArgument(0)).doInRabbit(rabbitOperations));
+
+        outboxRelay.relay();
+
+        verify(rabbitOperations, times(3)).convertAndSend(eq(RabbitMQConfig.TRANSACTION_EXCHANGE),
+                eq(RabbitMQConfig.partitionRoutingKey(RabbitMQConfig.partitionFor(1L, 4))), any(TransactionEvent.class));
+        verify(rabbitOperations, times(2)).waitForConfirmsOrDie(1000L);
+        verify(outboxEventRepository).deleteAllInBatch(firstBatch);
+        verify(outboxEventRepository).deleteAllInBatch(secondBatch);
+    }
+
+    @Test
+    void relay_EmptyOutboxDoesNotTouchBroker() {
+        when(outboxEventRepository.lockNextBatch(2)).thenReturn(Collections.emptyList());
+
+        outboxRelay.relay();
+
+        verifyNoInteractions(rabbitTemplate);
+        verify(outboxEventRepository, never()).deleteAllInBatch(any());
+    }
+
+    @Test
+    void relay_SkipsWhileAnotherInstanceHoldsTheLock() {
+        when(outboxEventRepository.tryRelayLock(OutboxRelay.RELAY_LOCK_KEY)).thenReturn(false);
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository, never()).lockNextBatch(anyInt());
+        verifyNoInteractions(rabbitTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void relay_UnconfirmedBatchStaysInOutbox() {
+        List<OutboxEvent> batch = List.of(outboxEvent(1L, "TXN-1"));
+        when(outboxEventRepository.lockNextBatch(2)).thenReturn(batch);
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                ((RabbitOperations.OperationsCallback<Object>) invocation.getArgument(0)).doInRabbit(rabbitOperations));
+        doThrow(new AmqpException("nack")).when(rabbitOperations).waitForConfirmsOrDie(anyLong());
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository, never()).deleteAllInBatch(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void relay_BacksOffWhileBrokerIsDown() {
+        when(outboxEventRepository.lockNextBatch(2)).thenReturn(List.of(outboxEvent(1L, "TXN-1")));
+        when(rabbitTemplate.invoke(any())).thenThrow(new AmqpException("connection refused"));
+
+        outboxRelay.relay();
+        outboxRelay.relay();
+
+        verify(outboxEventRepository, times(1)).lockNextBatch(2);
+        verify(outboxEventRepository, never()).deleteAllInBatch(any());
+    }
+
+    @Test
+    void backoffMillis_DoublesUpToMaximum() {
+        assertEquals(200L, outboxRelay.backoffMillis(1));
+        assertEquals(400L, outboxRelay.backoffMillis(2));
+        assertEquals(30000L, outboxRelay.backoffMillis(50));
+    }
+
+    private OutboxEvent outboxEvent(Long id, String transactionId) {
+        return OutboxEvent.builder()
+                .id(id)
+                .transactionId(transactionId)
+                .walletId(1L)
+                .type("TOPUP")
+                .amount(BigDecimal.TEN)
+                .status("COMPLETED")
+                .build();
+    }
+}
@@ -0,0 +1,152 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javaguy.wallet_settlement.model.dto.ReconciliationExportRow;
+import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
+import com.javaguy.wallet_settlement.model.enums.ExportFormat;
+import com.javaguy.wallet_settlement.model.enums.ReconciliationStatus;
+import com.javaguy.wallet_settlement.repository.ReconciliationRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReconciliationExporterTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 8, 28);
+
+    @Mock
+    private ReconciliationRecordRepository reconciliationRecordRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private MatchedPairsArchive matchedPairsArchive;
+
+    @InjectMocks
+    private ReconciliationExporter reconciliationExporter;
+
+    @Test
+    void export_GzippedCsvKeepsHeaderAndColumnOrder() throws IOException {
+        when(reconciliationRecordRepository.streamExportRowsByDate(DATE)).thenReturn(rows());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        reconciliationExporter.export(DATE, ExportFormat.CSV, true, output);
+
+        String csv;
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            csv = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = csv.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("\"Reconciliation ID\",\"Internal Transaction ID\",\"External Transaction ID\",\"Internal Amount\"," +
+                "\"External Amount\",\"Status\",\"Discrepancy Amount\",\"Reason\"", lines[0]);
+        assertEquals("\"rec-1\",\"TXN-1\",\"EXT-1\",\"100.00\",\"100.00\",\"MATCHED\",\"\",\"\"", lines[1]);
+        assertEquals("\"rec-2\",\"\",\"EXT-2\",\"\",\"25.50\",\"MISSING_INTERNAL\",\"\",\"Not in ledger, \"\"EXT-2\"\"\"", lines[2]);
+    }
+
+    @Test
+    void export_JsonLinesWritesOneObjectPerLine() throws IOException {
+        when(reconciliationRecordRepository.streamExportRowsByDate(DATE)).thenReturn(rows());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        reconciliationExporter.export(DATE, ExportFormat.JSONL, false, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("rec-1", first.get("reconciliationId").asText());
+        assertEquals(0, new BigDecimal("100.00").compareTo(first.get("internalAmount").decimalValue()));
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertTrue(second.get("internalTransactionId").isNull());
+        assertEquals("MISSING_INTERNAL", second.get("status").asText());
+        assertEquals("Not in ledger, \"EXT-2\"", second.get("discrepancyReason").asText());
+    }
+
+    @Test
+    void export_ArchivedPairsLookLikeStoredMatchedRecords(@TempDir Path pairsDirectory) throws IOException {
+        // storage=full: the MATCHED record as read back from reconciliation_records, at the columns' scale
+        when(reconciliationRecordRepository.streamExportRowsByDate(DATE)).thenAnswer(invocation -> Stream.of(
+                new ReconciliationExportRow("rec-1", "TXN-1", "EXT-1", new BigDecimal("100.00"), new BigDecimal("100.00"),
+                        ReconciliationStatus.MATCHED, new BigDecimal("0.00"), null)));
+        String fullCsv = export(reconciliationExporter, ExportFormat.CSV);
+        String fullJson = export(reconciliationExporter, ExportFormat.JSONL);
+
+        // storage=discrepancies: the same pair, as matched in memory, only reaches the archive
+        MatchedPairsArchive archive = new MatchedPairsArchive();
+        ReflectionTestUtils.setField(archive, "directory", pairsDirectory.toString());
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> synchronizations;
+        try {
+            archive.append(DATE, List.of(ReconciliationRecord.builder()
+                    .reconciliationId("rec-1")
+                    .reconciliationDate(DATE)
+                    .internalTransactionId("TXN-1")
+                    .externalTransactionId("EXT-1")
+                    .internalAmount(new BigDecimal("100.00"))
+                    .externalAmount(new BigDecimal("100"))
+                    .status(ReconciliationStatus.MATCHED)
+                    .discrepancyAmount(BigDecimal.ZERO)
+                    .build()));
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+        when(reconciliationRecordRepository.streamExportRowsByDate(DATE)).thenAnswer(invocation -> Stream.empty());
+        ReconciliationExporter discrepanciesOnly = new ReconciliationExporter(reconciliationRecordRepository, objectMapper, archive);
+
+        assertEquals(fullCsv, export(discrepanciesOnly, ExportFormat.CSV));
+        assertEquals(fullJson, export(discrepanciesOnly, ExportFormat.JSONL));
+    }
+
+    private String export(ReconciliationExporter exporter, ExportFormat format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exporter.export(DATE, format, false, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private Stream<ReconciliationExportRow> rows() {
+        return Stream.of(
+                ReconciliationExportRow.builder()
+                        .reconciliationId("rec-1")
+                        .internalTransactionId("TXN-1")
+                        .externalTransactionId("EXT-1")
+                        .internalAmount(new BigDecimal("100.00"))
+                        .externalAmount(new BigDecimal("100.00"))
+                        .status(ReconciliationStatus.MATCHED)
+                        .build(),
+                ReconciliationExportRow.builder()
+                        .reconciliationId("rec-2")
+                        .externalTransactionId("EXT-2")
+                        .externalAmount(new BigDecimal("25.50"))
+                        .status(ReconciliationStatus.MISSING_INTERNAL)
+                        .discrepancyReason("Not in ledger, \"EXT-2\"")
+                        .build());
+    }
+}
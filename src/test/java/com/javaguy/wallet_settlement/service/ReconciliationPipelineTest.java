@@ -0,0 +1,102 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
+import com.javaguy.wallet_settlement.model.enums.ReconciliationStatus;
+import com.javaguy.wallet_settlement.service.ReconciliationService.ExternalTransaction;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReconciliationPipelineTest {
+
+    @Test
+    void run_StreamsEveryRowThroughMatchAndSinkInOrder() throws IOException {
+        List<ReconciliationRecord> persisted = new ArrayList<>();
+        List<Integer> chunkSizes = new ArrayList<>();
+
+        long rows = new ReconciliationPipeline(3, 2).run(
+                sink -> {
+                    for (int i = 0; i < 10; i++) {
+                        sink.accept(external("EXT-" + i));
+                    }
+                },
+                new EchoMatcher(),
+                chunk -> {
+                    chunkSizes.add(chunk.size());
+                    persisted.addAll(chunk);
+                });
+
+        assertEquals(10, rows);
+        assertEquals(11, persisted.size());
+        assertEquals("EXT-0", persisted.get(0).getExternalTransactionId());
+        assertEquals("EXT-9", persisted.get(9).getExternalTransactionId());
+        assertEquals(ReconciliationStatus.MISSING_EXTERNAL, persisted.get(10).getStatus());
+        assertTrue(chunkSizes.stream().allMatch(size -> size <= 3));
+    }
+
+    @Test
+    void run_ParseFailurePropagatesWithoutFinishing() {
+        EchoMatcher matcher = new EchoMatcher();
+
+        IOException thrown = assertThrows(IOException.class, () -> new ReconciliationPipeline(2, 1).run(
+                sink -> {
+                    sink.accept(external("EXT-0"));
+                    throw new IOException("truncated upload");
+                },
+                matcher,
+                chunk -> { }));
+
+        assertEquals("truncated upload", thrown.getMessage());
+        assertFalse(matcher.finished);
+    }
+
+    @Test
+    void run_SinkFailureStopsUpstreamStages() {
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> new ReconciliationPipeline(1, 1).run(
+                sink -> {
+                    // Would block forever on the bounded queues if the failure did not cancel the run
+                    for (int i = 0; i < 1_000_000; i++) {
+                        sink.accept(external("EXT-" + i));
+                    }
+                },
+                new EchoMatcher(),
+                chunk -> {
+                    throw new IllegalStateException("database down");
+                }));
+
+        assertEquals("database down", thrown.getMessage());
+    }
+
+    private ExternalTransaction external(String transactionId) {
+        return ExternalTransaction.builder()
+                .transactionId(transactionId)
+                .amount(BigDecimal.TEN)
+                .build();
+    }
+
+    private static final class EchoMatcher implements ReconciliationPipeline.Matcher {
+        private volatile boolean finished;
+
+        @Override
+        public void match(ExternalTransaction external, Consumer<ReconciliationRecord> out) {
+            out.accept(ReconciliationRecord.builder()
+                    .externalTransactionId(external.getTransactionId())
+                    .status(ReconciliationStatus.MISSING_INTERNAL)
+                    .build());
+        }
+
+        @Override
+        public void finish(Consumer<ReconciliationRecord> out) {
+            finished = true;
+            out.accept(ReconciliationRecord.builder()
+                    .status(ReconciliationStatus.MISSING_EXTERNAL)
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
+import com.javaguy.wallet_settlement.model.enums.ReconciliationStatus;
+import com.javaguy.wallet_settlement.repository.ReconciliationMatchSummaryRepository;
+import com.javaguy.wallet_settlement.repository.ReconciliationRecordRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReconciliationRecordWriterTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 8, 28);
+
+    @Mock
+    private ReconciliationRecordRepository reconciliationRecordRepository;
+
+    @Mock
+    private ReconciliationMatchSummaryRepository reconciliationMatchSummaryRepository;
+
+    @Mock
+    private MatchedPairsArchive matchedPairsArchive;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private ReconciliationRecordWriter reconciliationRecordWriter;
+
+    @Test
+    void write_DiscrepanciesModeStoresOnlyDiscrepanciesAndSummarizesMatches() throws IOException {
+        ReflectionTestUtils.setField(reconciliationRecordWriter, "writeMode", "jpa");
+        ReflectionTestUtils.setField(reconciliationRecordWriter, "storageMode", "discrepancies");
+        ReflectionTestUtils.setField(reconciliationRecordWriter, "writeBatchSize", 500);
+        ReconciliationRecord matched1 = record(ReconciliationStatus.MATCHED, "100.00");
+        ReconciliationRecord matched2 = record(ReconciliationStatus.MATCHED, "25.50");
+        ReconciliationRecord missing = record(ReconciliationStatus.MISSING_EXTERNAL, "10.00");
+
+        reconciliationRecordWriter.write(List.of(matched1, missing, matched2));
+
+        verify(reconciliationMatchSummaryRepository).addMatches(DATE, 2, new BigDecimal("125.50"));
+        verify(matchedPairsArchive).append(DATE, List.of(matched1, matched2));
+        verify(reconciliationRecordRepository).saveAll(List.of(missing));
+    }
+
+    @Test
+    void write_FullModeStoresEveryRecord() {
+        ReflectionTestUtils.setField(reconciliationRecordWriter, "writeMode", "jpa");
+        ReflectionTestUtils.setField(reconciliationRecordWriter, "storageMode", "full");
+        ReflectionTestUtils.setField(reconciliationRecordWriter, "writeBatchSize", 500);
+        List<ReconciliationRecord> records = List.of(
+                record(ReconciliationStatus.MATCHED, "100.00"), record(ReconciliationStatus.AMOUNT_MISMATCH, "5.00"));
+
+        reconciliationRecordWriter.write(records);
+
+        verify(reconciliationRecordRepository).saveAll(records);
+    }
+
+    @Test
+    void checkStorageMode_DiscrepanciesModeRequiresPairsArchive() {
+        ReflectionTestUtils.setField(reconciliationRecordWriter, "storageMode", "discrepancies");
+        when(matchedPairsArchive.isEnabled()).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> reconciliationRecordWriter.checkStorageMode());
+
+        when(matchedPairsArchive.isEnabled()).thenReturn(true);
+        assertDoesNotThrow(() -> reconciliationRecordWriter.checkStorageMode());
+    }
+
+    @Test
+    void checkStorageMode_FullModeNeedsNoPairsArchive() {
+        ReflectionTestUtils.setField(reconciliationRecordWriter, "storageMode", "full");
+
+        assertDoesNotThrow(() -> reconciliationRecordWriter.checkStorageMode());
+    }
+
+    @Test
+    void appendRow_WritesNullsAsEmptyFieldsAndQuotesSpecialCharacters() {
+        ReconciliationRecord record = ReconciliationRecord.builder()
+                .id(51L)
+                .reconciliationDate(LocalDate.of(2025, 8, 28))
+                .reconciliationId("rec-1")
+                .externalTransactionId("EXT-1")
+                .externalAmount(new BigDecimal("1E+2"))
+                .discrepancyReason("Amount \"differs\", check\nmanually")
+                .status(ReconciliationStatus.MISSING_INTERNAL)
+                .createdAt(LocalDateTime.of(2025, 8, 28, 10, 15, 30))
+                .build();
+
+        StringBuilder buffer = new StringBuilder();
+        ReconciliationRecordWriter.appendRow(buffer, record);
+
+        assertEquals("51,2025-08-28,rec-1,,EXT-1,,100,,\"Amount \"\"differs\"\", check\nmanually\",MISSING_INTERNAL,2025-08-28T10:15:30\n",
+                buffer.toString());
+    }
+
+    @Test
+    void appendRow_QuotesEmptyStringsToKeepThemDistinctFromNull() {
+        ReconciliationRecord record = ReconciliationRecord.builder()
+                .id(1L)
+                .reconciliationDate(LocalDate.of(2025, 8, 28))
+                .reconciliationId("rec-1")
+                .internalTransactionId("")
+                .status(ReconciliationStatus.MATCHED)
+                .createdAt(LocalDateTime.of(2025, 8, 28, 10, 15, 30))
+                .build();
+
+        StringBuilder buffer = new StringBuilder();
+        ReconciliationRecordWriter.appendRow(buffer, record);
+
+        assertEquals("1,2025-08-28,rec-1,\"\",,,,,,MATCHED,2025-08-28T10:15:30\n", buffer.toString());
+    }
+
+    private ReconciliationRecord record(ReconciliationStatus status, String internalAmount) {
+        return ReconciliationRecord.builder()
+                .reconciliationDate(DATE)
+                .reconciliationId("rec-" + status + "-" + internalAmount)
+                .internalAmount(new BigDecimal(internalAmount))
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,445 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.model.dto.LedgerEntry;
+import com.javaguy.wallet_settlement.model.dto.ReconciliationDigestComparison;
+import com.javaguy.wallet_settlement.model.dto.ReconciliationDiscrepancy;
+import com.javaguy.wallet_settlement.model.dto.ReconciliationReport;
+import com.javaguy.wallet_settlement.model.dto.ReconciliationStatusTotals;
+import com.javaguy.wallet_settlement.model.entity.ReconciliationMatchSummary;
+import com.javaguy.wallet_settlement.model.entity.ReconciliationRecord;
+import com.javaguy.wallet_settlement.model.enums.ReconciliationStatus;
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import com.javaguy.wallet_settlement.repository.ReconciliationMatchSummaryRepository;
+import com.javaguy.wallet_settlement.repository.ReconciliationRecordRepository;
+import com.javaguy.wallet_settlement.repository.TransactionRepository;
+import com.javaguy.wallet_settlement.service.ReconciliationService.ExternalTransaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReconciliationServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 8, 28);
+
+    @Mock
+    private ReconciliationRecordRepository reconciliationRecordRepository;
+
+    @Mock
+    private ReconciliationMatchSummaryRepository reconciliationMatchSummaryRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ReconciliationRecordWriter reconciliationRecordWriter;
+
+    @Spy
+    private IdGenerator idGenerator = new SnowflakeIdGenerator(1);
+
+    @Mock
+    private ExternalReportJsonReader externalReportJsonReader;
+
+    @Mock
+    private MappedCsvReportReader mappedCsvReportReader;
+
+    @InjectMocks
+    private ReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reconciliationService, "matchPartitions", 8);
+        ReflectionTestUtils.setField(reconciliationService, "matchParallelism", 4);
+        ReflectionTestUtils.setField(reconciliationService, "reportPageSize", 100);
+        ReflectionTestUtils.setField(reconciliationService, "reportMaxPageSize", 1000);
+    }
+
+    @Test
+    void performReconciliation_ClassifiesMatchesMismatchesAndMissing() {
+        List<LedgerEntry> internal = List.of(
+                internal("TXN-1", "CUST_1", "100.00", TransactionType.TOPUP),
+                internal("TXN-2", "CUST_2", "50.00", TransactionType.CONSUME));
+        List<ExternalTransaction> external = List.of(
+                external("EXT-1", "CUST_1", "100.00", TransactionType.TOPUP),
+                external("EXT-3", "CUST_3", "75.00", TransactionType.TOPUP));
+        ReflectionTestUtils.setField(reconciliationService, "parallelMatchThreshold", Integer.MAX_VALUE);
+
+        List<ReconciliationRecord> records = reconciliationService.performReconciliation(internal, external, DATE);
+
+        assertEquals(3, records.size());
+        assertEquals(ReconciliationStatus.MATCHED, records.get(0).getStatus());
+        assertEquals("TXN-1", records.get(0).getInternalTransactionId());
+        assertEquals("EXT-1", records.get(0).getExternalTransactionId());
+        assertEquals(ReconciliationStatus.MISSING_INTERNAL, records.get(1).getStatus());
+        assertEquals("EXT-3", records.get(1).getExternalTransactionId());
+        assertEquals(ReconciliationStatus.MISSING_EXTERNAL, records.get(2).getStatus());
+        assertEquals("TXN-2", records.get(2).getInternalTransactionId());
+    }
+
+    @Test
+    void performReconciliation_PartitionedOutputIdenticalToSingleThreaded() {
+        Random random = new Random(42);
+        List<LedgerEntry> internal = new ArrayList<>();
+        List<ExternalTransaction> external = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            String customerId = "CUST_" + random.nextInt(300);
+            String amount = (random.nextInt(20) * 5) + ".00";
+            TransactionType type = random.nextBoolean() ? TransactionType.TOPUP : TransactionType.CONSUME;
+            internal.add(internal("TXN-" + i, customerId, amount, type));
+            double roll = random.nextDouble();
+            if (roll < 0.8) {
+                external.add(external("EXT-" + i, customerId, amount, type));
+            } else if (roll < 0.9) {
+                external.add(external("EXT-" + i, "CUST_X" + random.nextInt(50), amount, type));
+            }
+        }
+
+        ReflectionTestUtils.setField(reconciliationService, "parallelMatchThreshold", Integer.MAX_VALUE);
+        List<String> sequential = describe(reconciliationService.performReconciliation(internal, external, DATE));
+        ReflectionTestUtils.setField(reconciliationService, "parallelMatchThreshold", 0);
+        List<String> partitioned = describe(reconciliationService.performReconciliation(internal, external, DATE));
+
+        assertEquals(sequential, partitioned);
+    }
+
+    @Test
+    void performReconciliation_TolerantEnginePairsDuplicatesOneToOne() {
+        List<LedgerEntry> internal = List.of(
+                internal("TXN-1", "CUST_1", "100.00", TransactionType.TOPUP),
+                internal("TXN-2", "CUST_1", "100.00", TransactionType.TOPUP),
+                internal("TXN-3", "CUST_2", "50.00", TransactionType.CONSUME),
+                internal("TXN-4", "CUST_3", "20.00", TransactionType.TOPUP));
+        List<ExternalTransaction> external = new ArrayList<>(List.of(
+                external("EXT-1", "CUST_1", "100.00", TransactionType.TOPUP),
+                external("EXT-2", "CUST_1", "100.00", TransactionType.TOPUP),
+                external("EXT-3", "CUST_1", "100.00", TransactionType.TOPUP),
+                external("EXT-4", "CUST_2", "50.01", TransactionType.CONSUME)));
+        ExternalTransaction nextDay = external("EXT-5", "CUST_3", "20.00", TransactionType.TOPUP);
+        nextDay.setTransactionDate(DATE.plusDays(1));
+        external.add(nextDay);
+        ReflectionTestUtils.setField(reconciliationService, "parallelMatchThreshold", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(reconciliationService, "matchEngine", "tolerant");
+        ReflectionTestUtils.setField(reconciliationService, "amountTolerance", new BigDecimal("0.05"));
+        ReflectionTestUtils.setField(reconciliationService, "dateToleranceDays", 1);
+
+        List<String> records = describe(reconciliationService.performReconciliation(internal, external, DATE));
+
+        assertEquals(List.of(
+                "MATCHED|TXN-1|EXT-1|100.00|100.00|0",
+                "MATCHED|TXN-2|EXT-2|100.00|100.00|0",
+                "MISSING_INTERNAL|null|EXT-3|null|100.00|null",
+                "AMOUNT_MISMATCH|TXN-3|EXT-4|50.00|50.01|-0.01",
+                "MATCHED|TXN-4|EXT-5|20.00|20.00|0"), records);
+    }
+
+    @Test
+    void performReconciliation_TolerantEnginePartitionedOutputIdenticalToSingleThreaded() {
+        Random random = new Random(7);
+        List<LedgerEntry> internal = new ArrayList<>();
+        List<ExternalTransaction> external = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            String customerId = "CUST_" + random.nextInt(300);
+            TransactionType type = random.nextBoolean() ? TransactionType.TOPUP : TransactionType.CONSUME;
+            internal.add(internal("TXN-" + i, customerId, (random.nextInt(20) * 5) + ".00", type));
+            if (random.nextDouble() < 0.9) {
+                external.add(external("EXT-" + i, customerId, (random.nextInt(20) * 5) + "." + random.nextInt(10) + "0", type));
+            }
+        }
+        ReflectionTestUtils.setField(reconciliationService, "matchEngine", "tolerant");
+        ReflectionTestUtils.setField(reconciliationService, "amountTolerance", new BigDecimal("0.50"));
+
+        ReflectionTestUtils.setField(reconciliationService, "parallelMatchThreshold", Integer.MAX_VALUE);
+        List<String> sequential = describe(reconciliationService.performReconciliation(internal, external, DATE));
+        ReflectionTestUtils.setField(reconciliationService, "parallelMatchThreshold", 0);
+        List<String> partitioned = describe(reconciliationService.performReconciliation(internal, external, DATE));
+
+        assertEquals(sequential, partitioned);
+    }
+
+    @Test
+    void performReconciliation_DigestPrecompareMatchesOnlyDifferingBucketsWithSameOutput() {
+        Random random = new Random(11);
+        List<LedgerEntry> internal = new ArrayList<>();
+        List<ExternalTransaction> external = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            String customerId = "CUST_" + random.nextInt(300);
+            String amount = (random.nextInt(20) * 5) + ".00";
+            TransactionType type = random.nextBoolean() ? TransactionType.TOPUP : TransactionType.CONSUME;
+            internal.add(internal("TXN-" + i, customerId, amount, type));
+            double roll = random.nextDouble();
+            if (roll < 0.97) {
+                external.add(external("EXT-" + i, customerId, amount, type));
+            } else if (roll < 0.99) {
+                external.add(external("EXT-" + i, customerId, amount + "1", type));
+            }
+        }
+        external.add(random.nextInt(external.size()), external("EXT-X", "CUST_X", "10.00", TransactionType.TOPUP));
+        ReflectionTestUtils.setField(reconciliationService, "matchEngine", "tolerant");
+        ReflectionTestUtils.setField(reconciliationService, "parallelMatchThreshold", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(reconciliationService, "digestBucketBits", 6);
+
+        List<String> plain = describe(reconciliationService.performReconciliation(internal, external, DATE));
+        ReflectionTestUtils.setField(reconciliationService, "digestPrecompare", true);
+        List<String> precompared = describe(reconciliationService.performReconciliation(internal, external, DATE));
+
+        assertEquals(plain, precompared);
+    }
+
+    @Test
+    void compareDigest_RecordsCleanDayAndListsDifferingBuckets() {
+        List<LedgerEntry> internal = List.of(
+                internal("TXN-1", "CUST_1", "100.00", TransactionType.TOPUP),
+                internal("TXN-2", "CUST_2", "50.00", TransactionType.CONSUME));
+        when(transactionRepository.streamCompletedLedgerEntriesByDate(DATE)).thenAnswer(invocation -> internal.stream());
+        BucketDigest partner = new BucketDigest(DATE, 4);
+        partner.add("CUST_2", new BigDecimal("50.00"), TransactionType.CONSUME, DATE);
+        partner.add("CUST_1", new BigDecimal("100.00"), TransactionType.TOPUP, DATE);
+
+        ReconciliationDigestComparison clean = reconciliationService.compareDigest(DATE, partner);
+
+        assertTrue(clean.isClean());
+        assertEquals(List.of(), clean.getDifferingBuckets());
+        verify(reconciliationMatchSummaryRepository).findById(DATE);
+        verify(reconciliationMatchSummaryRepository).save(argThat(summary -> summary.getMatchedCount() == 2L
+                && summary.getMatchedAmount().compareTo(new BigDecimal("150.00")) == 0
+                && summary.getDigestReconciledAt() != null));
+
+        partner.add("CUST_3", new BigDecimal("5.00"), TransactionType.TOPUP, DATE);
+        ReconciliationDigestComparison dirty = reconciliationService.compareDigest(DATE, partner);
+
+        assertFalse(dirty.isClean());
+        assertEquals(List.of(partner.bucketOf(BucketDigest.customerHash("CUST_3"))), dirty.getDifferingBuckets());
+        assertEquals(2, dirty.getLedgerRows());
+        assertEquals(3, dirty.getPartnerRows());
+        verifyNoMoreInteractions(reconciliationMatchSummaryRepository);
+        assertThrows(IllegalArgumentException.class, () -> reconciliationService.compareDigest(DATE.plusDays(1), partner));
+    }
+
+    @Test
+    void compareDigest_RepeatedCleanComparisonReplacesTotals() {
+        List<LedgerEntry> internal = List.of(internal("TXN-1", "CUST_1", "100.00", TransactionType.TOPUP));
+        when(transactionRepository.streamCompletedLedgerEntriesByDate(DATE)).thenAnswer(invocation -> internal.stream());
+        ReconciliationMatchSummary earlier = ReconciliationMatchSummary.builder()
+                .reconciliationDate(DATE)
+                .matchedCount(1L)
+                .matchedAmount(new BigDecimal("100.00"))
+                .updatedAt(LocalDateTime.of(2025, 8, 29, 2, 0))
+                .digestReconciledAt(LocalDateTime.of(2025, 8, 29, 2, 0))
+                .build();
+        when(reconciliationMatchSummaryRepository.findById(DATE)).thenReturn(Optional.of(earlier));
+        BucketDigest partner = new BucketDigest(DATE, 4);
+        partner.add("CUST_1", new BigDecimal("100.00"), TransactionType.TOPUP, DATE);
+
+        assertTrue(reconciliationService.compareDigest(DATE, partner).isClean());
+
+        verify(reconciliationMatchSummaryRepository).save(earlier);
+        assertEquals(1L, earlier.getMatchedCount());
+        assertEquals(0, new BigDecimal("100.00").compareTo(earlier.getMatchedAmount()));
+    }
+
+    @Test
+    void compareDigest_RejectsDayWithRowLevelOutput() {
+        List<LedgerEntry> internal = List.of(internal("TXN-1", "CUST_1", "100.00", TransactionType.TOPUP));
+        when(transactionRepository.streamCompletedLedgerEntriesByDate(DATE)).thenAnswer(invocation -> internal.stream());
+        BucketDigest partner = new BucketDigest(DATE, 4);
+        partner.add("CUST_1", new BigDecimal("100.00"), TransactionType.TOPUP, DATE);
+
+        when(reconciliationRecordRepository.existsByReconciliationDate(DATE)).thenReturn(true);
+        assertThrows(IllegalStateException.class, () -> reconciliationService.compareDigest(DATE, partner));
+
+        when(reconciliationMatchSummaryRepository.findById(DATE)).thenReturn(Optional.of(ReconciliationMatchSummary.builder()
+                .reconciliationDate(DATE)
+                .matchedCount(1L)
+                .matchedAmount(new BigDecimal("100.00"))
+                .build()));
+        assertThrows(IllegalStateException.class, () -> reconciliationService.compareDigest(DATE, partner));
+
+        verify(reconciliationMatchSummaryRepository, never()).save(any());
+    }
+
+    @Test
+    void rowLevelRuns_RejectDayReconciledByDigest() {
+        when(reconciliationMatchSummaryRepository.existsByReconciliationDateAndDigestReconciledAtIsNotNull(DATE)).thenReturn(true);
+        MockMultipartFile file = new MockMultipartFile("file", "report.csv", "text/csv", (
+                "external_transaction_id,amount,customer_id,type,transaction_date\n" +
+                "EXT-1,100.00,CUST_1,TOPUP,2025-08-28\n").getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalStateException.class, () -> reconciliationService.processExternalReportCsv(file, DATE));
+        assertThrows(IllegalStateException.class, () -> reconciliationService.runReconciliation(DATE));
+
+        verify(transactionRepository, never()).findCompletedLedgerEntriesByDate(any());
+        verify(reconciliationRecordWriter, never()).write(anyList());
+    }
+
+    @Test
+    void processExternalReportCsv_SortMergeProducesSameRecordsAsHashMatching(@TempDir Path spillDirectory) throws IOException {
+        List<LedgerEntry> internal = List.of(
+                internal("TXN-1", "CUST_1", "100.00", TransactionType.TOPUP),
+                internal("TXN-2", "CUST_1", "100.00", TransactionType.TOPUP),
+                internal("TXN-3", "CUST_2", "50.00", TransactionType.CONSUME),
+                internal("TXN-4", "CUST_3", "10.00", TransactionType.TOPUP));
+        MockMultipartFile file = new MockMultipartFile("file", "report.csv", "text/csv", (
+                "external_transaction_id,amount,customer_id,type,transaction_date\n" +
+                "EXT-1,100.00,CUST_1,TOPUP,2025-08-28\n" +
+                "EXT-2,100.00,CUST_1,TOPUP,2025-08-28\n" +
+                "EXT-3,50.00,CUST_2,CONSUME,2025-08-28\n" +
+                "EXT-4,75.00,CUST_4,TOPUP,2025-08-28\n" +
+                "EXT-5,75.00,CUST_4,TOPUP,2025-08-28\n").getBytes(StandardCharsets.UTF_8));
+        when(transactionRepository.findCompletedLedgerEntriesByDate(DATE)).thenReturn(internal);
+        when(transactionRepository.streamCompletedLedgerEntriesByDate(DATE)).thenAnswer(invocation -> internal.stream());
+        List<ReconciliationRecord> written = new ArrayList<>();
+        doAnswer(invocation -> written.addAll(invocation.getArgument(0))).when(reconciliationRecordWriter).write(anyList());
+        ReflectionTestUtils.setField(reconciliationService, "csvParser", "opencsv");
+        ReflectionTestUtils.setField(reconciliationService, "ingestChunkSize", 2);
+        ReflectionTestUtils.setField(reconciliationService, "ingestQueueCapacity", 2);
+        ReflectionTestUtils.setField(reconciliationService, "spillMemoryBudgetMb", 1L);
+        ReflectionTestUtils.setField(reconciliationService, "spillDirectory", spillDirectory.toString());
+
+        ReflectionTestUtils.setField(reconciliationService, "matchStrategy", "hash");
+        reconciliationService.processExternalReportCsv(file, DATE);
+        List<String> hashed = describe(written).stream().sorted().toList();
+        written.clear();
+        ReflectionTestUtils.setField(reconciliationService, "matchStrategy", "sort-merge");
+        reconciliationService.processExternalReportCsv(file, DATE);
+        List<String> sortMerged = describe(written).stream().sorted().toList();
+
+        assertEquals(6, hashed.size());
+        assertEquals(hashed, sortMerged);
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void getReconciliationReport_SummarizesStatusTotalsAndReturnsKeysetPage() {
+        ReflectionTestUtils.setField(reconciliationService, "reportPageSize", 2);
+        when(reconciliationRecordRepository.sumByStatus(DATE)).thenReturn(List.of(
+                new ReconciliationStatusTotals(ReconciliationStatus.MATCHED, 3L, new BigDecimal("850.00"), new BigDecimal("850.00")),
+                new ReconciliationStatusTotals(ReconciliationStatus.MISSING_INTERNAL, 1L, new BigDecimal("120.00"), null),
+                new ReconciliationStatusTotals(ReconciliationStatus.AMOUNT_MISMATCH, 1L, new BigDecimal("30.00"), new BigDecimal("30.00"))));
+        List<ReconciliationDiscrepancy> page = List.of(
+                ReconciliationDiscrepancy.builder().id(7L).status(ReconciliationStatus.MISSING_INTERNAL).build(),
+                ReconciliationDiscrepancy.builder().id(9L).status(ReconciliationStatus.AMOUNT_MISMATCH).build());
+        when(reconciliationRecordRepository.findDiscrepancyPage(eq(DATE),
+                eq(EnumSet.of(ReconciliationStatus.MISSING_INTERNAL, ReconciliationStatus.MISSING_EXTERNAL, ReconciliationStatus.AMOUNT_MISMATCH)),
+                eq(0L), eq(Limit.of(2))))
+                .thenReturn(page);
+
+        ReconciliationReport report = reconciliationService.getReconciliationReport(DATE);
+
+        assertEquals(5, report.getSummary().getTotalTransactions());
+        assertEquals(3, report.getSummary().getMatched());
+        assertEquals(2, report.getSummary().getMismatched());
+        assertEquals(0, new BigDecimal("1000.00").compareTo(report.getSummary().getTotalAmount()));
+        assertEquals(0, new BigDecimal("850.00").compareTo(report.getSummary().getMatchedAmount()));
+        assertEquals(0, new BigDecimal("150.00").compareTo(report.getSummary().getDiscrepancyAmount()));
+        assertEquals(page, report.getDiscrepancies());
+        assertEquals(9L, report.getNextCursor());
+    }
+
+    @Test
+    void getReconciliationReport_AddsSummarizedMatchesToStoredTotals() {
+        when(reconciliationRecordRepository.sumByStatus(DATE)).thenReturn(List.of(
+                new ReconciliationStatusTotals(ReconciliationStatus.MISSING_INTERNAL, 1L, new BigDecimal("120.00"), null),
+                new ReconciliationStatusTotals(ReconciliationStatus.AMOUNT_MISMATCH, 1L, new BigDecimal("30.00"), new BigDecimal("30.00"))));
+        when(reconciliationMatchSummaryRepository.findById(DATE)).thenReturn(Optional.of(ReconciliationMatchSummary.builder()
+                .reconciliationDate(DATE)
+                .matchedCount(3L)
+                .matchedAmount(new BigDecimal("850.00"))
+                .build()));
+        when(reconciliationRecordRepository.findDiscrepancyPage(eq(DATE), any(), eq(0L), eq(Limit.of(100))))
+                .thenReturn(List.of());
+
+        ReconciliationReport report = reconciliationService.getReconciliationReport(DATE);
+
+        // Same numbers as when the three matches are stored as MATCHED records
+        assertEquals(5, report.getSummary().getTotalTransactions());
+        assertEquals(3, report.getSummary().getMatched());
+        assertEquals(2, report.getSummary().getMismatched());
+        assertEquals(0, new BigDecimal("1000.00").compareTo(report.getSummary().getTotalAmount()));
+        assertEquals(0, new BigDecimal("850.00").compareTo(report.getSummary().getMatchedAmount()));
+        assertEquals(0, new BigDecimal("150.00").compareTo(report.getSummary().getDiscrepancyAmount()));
+    }
+
+    @Test
+    void getReconciliationReport_MatchedStatusPagesOverAllRecords() {
+        Set<ReconciliationStatus> statuses = Set.of(ReconciliationStatus.MATCHED, ReconciliationStatus.AMOUNT_MISMATCH);
+        when(reconciliationRecordRepository.sumByStatus(DATE)).thenReturn(List.of());
+        when(reconciliationRecordRepository.findRecordPage(DATE, statuses, 0L, Limit.of(50))).thenReturn(List.of());
+
+        reconciliationService.getReconciliationReport(DATE, statuses, 0L, 50);
+
+        verify(reconciliationRecordRepository, never()).findDiscrepancyPage(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void getReconciliationReport_LastPageHasNoCursor() {
+        when(reconciliationRecordRepository.sumByStatus(DATE)).thenReturn(List.of());
+        when(reconciliationRecordRepository.findDiscrepancyPage(DATE, Set.of(ReconciliationStatus.MISSING_EXTERNAL), 9L, Limit.of(50)))
+                .thenReturn(List.of());
+
+        ReconciliationReport report = reconciliationService.getReconciliationReport(
+                DATE, Set.of(ReconciliationStatus.MISSING_EXTERNAL), 9L, 50);
+
+        assertEquals(0, report.getSummary().getTotalTransactions());
+        assertEquals(0, BigDecimal.ZERO.compareTo(report.getSummary().getDiscrepancyAmount()));
+        assertTrue(report.getDiscrepancies().isEmpty());
+        assertNull(report.getNextCursor());
+    }
+
+    private List<String> describe(List<ReconciliationRecord> records) {
+        return records.stream()
+                .map(r -> r.getStatus() + "|" + r.getInternalTransactionId() + "|" + r.getExternalTransactionId()
+                        + "|" + r.getInternalAmount() + "|" + r.getExternalAmount() + "|" + r.getDiscrepancyAmount())
+                .toList();
+    }
+
+    private LedgerEntry internal(String transactionId, String customerId, String amount, TransactionType type) {
+        return new LedgerEntry(transactionId, customerId, new BigDecimal(amount), type, DATE.atTime(10, 0));
+    }
+
+    private ExternalTransaction external(String transactionId, String customerId, String amount, TransactionType type) {
+        return ExternalTransaction.builder()
+                .transactionId(transactionId)
+                .customerId(customerId)
+                .amount(new BigDecimal(amount))
+                .type(type)
+                .transactionDate(DATE)
+                .build();
+    }
+}
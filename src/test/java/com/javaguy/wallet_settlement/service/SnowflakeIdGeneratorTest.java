@@ -0,0 +1,76 @@
+package com.javaguy.wallet_settlement.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    void nextId_IsStrictlyIncreasingAsNumberAndString() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+
+        long previousValue = generator.nextLong();
+        String previousId = SnowflakeIdGenerator.encode(previousValue);
+        // Far more than one millisecond's worth of sequence numbers, so the carry path is exercised
+        for (int i = 0; i < 100_000; i++) {
+            long value = generator.nextLong();
+            String id = SnowflakeIdGenerator.encode(value);
+            assertTrue(value > previousValue);
+            assertTrue(id.compareTo(previousId) > 0);
+            assertEquals(7, value & SnowflakeIdGenerator.MAX_NODE_ID);
+            previousValue = value;
+            previousId = id;
+        }
+    }
+
+    @Test
+    void nextId_IsUniqueAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(8 * 50_000, ids.size());
+    }
+
+    @Test
+    void nextId_DiffersBetweenNodes() {
+        Set<String> ids = new HashSet<>();
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(1);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(2);
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(first.nextId());
+            ids.add(second.nextId());
+        }
+
+        assertEquals(20_000, ids.size());
+        assertEquals(13, first.nextId().length());
+    }
+
+    @Test
+    void constructor_RejectsOutOfRangeNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+}
@@ -0,0 +1,57 @@
+package com.javaguy.wallet_settlement.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillSorterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sorted_MergesManySpilledRunsInKeyThenInsertionOrder() throws IOException {
+        Random random = new Random(7);
+        List<SpillSorter.Row> expected = new ArrayList<>();
+        // Budget for a handful of rows per run and a fan-in of 2, forcing several merge passes
+        try (SpillSorter sorter = new SpillSorter(directory, 2 * 64 * 1024 + 1)) {
+            for (int i = 0; i < 5_000; i++) {
+                String key = "CUST_" + random.nextInt(300) + "|" + random.nextInt(10) + ".00|TOPUP|2025-08-28";
+                String transactionId = i % 97 == 0 ? null : "TXN-" + i;
+                BigDecimal amount = new BigDecimal(random.nextInt(10_000)).movePointLeft(2);
+                sorter.add(key, transactionId, amount);
+                expected.add(new SpillSorter.Row(key, i, transactionId, amount));
+            }
+            assertTrue(sorter.runCount() > 2);
+            expected.sort(Comparator.comparing(SpillSorter.Row::key).thenComparingLong(SpillSorter.Row::sequence));
+
+            List<SpillSorter.Row> actual = new ArrayList<>();
+            SpillSorter.RowIterator rows = sorter.sorted();
+            while (rows.hasNext()) {
+                actual.add(rows.next());
+            }
+            assertEquals(expected, actual);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void sorted_EmptyInput() throws IOException {
+        try (SpillSorter sorter = new SpillSorter(directory, 1024 * 1024)) {
+            assertFalse(sorter.sorted().hasNext());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.exception.DuplicateTransactionException;
+import com.javaguy.wallet_settlement.model.dto.LedgerInsertResult;
+import com.javaguy.wallet_settlement.model.entity.Transaction;
+import com.javaguy.wallet_settlement.model.entity.Wallet;
+import com.javaguy.wallet_settlement.model.enums.TransactionStatus;
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import com.javaguy.wallet_settlement.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionPublisher transactionPublisher;
+
+    @InjectMocks
+    private TransactionService transactionService;
+
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        wallet = new Wallet();
+        wallet.setId(1L);
+        wallet.setCustomerId("CUST_TEST");
+        wallet.setBalance(BigDecimal.valueOf(500.00));
+    }
+
+    @Test
+    void createTransaction_InsertsWithoutPublishing() {
+        LedgerInsertResult result = insertResult(42L, true);
+        when(transactionRepository.insertIfAbsent(eq("TXN-NEW"), eq("req-1"), eq(1L), eq("TOPUP"),
+                any(BigDecimal.class), any(), eq("COMPLETED"), any()))
+                .thenReturn(Optional.of(result));
+
+        Transaction transaction = transactionService.createTransaction(
+                "TXN-NEW", wallet, TransactionType.TOPUP, BigDecimal.valueOf(100.00), "Top-up", "req-1");
+
+        assertEquals(42L, transaction.getId());
+        assertEquals("TXN-NEW", transaction.getTransactionId());
+        assertEquals(TransactionStatus.COMPLETED, transaction.getStatus());
+        assertNotNull(transaction.getCreatedAt());
+        // Published by the caller once the wallet row is locked
+        verify(transactionPublisher, never()).publishTransaction(any(Transaction.class));
+        verify(transactionRepository, never()).findById(anyLong());
+
+        transactionService.publishTransaction(transaction);
+        verify(transactionPublisher, times(1)).publishTransaction(transaction);
+    }
+
+    @Test
+    void createTransaction_ReplayReturnsExistingRow() {
+        Transaction existingTransaction = Transaction.builder()
+                .id(7L)
+                .transactionId("TXN-EXISTING")
+                .requestId("req-1")
+                .type(TransactionType.TOPUP)
+                .status(TransactionStatus.COMPLETED)
+                .build();
+        LedgerInsertResult result = insertResult(7L, false);
+        when(transactionRepository.insertIfAbsent(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Optional.of(result));
+        when(transactionRepository.findById(7L)).thenReturn(Optional.of(existingTransaction));
+
+        Transaction transaction = transactionService.createTransaction(
+                "TXN-NEW", wallet, TransactionType.TOPUP, BigDecimal.valueOf(100.00), "Top-up", "req-1");
+
+        assertSame(existingTransaction, transaction);
+        verify(transactionPublisher, never()).publishTransaction(any(Transaction.class));
+    }
+
+    @Test
+    void createTransaction_ConcurrentReplayFallsBackToRequestIdLookup() {
+        when(transactionRepository.insertIfAbsent(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Optional.empty());
+        when(transactionRepository.findByRequestId("req-1")).thenReturn(Optional.empty());
+
+        assertThrows(DuplicateTransactionException.class, () -> transactionService.createTransaction(
+                "TXN-NEW", wallet, TransactionType.TOPUP, BigDecimal.valueOf(100.00), "Top-up", "req-1"));
+        verify(transactionPublisher, never()).publishTransaction(any(Transaction.class));
+    }
+
+    private LedgerInsertResult insertResult(Long id, boolean inserted) {
+        LedgerInsertResult result = mock(LedgerInsertResult.class);
+        when(result.getId()).thenReturn(id);
+        when(result.getInserted()).thenReturn(inserted);
+        return result;
+    }
+}
@@ -0,0 +1,224 @@
+package com.javaguy.wallet_settlement.service;
+
+import com.javaguy.wallet_settlement.exception.InsufficientFundsException;
+import com.javaguy.wallet_settlement.exception.WalletNotFoundException;
+import com.javaguy.wallet_settlement.model.dto.ConsumeRequest;
+import com.javaguy.wallet_settlement.model.dto.TopUpRequest;
+import com.javaguy.wallet_settlement.model.dto.TransactionResponse;
+import com.javaguy.wallet_settlement.model.entity.Transaction;
+import com.javaguy.wallet_settlement.model.entity.Wallet;
+import com.javaguy.wallet_settlement.model.enums.TransactionStatus;
+import com.javaguy.wallet_settlement.model.enums.TransactionType;
+import com.javaguy.wallet_settlement.repository.WalletRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WalletCommandPipelineTest {
+
+    @Mock
+    private WalletRepository walletRepository;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private IdGenerator idGenerator = new SnowflakeIdGenerator(1);
+
+    @InjectMocks
+    private WalletCommandPipeline pipeline;
+
+    private String customerId;
+    private Wallet wallet;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        customerId = "CUST_TEST";
+        wallet = new Wallet();
+        wallet.setId(1L);
+        wallet.setCustomerId(customerId);
+        wallet.setBalance(BigDecimal.valueOf(100.00));
+
+        lenient().doAnswer(invocation -> {
+            ((Consumer<org.springframework.transaction.TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        ReflectionTestUtils.setField(pipeline, "enabled", true);
+        ReflectionTestUtils.setField(pipeline, "laneCount", 2);
+        ReflectionTestUtils.setField(pipeline, "maxBatchSize", 16);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 64);
+        ReflectionTestUtils.setField(pipeline, "awaitTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(pipeline, "stopTimeoutMillis", 5000L);
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.stop();
+    }
+
+    @Test
+    void topUpThenConsume_AppliedInOrder() {
+        when(walletRepository.findByCustomerId(customerId)).thenReturn(Optional.of(wallet));
+        when(transactionService.createTransaction(anyString(), eq(wallet), any(TransactionType.class), any(BigDecimal.class), any(), anyString()))
+                .thenAnswer(invocation -> Transaction.builder()
+                        .transactionId(invocation.getArgument(0))
+                        .type(invocation.getArgument(2))
+                        .amount(invocation.getArgument(3))
+                        .status(TransactionStatus.COMPLETED)
+                        .build());
+
+        TransactionResponse topUp = pipeline.topUp(customerId, topUpRequest("req-topup-1", 50.00));
+        TransactionResponse consume = pipeline.consume(customerId, consumeRequest("req-consume-1", 120.00));
+
+        assertEquals(TransactionType.TOPUP, topUp.getType());
+        assertEquals(TransactionType.CONSUME, consume.getType());
+        assertEquals(0, BigDecimal.valueOf(30.00).compareTo(wallet.getBalance()));
+        verify(transactionService, times(2)).createTransaction(anyString(), eq(wallet), any(TransactionType.class), any(BigDecimal.class), any(), anyString());
+        InOrder inOrder = inOrder(walletRepository, transactionService);
+        inOrder.verify(walletRepository).flush();
+        inOrder.verify(transactionService).publishTransaction(argThat(t -> t.getType() == TransactionType.TOPUP));
+        inOrder.verify(walletRepository).flush();
+        inOrder.verify(transactionService).publishTransaction(argThat(t -> t.getType() == TransactionType.CONSUME));
+    }
+
+    @Test
+    void consume_InsufficientFundsException() {
+        when(transactionService.findByRequestId(anyString())).thenReturn(Optional.empty());
+        when(walletRepository.findByCustomerId(customerId)).thenReturn(Optional.of(wallet));
+
+        assertThrows(InsufficientFundsException.class,
+                () -> pipeline.consume(customerId, consumeRequest("req-consume-1", 500.00)));
+        assertEquals(0, BigDecimal.valueOf(100.00).compareTo(wallet.getBalance()));
+        verify(transactionService, never()).createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), any(), anyString());
+    }
+
+    @Test
+    void consume_WalletNotFoundException() {
+        when(walletRepository.findByCustomerId(customerId)).thenReturn(Optional.empty());
+
+        assertThrows(WalletNotFoundException.class,
+                () -> pipeline.consume(customerId, consumeRequest("req-consume-1", 10.00)));
+        verify(walletRepository, never()).save(any(Wallet.class));
+    }
+
+    @Test
+    void replayedRequestId_ReturnsExistingTransaction() {
+        Transaction existingTransaction = Transaction.builder()
+                .transactionId("TXN-EXISTING")
+                .type(TransactionType.TOPUP)
+                .amount(BigDecimal.valueOf(50.00))
+                .status(TransactionStatus.COMPLETED)
+                .build();
+        when(walletRepository.findByCustomerId(customerId)).thenReturn(Optional.of(wallet));
+        when(transactionService.createTransaction(anyString(), eq(wallet), eq(TransactionType.TOPUP), any(BigDecimal.class), any(), eq("req-topup-1")))
+                .thenReturn(existingTransaction);
+
+        TransactionResponse response = pipeline.topUp(customerId, topUpRequest("req-topup-1", 50.00));
+
+        assertEquals("TXN-EXISTING", response.getTransactionId());
+        assertEquals(0, BigDecimal.valueOf(100.00).compareTo(wallet.getBalance()));
+        verify(transactionService, never()).publishTransaction(any(Transaction.class));
+    }
+
+    @Test
+    void replayedConsume_ReturnsExistingTransactionEvenWhenUnderfunded() {
+        Transaction existingTransaction = Transaction.builder()
+                .transactionId("TXN-EXISTING")
+                .type(TransactionType.CONSUME)
+                .amount(BigDecimal.valueOf(500.00))
+                .status(TransactionStatus.COMPLETED)
+                .build();
+        when(walletRepository.findByCustomerId(customerId)).thenReturn(Optional.of(wallet));
+        when(transactionService.findByRequestId("req-consume-1")).thenReturn(Optional.of(existingTransaction));
+
+        TransactionResponse response = pipeline.consume(customerId, consumeRequest("req-consume-1", 500.00));
+
+        assertEquals("TXN-EXISTING", response.getTransactionId());
+        verify(transactionService, never()).createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), any(), anyString());
+    }
+
+    @Test
+    void topUp_GivesUpAfterAwaitTimeout() {
+        ReflectionTestUtils.setField(pipeline, "awaitTimeoutMillis", 100L);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(transactionTemplate).executeWithoutResult(any());
+
+        try {
+            assertThrows(IllegalStateException.class, () -> pipeline.topUp(customerId, topUpRequest("req-topup-1", 50.00)));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void stop_FailsCommandsLeftInTheQueue() throws Exception {
+        ReflectionTestUtils.setField(pipeline, "stopTimeoutMillis", 100L);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            entered.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        try {
+            pipeline.submit(command("req-topup-1"));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            CompletableFuture<TransactionResponse> queued = pipeline.submit(command("req-topup-2"));
+
+            pipeline.stop();
+
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+            assertThrows(IllegalStateException.class, () -> pipeline.submit(command("req-topup-3")));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private WalletCommandPipeline.WalletCommand command(String requestId) {
+        return new WalletCommandPipeline.WalletCommand(customerId, TransactionType.TOPUP, BigDecimal.valueOf(10.00), null, requestId);
+    }
+
+    private TopUpRequest topUpRequest(String requestId, double amount) {
+        TopUpRequest request = new TopUpRequest();
+        request.setAmount(BigDecimal.valueOf(amount));
+        request.setRequestId(requestId);
+        return request;
+    }
+
+    private ConsumeRequest consumeRequest(String requestId, double amount) {
+        ConsumeRequest request = new ConsumeRequest();
+        request.setAmount(BigDecimal.valueOf(amount));
+        request.setRequestId(requestId);
+        return request;
+    }
+}
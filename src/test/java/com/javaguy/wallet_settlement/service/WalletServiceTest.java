@@ -3,9 +3,11 @@ package com.javaguy.wallet_settlement.service;
 import com.javaguy.wallet_settlement.exception.InsufficientFundsException;
 import com.javaguy.wallet_settlement.exception.WalletAlreadyExistsException;
 import com.javaguy.wallet_settlement.exception.WalletNotFoundException;
+import com.javaguy.wallet_settlement.model.dto.BalanceMutation;
 import com.javaguy.wallet_settlement.model.dto.ConsumeRequest;
 import com.javaguy.wallet_settlement.model.dto.CreateWalletRequest;
 import com.javaguy.wallet_settlement.model.dto.TopUpRequest;
+import com.javaguy.wallet_settlement.model.dto.TransactionResponse;
 import com.javaguy.wallet_settlement.model.dto.WalletResponse;
 import com.javaguy.wallet_settlement.model.entity.Transaction;
 import com.javaguy.wallet_settlement.model.entity.Wallet;
@@ -15,15 +17,19 @@ import com.javaguy.wallet_settlement.repository.WalletRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +41,9 @@ class WalletServiceTest {
     @Mock
     private TransactionService transactionService;
 
+    @Spy
+    private IdGenerator idGenerator = new SnowflakeIdGenerator(1);
+
     @InjectMocks
     private WalletService walletService;
 
@@ -85,22 +94,17 @@ class WalletServiceTest {
         request.setDescription("Test Top-up");
         request.setRequestId("req-topup-1");
 
-        when(transactionService.findByRequestId(anyString())).thenReturn(Optional.empty());
         when(walletRepository.findByCustomerId(customerId)).thenReturn(Optional.of(wallet));
-        when(walletRepository.save(any(Wallet.class))).thenReturn(wallet);
+        when(walletRepository.saveAndFlush(any(Wallet.class))).thenReturn(wallet);
         when(transactionService.createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), anyString()))
-                .thenReturn(Transaction.builder()
-                        .transactionId("TXN-123")
-                        .type(TransactionType.TOPUP)
-                        .amount(request.getAmount())
-                        .description(request.getDescription())
-                        .status(TransactionStatus.COMPLETED)
-                        .build());
+                .thenAnswer(invocation -> newTransaction(invocation.getArgument(0), TransactionType.TOPUP, request.getAmount(), request.getDescription()));
 
         walletService.topUp(customerId, request);
 
         assertEquals(BigDecimal.valueOf(600.00), wallet.getBalance());
-        verify(walletRepository, times(1)).save(wallet);
+        InOrder inOrder = inOrder(walletRepository, transactionService);
+        inOrder.verify(walletRepository).saveAndFlush(wallet);
+        inOrder.verify(transactionService).publishTransaction(any(Transaction.class));
         verify(transactionService, times(1)).createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), anyString());
     }
 
@@ -111,21 +115,19 @@ class WalletServiceTest {
         request.setDescription("Test Top-up");
         request.setRequestId("req-topup-1");
 
-        Transaction existingTransaction = Transaction.builder()
-                .transactionId("TXN-EXISTING")
-                .type(TransactionType.TOPUP)
-                .amount(request.getAmount())
-                .description(request.getDescription())
-                .status(TransactionStatus.COMPLETED)
-                .build();
+        Transaction existingTransaction = newTransaction("TXN-EXISTING", TransactionType.TOPUP, request.getAmount(), request.getDescription());
 
-        when(transactionService.findByRequestId(request.getRequestId())).thenReturn(Optional.of(existingTransaction));
+        when(walletRepository.findByCustomerId(customerId)).thenReturn(Optional.of(wallet));
+        when(transactionService.createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), eq(request.getRequestId())))
+                .thenReturn(existingTransaction);
 
-        walletService.topUp(customerId, request);
+        TransactionResponse response = walletService.topUp(customerId, request);
 
-        verify(transactionService, times(1)).findByRequestId(request.getRequestId());
-        verify(walletRepository, never()).save(any(Wallet.class));
-        verify(transactionService, never()).createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), anyString());
+        assertEquals("TXN-EXISTING", response.getTransactionId());
+        assertEquals(BigDecimal.valueOf(500.00), wallet.getBalance());
+        verify(walletRepository, never()).saveAndFlush(any(Wallet.class));
+        verify(transactionService, never()).publishTransaction(any(Transaction.class));
+        verify(walletRepository, never()).credit(anyString(), any(BigDecimal.class));
     }
 
     @Test
@@ -135,23 +137,18 @@ class WalletServiceTest {
         request.setDescription("Test Consume");
         request.setRequestId("req-consume-1");
 
-        when(transactionService.findByRequestId(anyString())).thenReturn(Optional.empty());
         when(walletRepository.findByCustomerIdWithLock(customerId)).thenReturn(Optional.of(wallet));
-        when(walletRepository.save(any(Wallet.class))).thenReturn(wallet);
+        when(walletRepository.saveAndFlush(any(Wallet.class))).thenReturn(wallet);
         when(transactionService.createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), anyString()))
-                .thenReturn(Transaction.builder()
-                        .transactionId("TXN-456")
-                        .type(TransactionType.CONSUME)
-                        .amount(request.getAmount())
-                        .description(request.getDescription())
-                        .status(TransactionStatus.COMPLETED)
-                        .build());
+                .thenAnswer(invocation -> newTransaction(invocation.getArgument(0), TransactionType.CONSUME, request.getAmount(), request.getDescription()));
 
         walletService.consume(customerId, request);
 
         assertEquals(BigDecimal.valueOf(450.00), wallet.getBalance());
         verify(walletRepository, times(1)).findByCustomerIdWithLock(customerId);
-        verify(walletRepository, times(1)).save(wallet);
+        InOrder inOrder = inOrder(walletRepository, transactionService);
+        inOrder.verify(walletRepository).saveAndFlush(wallet);
+        inOrder.verify(transactionService).publishTransaction(any(Transaction.class));
         verify(transactionService, times(1)).createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), anyString());
     }
 
@@ -162,12 +159,28 @@ class WalletServiceTest {
         request.setDescription("Test Consume");
         request.setRequestId("req-consume-1");
 
-        when(transactionService.findByRequestId(anyString())).thenReturn(Optional.empty());
         when(walletRepository.findByCustomerIdWithLock(customerId)).thenReturn(Optional.of(wallet));
+        when(transactionService.createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), anyString()))
+                .thenAnswer(invocation -> newTransaction(invocation.getArgument(0), TransactionType.CONSUME, request.getAmount(), request.getDescription()));
 
+        // The ledger row written before the check is discarded with the rolled-back transaction
         assertThrows(InsufficientFundsException.class, () -> walletService.consume(customerId, request));
+        assertEquals(BigDecimal.valueOf(500.00), wallet.getBalance());
         verify(walletRepository, times(1)).findByCustomerIdWithLock(customerId);
-        verify(walletRepository, never()).save(any(Wallet.class));
+        verify(walletRepository, never()).saveAndFlush(any(Wallet.class));
+        verify(transactionService, never()).publishTransaction(any(Transaction.class));
+    }
+
+    @Test
+    void consume_WalletNotFoundException() {
+        ConsumeRequest request = new ConsumeRequest();
+        request.setAmount(BigDecimal.valueOf(50.00));
+        request.setDescription("Test Consume");
+        request.setRequestId("req-consume-1");
+
+        when(walletRepository.findByCustomerIdWithLock(customerId)).thenReturn(Optional.empty());
+
+        assertThrows(WalletNotFoundException.class, () -> walletService.consume(customerId, request));
         verify(transactionService, never()).createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), anyString());
     }
 
@@ -178,21 +191,127 @@ class WalletServiceTest {
         request.setDescription("Test Consume");
         request.setRequestId("req-consume-1");
 
-        Transaction existingTransaction = Transaction.builder()
-                .transactionId("TXN-EXISTING")
-                .type(TransactionType.CONSUME)
-                .amount(request.getAmount())
-                .description(request.getDescription())
-                .status(TransactionStatus.COMPLETED)
-                .build();
+        Transaction existingTransaction = newTransaction("TXN-EXISTING", TransactionType.CONSUME, request.getAmount(), request.getDescription());
+
+        when(walletRepository.findByCustomerIdWithLock(customerId)).thenReturn(Optional.of(wallet));
+        when(transactionService.createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), eq(request.getRequestId())))
+                .thenReturn(existingTransaction);
+
+        TransactionResponse response = walletService.consume(customerId, request);
+
+        assertEquals("TXN-EXISTING", response.getTransactionId());
+        assertEquals(BigDecimal.valueOf(500.00), wallet.getBalance());
+        verify(walletRepository, never()).saveAndFlush(any(Wallet.class));
+        verify(transactionService, never()).publishTransaction(any(Transaction.class));
+        verify(walletRepository, never()).debit(anyString(), any(BigDecimal.class));
+    }
+
+    @Test
+    void topUp_AtomicUpdate_Success() {
+        ReflectionTestUtils.setField(walletService, "atomicBalanceUpdate", true);
+        TopUpRequest request = new TopUpRequest();
+        request.setAmount(BigDecimal.valueOf(100.00));
+        request.setDescription("Test Top-up");
+        request.setRequestId("req-topup-1");
+
+        when(walletRepository.findByCustomerId(customerId)).thenReturn(Optional.of(wallet));
+        when(walletRepository.credit(customerId, request.getAmount())).thenReturn(Optional.of(mock(BalanceMutation.class)));
+        when(transactionService.createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), anyString()))
+                .thenAnswer(invocation -> newTransaction(invocation.getArgument(0), TransactionType.TOPUP, request.getAmount(), request.getDescription()));
+
+        walletService.topUp(customerId, request);
 
-        when(transactionService.findByRequestId(request.getRequestId())).thenReturn(Optional.of(existingTransaction));
+        InOrder inOrder = inOrder(walletRepository, transactionService);
+        inOrder.verify(walletRepository).credit(customerId, request.getAmount());
+        inOrder.verify(transactionService).publishTransaction(any(Transaction.class));
+        verify(walletRepository, never()).saveAndFlush(any(Wallet.class));
+        verify(transactionService, times(1)).createTransaction(anyString(), eq(wallet), eq(TransactionType.TOPUP), any(BigDecimal.class), anyString(), anyString());
+    }
+
+    @Test
+    void consume_AtomicUpdate_Success() {
+        ReflectionTestUtils.setField(walletService, "atomicBalanceUpdate", true);
+        ConsumeRequest request = new ConsumeRequest();
+        request.setAmount(BigDecimal.valueOf(50.00));
+        request.setDescription("Test Consume");
+        request.setRequestId("req-consume-1");
+
+        when(walletRepository.findByCustomerId(customerId)).thenReturn(Optional.of(wallet));
+        when(walletRepository.debit(customerId, request.getAmount())).thenReturn(Optional.of(mock(BalanceMutation.class)));
+        when(transactionService.createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), anyString()))
+                .thenAnswer(invocation -> newTransaction(invocation.getArgument(0), TransactionType.CONSUME, request.getAmount(), request.getDescription()));
 
         walletService.consume(customerId, request);
 
-        verify(transactionService, times(1)).findByRequestId(request.getRequestId());
+        verify(walletRepository, times(1)).debit(customerId, request.getAmount());
         verify(walletRepository, never()).findByCustomerIdWithLock(anyString());
-        verify(walletRepository, never()).save(any(Wallet.class));
+        verify(walletRepository, never()).saveAndFlush(any(Wallet.class));
+        verify(transactionService, times(1)).createTransaction(anyString(), eq(wallet), eq(TransactionType.CONSUME), any(BigDecimal.class), anyString(), anyString());
+    }
+
+    @Test
+    void consume_AtomicUpdate_InsufficientFundsException() {
+        ReflectionTestUtils.setField(walletService, "atomicBalanceUpdate", true);
+        ConsumeRequest request = new ConsumeRequest();
+        request.setAmount(BigDecimal.valueOf(600.00));
+        request.setDescription("Test Consume");
+        request.setRequestId("req-consume-1");
+
+        when(walletRepository.findByCustomerId(customerId)).thenReturn(Optional.of(wallet));
+        when(walletRepository.debit(customerId, request.getAmount())).thenReturn(Optional.empty());
+        when(transactionService.createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), anyString()))
+                .thenAnswer(invocation -> newTransaction(invocation.getArgument(0), TransactionType.CONSUME, request.getAmount(), request.getDescription()));
+
+        assertThrows(InsufficientFundsException.class, () -> walletService.consume(customerId, request));
+        verify(walletRepository, never()).saveAndFlush(any(Wallet.class));
+        verify(transactionService, never()).publishTransaction(any(Transaction.class));
+    }
+
+    @Test
+    void consume_AtomicUpdate_InsufficientFundsMessageOmitsStaleBalance() {
+        ReflectionTestUtils.setField(walletService, "atomicBalanceUpdate", true);
+        ConsumeRequest request = new ConsumeRequest();
+        request.setAmount(BigDecimal.valueOf(50.00));
+        request.setDescription("Test Consume");
+        request.setRequestId("req-consume-1");
+
+        when(walletRepository.findByCustomerId(customerId)).thenReturn(Optional.of(wallet));
+        when(walletRepository.debit(customerId, request.getAmount())).thenReturn(Optional.empty());
+        when(transactionService.createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), anyString()))
+                .thenAnswer(invocation -> newTransaction(invocation.getArgument(0), TransactionType.CONSUME, request.getAmount(), request.getDescription()));
+
+        InsufficientFundsException exception = assertThrows(InsufficientFundsException.class, () -> walletService.consume(customerId, request));
+        assertFalse(exception.getMessage().contains("Available"));
+    }
+
+    @Test
+    void topUp_AtomicUpdate_WalletVanishedFailsInsteadOfSucceeding() {
+        ReflectionTestUtils.setField(walletService, "atomicBalanceUpdate", true);
+        TopUpRequest request = new TopUpRequest();
+        request.setAmount(BigDecimal.valueOf(100.00));
+        request.setDescription("Test Top-up");
+        request.setRequestId("req-topup-1");
+
+        when(walletRepository.findByCustomerId(customerId)).thenReturn(Optional.of(wallet));
+        when(walletRepository.credit(customerId, request.getAmount())).thenReturn(Optional.empty());
+        when(transactionService.createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), anyString()))
+                .thenAnswer(invocation -> newTransaction(invocation.getArgument(0), TransactionType.TOPUP, request.getAmount(), request.getDescription()));
+
+        assertThrows(WalletNotFoundException.class, () -> walletService.topUp(customerId, request));
+    }
+
+    @Test
+    void consume_AtomicUpdate_WalletNotFoundException() {
+        ReflectionTestUtils.setField(walletService, "atomicBalanceUpdate", true);
+        ConsumeRequest request = new ConsumeRequest();
+        request.setAmount(BigDecimal.valueOf(50.00));
+        request.setDescription("Test Consume");
+        request.setRequestId("req-consume-1");
+
+        when(walletRepository.findByCustomerId(customerId)).thenReturn(Optional.empty());
+
+        assertThrows(WalletNotFoundException.class, () -> walletService.consume(customerId, request));
+        verify(walletRepository, never()).debit(anyString(), any(BigDecimal.class));
         verify(transactionService, never()).createTransaction(anyString(), any(Wallet.class), any(TransactionType.class), any(BigDecimal.class), anyString(), anyString());
     }
 
@@ -215,4 +334,14 @@ class WalletServiceTest {
         assertThrows(WalletNotFoundException.class, () -> walletService.getBalance(customerId));
         verify(walletRepository, times(1)).findByCustomerId(customerId);
     }
+
+    private Transaction newTransaction(String transactionId, TransactionType type, BigDecimal amount, String description) {
+        return Transaction.builder()
+                .transactionId(transactionId)
+                .type(type)
+                .amount(amount)
+                .description(description)
+                .status(TransactionStatus.COMPLETED)
+                .build();
+    }
 }